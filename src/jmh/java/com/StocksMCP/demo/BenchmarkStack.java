@@ -0,0 +1,53 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The server wired the way Spring wires it, in front of a {@link FakeAlphaVantageServer}. Cache
+ * TTLs are long enough that after {@link #warm(String...)} a benchmark only exercises the request
+ * path, never the network.
+ */
+final class BenchmarkStack implements AutoCloseable {
+
+    private final TestStack stack;
+    final McpServerRunner runner;
+
+    private BenchmarkStack(TestStack stack) {
+        this.stack = stack;
+        this.runner = stack.runner;
+    }
+
+    static BenchmarkStack start() {
+        List<String> properties = new ArrayList<>(List.of("alpha-vantage.cache.max-entries=2000",
+                "alpha-vantage.max-queue-wait=30s", "alpha-vantage.timeout=30s", "alpha-vantage.read-timeout=30s"));
+        for (AlphaVantageFunction function : AlphaVantageFunction.values()) {
+            properties.add("alpha-vantage.cache.ttl." + function.name() + "=1d");
+        }
+        return new BenchmarkStack(TestStack.start(properties.toArray(String[]::new)));
+    }
+
+    JsonNode call(String line) {
+        return runner.handleRequest(line).block();
+    }
+
+    /**
+     * Sends each request once so its result is cached.
+     */
+    BenchmarkStack warm(String... lines) {
+        for (String line : lines) {
+            JsonNode response = call(line);
+            if (response.has("error") || response.path("result").has("error")) {
+                throw new IllegalStateException("Warm-up failed for " + line + ": " + response);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public void close() {
+        stack.close();
+    }
+}
@@ -0,0 +1,74 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One stdin line through {@link McpServerRunner#handleRequest(String)}: JSON-RPC parsing, method
+ * dispatch, the cache lookup and rendering of the result. Every call is a cache hit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+    static final String QUOTE = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"getStockPrice\",\"params\":{\"symbol\":\"IBM\"}}";
+    static final String INCOME_STATEMENT = "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"getIncomeStatement\",\"params\":{\"symbol\":\"IBM\",\"limit\":5}}";
+    static final String NEWS = "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"getStockNews\",\"params\":{\"symbol\":\"IBM\",\"limit\":10}}";
+    static final String BATCH = "[" + QUOTE + "," + INCOME_STATEMENT + "," + NEWS + "]";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private BenchmarkStack stack;
+
+    @Setup
+    public void setUp() {
+        stack = BenchmarkStack.start().warm(QUOTE, INCOME_STATEMENT, NEWS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        stack.close();
+    }
+
+    @Benchmark
+    public JsonNode parseLine() throws IOException {
+        return mapper.readTree(INCOME_STATEMENT);
+    }
+
+    @Benchmark
+    public JsonNode quote() {
+        return stack.call(QUOTE);
+    }
+
+    @Benchmark
+    public JsonNode incomeStatement() {
+        return stack.call(INCOME_STATEMENT);
+    }
+
+    @Benchmark
+    public JsonNode news() {
+        return stack.call(NEWS);
+    }
+
+    @Benchmark
+    public JsonNode batch() {
+        return stack.call(BATCH);
+    }
+}
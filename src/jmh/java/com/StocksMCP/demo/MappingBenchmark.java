@@ -0,0 +1,106 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps the recorded INCOME_STATEMENT response (20 annual and 81 quarterly reports) the way the
+ * service did before the schema engine, with a tree and one hand-written put per field, against the compiled
+ * schema decoding the same bytes into JSON rows and into a {@link StatementTable}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    @Param({"5", "0"})
+    int limit;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        body = AlphaVantageFixtures.load(AlphaVantageFunction.INCOME_STATEMENT);
+    }
+
+    @Benchmark
+    public JsonNode handCodedTree() throws IOException {
+        JsonNode response = mapper.readTree(body);
+        ArrayNode statements = mapper.createArrayNode();
+        int count = 0;
+
+        for (JsonNode statement : response.get("annualReports")) {
+            if (limit > 0 && count >= limit) break;
+
+            ObjectNode row = mapper.createObjectNode();
+
+            row.put("fiscalDateEnding", statement.path("fiscalDateEnding").asText(""));
+            row.put("reportedCurrency", statement.path("reportedCurrency").asText(""));
+            row.put("grossProfit", statement.path("grossProfit").asDouble(0.0));
+            row.put("totalRevenue", statement.path("totalRevenue").asDouble(0.0));
+            row.put("costOfRevenue", statement.path("costOfRevenue").asDouble(0.0));
+            row.put("costofGoodsAndServicesSold", statement.path("costOfGoodsAndServicesSold").asDouble(0.0));
+            row.put("operatingIncome", statement.path("operatingIncome").asDouble(0.0));
+            row.put("sellingGeneralAndAdministrative", statement.path("sellingGeneralAndAdministrative").asDouble(0.0));
+            row.put("researchAndDevelopment", statement.path("researchAndDevelopment").asDouble(0.0));
+            row.put("operatingExpenses", statement.path("operatingExpenses").asDouble(0.0));
+            row.put("investmentIncomeNet", statement.path("investmentIncomeNet").asDouble(0.0));
+            row.put("interestIncome", statement.path("interestIncome").asDouble(0.0));
+            row.put("interestExpense", statement.path("interestExpense").asDouble(0.0));
+            row.put("nonInterestIncome", statement.path("nonInterestIncome").asDouble(0.0));
+            row.put("otherNonOperatingIncome", statement.path("otherNonOperatingIncome").asDouble(0.0));
+            row.put("depriciation", statement.path("depreciation").asDouble(0.0));
+            row.put("depriciationAndAmortization", statement.path("depreciationAndAmortization").asDouble(0.0));
+            row.put("incomeBeforeTax", statement.path("incomeBeforeTax").asDouble(0.0));
+            row.put("incomeTaxExpense", statement.path("incomeTaxExpense").asDouble(0.0));
+            row.put("interestAndDebtExpense", statement.path("interestAndDebtExpense").asDouble(0.0));
+            row.put("netIncomeFromContinuingOperations", statement.path("netIncomeFromContinuingOperations").asDouble(0.0));
+            row.put("comprehensiveIncomeNetOfTax", statement.path("comprehensiveIncomeNetOfTax").asDouble(0.0));
+            row.put("ebit", statement.path("ebit").asDouble(0.0));
+            row.put("ebitda", statement.path("ebitda").asDouble(0.0));
+            row.put("netIncome", statement.path("netIncome").asDouble(0.0));
+
+            statements.add(row);
+            count++;
+        }
+        return statements;
+    }
+
+    @Benchmark
+    public ArrayNode schemaToJsonRows() {
+        return decode(new JsonReportRows(mapper, ReportSchemas.INCOME_STATEMENT)).array();
+    }
+
+    @Benchmark
+    public StatementTable schemaToTable() {
+        return decode(new StatementTable.Builder(ReportSchemas.INCOME_STATEMENT)).build();
+    }
+
+    private <R extends ReportRows> R decode(R rows) {
+        ReportStreamDecoder<R> decoder = new ReportStreamDecoder<>(ReportSchemas.INCOME_STATEMENT, limit > 0 ? limit : null, rows);
+        decoder.feed(ByteBuffer.wrap(body));
+        decoder.finish();
+        return decoder.rows();
+    }
+}
@@ -0,0 +1,62 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The mapping step of each {@link StockService} tool against its recorded fixture: the body is
+ * fed to the decoder in 8 KB chunks, as it arrives from the network, into the same sink the
+ * service uses. Statements are also rendered to JSON, since the service does that per response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseMappingBenchmark {
+
+    private static final int CHUNK = 8192;
+
+    @Param({"GLOBAL_QUOTE", "NEWS_SENTIMENT", "OVERVIEW", "INSIDER_TRANSACTIONS",
+            "INCOME_STATEMENT", "BALANCE_SHEET", "CASH_FLOW", "EARNINGS_ESTIMATES"})
+    AlphaVantageFunction function;
+
+    @Param({"5", "0"})
+    int limit;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ReportSchema schema;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        schema = ReportSchemas.of(function);
+        body = AlphaVantageFixtures.load(function);
+    }
+
+    @Benchmark
+    public Object map() {
+        boolean statements = ReportSchemas.statementsOf(function) != null;
+        ReportRows rows = statements ? new StatementTable.Builder(schema) : new JsonReportRows(mapper, schema);
+        ReportStreamDecoder<ReportRows> decoder = new ReportStreamDecoder<>(schema, limit > 0 ? limit : null, rows);
+        for (int offset = 0; offset < body.length && !decoder.isDone(); offset += CHUNK) {
+            decoder.feed(ByteBuffer.wrap(body, offset, Math.min(CHUNK, body.length - offset)));
+        }
+        decoder.finish();
+        return statements ? ((StatementTable.Builder) rows).build().toJson(mapper) : ((JsonReportRows) rows).array();
+    }
+}
@@ -0,0 +1,92 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a finished response into the line written to stdout: rendered to a {@code String} and
+ * printed, as the runner used to do, against streaming it through a {@link ResponseWriter}. Both
+ * write to a sink that discards the bytes, so only the serialization and copying are measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"quote", "incomeStatement", "news", "batch"})
+    String response;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final PrintStream printStream = new PrintStream(OutputStream.nullOutputStream());
+    private final ResponseWriter writer = new ResponseWriter(new DiscardingChannel(), 65536, null, null);
+    private JsonNode node;
+
+    @Setup
+    public void setUp() {
+        try (BenchmarkStack stack = BenchmarkStack.start()) {
+            node = stack.call(switch (response) {
+                case "quote" -> DispatchBenchmark.QUOTE;
+                case "incomeStatement" -> DispatchBenchmark.INCOME_STATEMENT;
+                case "news" -> DispatchBenchmark.NEWS;
+                default -> DispatchBenchmark.BATCH;
+            });
+        }
+    }
+
+    @Benchmark
+    public String writeValueAsString() throws JsonProcessingException {
+        return mapper.writeValueAsString(node);
+    }
+
+    @Benchmark
+    public void printString() throws JsonProcessingException {
+        printStream.println(mapper.writeValueAsString(node));
+        printStream.flush();
+    }
+
+    @Benchmark
+    public void responseWriter() {
+        writer.append(node);
+        writer.flush();
+    }
+
+    private static final class DiscardingChannel implements WritableByteChannel {
+
+        @Override
+        public int write(ByteBuffer source) {
+            int length = source.remaining();
+            source.position(source.limit());
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
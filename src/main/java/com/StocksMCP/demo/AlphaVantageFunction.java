@@ -0,0 +1,44 @@
+package com.StocksMCP.demo;
+
+import java.time.Duration;
+
+/**
+ * The Alpha Vantage functions the server calls, with their scheduling priority, how long a
+ * fetched result stays fresh and how much longer a stale copy may still be served while it
+ * is refreshed in the background.
+ */
+public enum AlphaVantageFunction {
+
+    GLOBAL_QUOTE(UpstreamPriority.INTERACTIVE, Duration.ofSeconds(30), Duration.ofSeconds(30)),
+    REALTIME_BULK_QUOTES(UpstreamPriority.INTERACTIVE, Duration.ofSeconds(30), Duration.ofSeconds(30)),
+    TIME_SERIES_DAILY(UpstreamPriority.BULK, Duration.ofHours(6), Duration.ofDays(7)),
+    NEWS_SENTIMENT(UpstreamPriority.INTERACTIVE, Duration.ofMinutes(5), Duration.ofMinutes(15)),
+    OVERVIEW(UpstreamPriority.BULK, Duration.ofDays(1), Duration.ofDays(7)),
+    INSIDER_TRANSACTIONS(UpstreamPriority.BULK, Duration.ofHours(6), Duration.ofDays(1)),
+    INCOME_STATEMENT(UpstreamPriority.BULK, Duration.ofDays(1), Duration.ofDays(7)),
+    BALANCE_SHEET(UpstreamPriority.BULK, Duration.ofDays(1), Duration.ofDays(7)),
+    CASH_FLOW(UpstreamPriority.BULK, Duration.ofDays(1), Duration.ofDays(7)),
+    EARNINGS_ESTIMATES(UpstreamPriority.BULK, Duration.ofHours(12), Duration.ofDays(3));
+
+    private final UpstreamPriority priority;
+    private final Duration defaultTtl;
+    private final Duration defaultMaxStale;
+
+    AlphaVantageFunction(UpstreamPriority priority, Duration defaultTtl, Duration defaultMaxStale) {
+        this.priority = priority;
+        this.defaultTtl = defaultTtl;
+        this.defaultMaxStale = defaultMaxStale;
+    }
+
+    public UpstreamPriority priority() {
+        return priority;
+    }
+
+    public Duration defaultTtl() {
+        return defaultTtl;
+    }
+
+    public Duration defaultMaxStale() {
+        return defaultMaxStale;
+    }
+}
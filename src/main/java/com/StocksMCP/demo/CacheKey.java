@@ -0,0 +1,20 @@
+package com.StocksMCP.demo;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Identifies one upstream result: the Alpha Vantage function, the symbol and any extra
+ * parameters that change the mapped output (such as {@code limit}). Symbols are trimmed and
+ * upper-cased, so {@code aapl} and {@code AAPL} share one cache entry and one in-flight call.
+ */
+public record CacheKey(AlphaVantageFunction function, String symbol, String params) {
+
+    public static CacheKey of(AlphaVantageFunction function, String symbol, Object... params) {
+        String joined = Arrays.stream(params)
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        return new CacheKey(function, symbol == null ? null : symbol.trim().toUpperCase(Locale.ROOT), joined);
+    }
+}
@@ -0,0 +1,251 @@
+package com.StocksMCP.demo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One circuit breaker per Alpha Vantage function, so a failing or throttled endpoint fails fast
+ * instead of making every caller wait out its timeout.
+ * <p>
+ * A closed breaker keeps the outcomes of the last {@code alpha-vantage.breaker.window} calls and
+ * opens once at least {@code minimum-calls} of them are in and either the share of failures
+ * reaches {@code failure-rate} or the share of calls slower than {@code slow-call} reaches
+ * {@code slow-rate}. An open breaker rejects every call for {@code open-for}, then lets
+ * {@code trial-calls} calls through half-open: it closes when they all succeed in time and opens
+ * again on the first that does not.
+ * <p>
+ * Failures are errors from the network or Alpha Vantage and rate-limit notices; calls that never
+ * got quota are not counted, since they say nothing about the endpoint.
+ */
+@Component
+public class CircuitBreakers {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final boolean enabled;
+    private final int minimumCalls;
+    private final double failureRate;
+    private final long slowCallNanos;
+    private final double slowRate;
+    private final long openForNanos;
+    private final int trialCalls;
+    private final Map<AlphaVantageFunction, Breaker> breakers = new EnumMap<>(AlphaVantageFunction.class);
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public CircuitBreakers(
+            ServerMetrics metrics,
+            @Value("${alpha-vantage.breaker.enabled:true}") boolean enabled,
+            @Value("${alpha-vantage.breaker.window:20}") int window,
+            @Value("${alpha-vantage.breaker.minimum-calls:5}") int minimumCalls,
+            @Value("${alpha-vantage.breaker.failure-rate:0.5}") double failureRate,
+            @Value("${alpha-vantage.breaker.slow-call:10s}") Duration slowCall,
+            @Value("${alpha-vantage.breaker.slow-rate:0.5}") double slowRate,
+            @Value("${alpha-vantage.breaker.open-for:30s}") Duration openFor,
+            @Value("${alpha-vantage.breaker.trial-calls:2}") int trialCalls
+    ) {
+        this.enabled = enabled;
+        int size = Math.max(1, window);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, size));
+        this.failureRate = failureRate;
+        this.slowCallNanos = slowCall.toNanos();
+        this.slowRate = slowRate;
+        this.openForNanos = openFor.toNanos();
+        this.trialCalls = Math.max(1, trialCalls);
+        for (AlphaVantageFunction function : AlphaVantageFunction.values()) {
+            breakers.put(function, new Breaker(size));
+        }
+        metrics.gauge("openCircuits", this::openCount);
+        metrics.gauge("circuitsOpened", () -> (int) opened.get());
+        metrics.gauge("circuitRejections", () -> (int) rejected.get());
+    }
+
+    /**
+     * Whether a call of {@code function} would be rejected right now. Does not take a trial call.
+     */
+    public boolean isOpen(AlphaVantageFunction function) {
+        return enabled && breakers.get(function).rejects(System.nanoTime());
+    }
+
+    /**
+     * Lets one call of {@code function} through, or returns {@code null} if its breaker rejects it.
+     * The call must end with exactly one of the permit's methods, or {@link Permit#release()}.
+     */
+    public Permit tryAcquire(AlphaVantageFunction function) {
+        if (!enabled) return new Permit(null);
+        Breaker breaker = breakers.get(function);
+        if (!breaker.acquire(System.nanoTime())) {
+            rejected.incrementAndGet();
+            return null;
+        }
+        return new Permit(breaker);
+    }
+
+    public UpstreamUnavailableException rejection(AlphaVantageFunction function) {
+        long retryNanos = Math.max(0, breakers.get(function).openUntil - System.nanoTime());
+        return new UpstreamUnavailableException("Alpha Vantage " + function.name() + " is failing; not calling it for another "
+                + Duration.ofNanos(retryNanos).toSeconds() + "s");
+    }
+
+    State state(AlphaVantageFunction function) {
+        return breakers.get(function).state;
+    }
+
+    public int openCount() {
+        int open = 0;
+        for (Breaker breaker : breakers.values()) {
+            if (breaker.state != State.CLOSED) open++;
+        }
+        return open;
+    }
+
+    /**
+     * One call let through by a breaker. The call's time is measured from {@link #started()},
+     * when it got quota, so time spent queueing for quota is never taken for a slow upstream.
+     */
+    public final class Permit {
+
+        private final Breaker breaker;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile long startedAt;
+
+        private Permit(Breaker breaker) {
+            this.breaker = breaker;
+        }
+
+        public void started() {
+            if (startedAt == 0) startedAt = System.nanoTime();
+        }
+
+        public void succeeded() {
+            if (breaker == null || !done.compareAndSet(false, true)) return;
+            long now = System.nanoTime();
+            boolean slow = startedAt != 0 && now - startedAt > slowCallNanos;
+            breaker.record(slow ? SLOW : SUCCESS, now);
+        }
+
+        public void failed(Throwable error) {
+            if (error instanceof UpstreamQuotaException) {
+                release();
+                return;
+            }
+            failed();
+        }
+
+        public void failed() {
+            if (breaker == null || !done.compareAndSet(false, true)) return;
+            breaker.record(FAILURE, System.nanoTime());
+        }
+
+        /**
+         * Ends a call that says nothing about the endpoint, handing back its trial call if it had one.
+         */
+        public void release() {
+            if (breaker == null || !done.compareAndSet(false, true)) return;
+            breaker.release();
+        }
+    }
+
+    private final class Breaker {
+
+        private final byte[] outcomes;
+        private int next;
+        private int calls;
+        private int failures;
+        private int slow;
+
+        private volatile State state = State.CLOSED;
+        private volatile long openUntil;
+        private int trialsLeft;
+        private int trialsPassed;
+
+        Breaker(int window) {
+            this.outcomes = new byte[window];
+        }
+
+        boolean rejects(long now) {
+            State current = state;
+            if (current == State.CLOSED) return false;
+            if (current == State.OPEN) return now < openUntil;
+            synchronized (this) {
+                return state == State.HALF_OPEN && trialsLeft == 0;
+            }
+        }
+
+        synchronized boolean acquire(long now) {
+            if (state == State.OPEN) {
+                if (now < openUntil) return false;
+                state = State.HALF_OPEN;
+                trialsLeft = trialCalls;
+                trialsPassed = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialsLeft == 0) return false;
+                trialsLeft--;
+            }
+            return true;
+        }
+
+        synchronized void release() {
+            if (state == State.HALF_OPEN && trialsLeft < trialCalls) trialsLeft++;
+        }
+
+        synchronized void record(byte outcome, long now) {
+            switch (state) {
+                case OPEN -> { }
+                case HALF_OPEN -> {
+                    if (outcome != SUCCESS) {
+                        open(now);
+                    } else if (++trialsPassed >= trialCalls) {
+                        close();
+                    }
+                }
+                case CLOSED -> {
+                    if (calls == outcomes.length) {
+                        forget(outcomes[next]);
+                    } else {
+                        calls++;
+                    }
+                    outcomes[next] = outcome;
+                    next = (next + 1) % outcomes.length;
+                    if (outcome == FAILURE) failures++;
+                    if (outcome == SLOW) slow++;
+                    if (calls >= minimumCalls
+                            && (failures >= failureRate * calls || slow >= slowRate * calls)) {
+                        open(now);
+                    }
+                }
+            }
+        }
+
+        private void forget(byte outcome) {
+            if (outcome == FAILURE) failures--;
+            if (outcome == SLOW) slow--;
+        }
+
+        private void open(long now) {
+            state = State.OPEN;
+            openUntil = now + openForNanos;
+            opened.incrementAndGet();
+        }
+
+        private void close() {
+            state = State.CLOSED;
+            next = 0;
+            calls = 0;
+            failures = 0;
+            slow = 0;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Standard ratios and year-over-year growth computed from the three annual statements of one
+ * company, rendered as a compact table: one list of column names and one array of values per
+ * fiscal year, newest first.
+ * <p>
+ * Statements are aligned by {@code fiscalDateEnding}; a year missing from the balance sheet or the
+ * cash flow statement leaves the ratios that need it empty. Amounts Alpha Vantage reports as
+ * {@code None} are read as missing rather than zero, so an amount or ratio that needs one is
+ * {@code null}, as is a ratio whose denominator is zero.
+ * Ratios are rounded to four decimals and amounts to whole units of the reporting currency.
+ */
+public final class FinancialRatios {
+
+    public static final List<String> COLUMNS = List.of(
+            "fiscalDateEnding",
+            "revenue",
+            "netIncome",
+            "freeCashFlow",
+            "grossMargin",
+            "operatingMargin",
+            "netMargin",
+            "ebitdaMargin",
+            "freeCashFlowMargin",
+            "returnOnEquity",
+            "returnOnAssets",
+            "assetTurnover",
+            "currentRatio",
+            "debtToEquity",
+            "interestCoverage",
+            "revenueGrowth",
+            "operatingIncomeGrowth",
+            "netIncomeGrowth",
+            "freeCashFlowGrowth"
+    );
+
+    private FinancialRatios() {
+    }
+
+    /**
+     * The ratio table for the newest {@code years} fiscal years of {@code income}. Growth for the
+     * oldest year needs the year before it, so the statements should hold one more year than asked
+     * for.
+     */
+    public static ObjectNode compute(ObjectMapper mapper, StatementTable income, StatementTable balance,
+                                     StatementTable cashFlow, int years) {
+        Map<String, Integer> balanceRows = rowsByDate(balance);
+        Map<String, Integer> cashFlowRows = rowsByDate(cashFlow);
+
+        double[] revenue = income.column("totalRevenue");
+        double[] grossProfit = income.column("grossProfit");
+        double[] operatingIncome = income.column("operatingIncome");
+        double[] netIncome = income.column("netIncome");
+        double[] ebit = income.column("ebit");
+        double[] ebitda = income.column("ebitda");
+        double[] interestExpense = income.column("interestExpense");
+
+        double[] totalAssets = balance.column("totalAssets");
+        double[] currentAssets = balance.column("totalCurrentAssets");
+        double[] currentLiabilities = balance.column("totalCurrentLiabilities");
+        double[] equity = balance.column("totalShareholderEquity");
+        double[] totalDebt = balance.column("shortLongTermDebtTotal");
+        double[] longTermDebt = balance.column("longTermDebt");
+        double[] shortTermDebt = balance.column("shortTermDebt");
+
+        double[] operatingCashflow = cashFlow.column("operatingCashflow");
+        double[] capitalExpenditures = cashFlow.column("capitalExpenditures");
+
+        ObjectNode result = mapper.createObjectNode();
+        result.put("currency", income.rowCount() > 0 ? income.text("reportedCurrency", 0) : "");
+        ArrayNode columns = result.putArray("columns");
+        COLUMNS.forEach(columns::add);
+        ArrayNode rows = result.putArray("rows");
+
+        for (int row = 0; row < Math.min(years, income.rowCount()); row++) {
+            String date = income.text("fiscalDateEnding", row);
+            Integer b = balanceRows.get(date);
+            Integer c = cashFlowRows.get(date);
+            int previous = row + 1 < income.rowCount() ? row + 1 : -1;
+            Integer previousCash = previous >= 0 ? cashFlowRows.get(income.text("fiscalDateEnding", previous)) : null;
+
+            double freeCashFlow = c != null ? operatingCashflow[c] - capitalExpenditures[c] : Double.NaN;
+            double previousFreeCashFlow = previousCash != null
+                    ? operatingCashflow[previousCash] - capitalExpenditures[previousCash] : Double.NaN;
+            double debt = Double.NaN;
+            if (b != null) {
+                // Without a total, the debt is the sum of its parts when both are reported.
+                debt = totalDebt[b];
+                double parts = longTermDebt[b] + shortTermDebt[b];
+                if ((Double.isNaN(debt) || debt == 0) && !Double.isNaN(parts)) {
+                    debt = parts;
+                }
+            }
+
+            ArrayNode values = rows.addArray();
+            values.add(date);
+            amount(values, revenue[row]);
+            amount(values, netIncome[row]);
+            amount(values, freeCashFlow);
+            ratio(values, grossProfit[row], revenue[row]);
+            ratio(values, operatingIncome[row], revenue[row]);
+            ratio(values, netIncome[row], revenue[row]);
+            ratio(values, ebitda[row], revenue[row]);
+            ratio(values, freeCashFlow, revenue[row]);
+            ratio(values, netIncome[row], b != null ? equity[b] : Double.NaN);
+            ratio(values, netIncome[row], b != null ? totalAssets[b] : Double.NaN);
+            ratio(values, revenue[row], b != null ? totalAssets[b] : Double.NaN);
+            ratio(values, b != null ? currentAssets[b] : Double.NaN, b != null ? currentLiabilities[b] : Double.NaN);
+            ratio(values, debt, b != null ? equity[b] : Double.NaN);
+            ratio(values, ebit[row], interestExpense[row]);
+            growth(values, revenue[row], previous >= 0 ? revenue[previous] : Double.NaN);
+            growth(values, operatingIncome[row], previous >= 0 ? operatingIncome[previous] : Double.NaN);
+            growth(values, netIncome[row], previous >= 0 ? netIncome[previous] : Double.NaN);
+            growth(values, freeCashFlow, previousFreeCashFlow);
+        }
+        return result;
+    }
+
+    private static Map<String, Integer> rowsByDate(StatementTable table) {
+        Map<String, Integer> rows = new HashMap<>();
+        for (int row = 0; row < table.rowCount(); row++) {
+            rows.putIfAbsent(table.text("fiscalDateEnding", row), row);
+        }
+        return rows;
+    }
+
+    private static void amount(ArrayNode values, double value) {
+        if (Double.isNaN(value)) {
+            values.addNull();
+        } else {
+            values.add(Math.round(value));
+        }
+    }
+
+    private static void ratio(ArrayNode values, double numerator, double denominator) {
+        if (Double.isNaN(numerator) || Double.isNaN(denominator) || denominator == 0) {
+            values.addNull();
+        } else {
+            values.add(Math.round(numerator / denominator * 10_000) / 10_000.0);
+        }
+    }
+
+    /**
+     * Change from {@code previous} relative to its magnitude, so growth out of a loss is positive.
+     */
+    private static void growth(ArrayNode values, double current, double previous) {
+        ratio(values, Double.isNaN(previous) ? Double.NaN : current - previous, Math.abs(previous));
+    }
+}
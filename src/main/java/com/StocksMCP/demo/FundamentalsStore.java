@@ -0,0 +1,334 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only file of mapped fundamentals results that survives restarts, so a new session can
+ * answer previously seen tickers from local disk.
+ * <p>
+ * Each record is {@code [int length][long storedAtMillis][short keyLength][key][json]}, where a
+ * {@link StatementTable} is stored as its JSON rows. A later
+ * record for the same key supersedes earlier ones. The in-memory index (key to file offset) is
+ * built on first use by scanning the file; records past the retention period are dropped then, and
+ * the file is compacted when most of it is dead.
+ * <p>
+ * Several server processes may share the file. Scanning, appending and compacting happen under an
+ * exclusive {@link FileLock}, so appends never overlap and only a crashed writer leaves a torn
+ * tail. Compaction writes a new file in place of the old one; a process still holding the old one
+ * notices under the lock and reopens and rescans before it appends.
+ */
+@Component
+public class FundamentalsStore {
+
+    private static final Set<AlphaVantageFunction> PERSISTED = EnumSet.of(
+            AlphaVantageFunction.OVERVIEW,
+            AlphaVantageFunction.INCOME_STATEMENT,
+            AlphaVantageFunction.BALANCE_SHEET,
+            AlphaVantageFunction.CASH_FLOW,
+            AlphaVantageFunction.EARNINGS_ESTIMATES);
+
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Short.BYTES;
+
+    // File locks are held per process, so stores in one process on the same file take turns here first.
+    private static final Map<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final boolean enabled;
+    private final Path path;
+    private final long retentionMillis;
+
+    private final Map<String, Location> index = new HashMap<>();
+    private FileChannel channel;
+    private Object fileKey;
+    private boolean loaded;
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
+    public FundamentalsStore(
+            @Value("${alpha-vantage.store.enabled:true}") boolean enabled,
+            @Value("${alpha-vantage.store.path:${user.home}/.stocks-mcp/fundamentals.log}") Path path,
+            @Value("${alpha-vantage.store.retention:30d}") Duration retention
+    ) {
+        this.enabled = enabled;
+        this.path = path;
+        this.retentionMillis = retention.toMillis();
+    }
+
+    public boolean persists(AlphaVantageFunction function) {
+        return enabled && PERSISTED.contains(function);
+    }
+
+    /**
+     * Returns the stored result for {@code key}, or {@code null} if there is none within retention.
+     */
+    public synchronized Stored get(CacheKey key) {
+        if (!persists(key.function()) || !ensureLoaded()) return null;
+
+        Location location = index.get(keyString(key));
+        if (location == null) return null;
+        if (System.currentTimeMillis() - location.storedAt > retentionMillis) {
+            index.remove(keyString(key));
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(location.length);
+            channel.read(buffer, location.offset);
+            reads.incrementAndGet();
+            Object value = decode(key.function(), mapper.readTree(buffer.array()));
+            return value == null ? null : new Stored(value, location.storedAt);
+        } catch (IOException e) {
+            System.err.println("Failed to read " + key + " from " + path + ": " + e.getMessage());
+            index.remove(keyString(key));
+            return null;
+        }
+    }
+
+    public synchronized void put(CacheKey key, Object value) {
+        if (!persists(key.function()) || !ensureLoaded()) return;
+
+        try {
+            byte[] keyBytes = keyString(key).getBytes(StandardCharsets.UTF_8);
+            byte[] json = mapper.writeValueAsBytes(value instanceof StatementTable table ? table.toJson(mapper) : value);
+            long storedAt = System.currentTimeMillis();
+
+            ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + keyBytes.length + json.length);
+            record.putInt(Long.BYTES + Short.BYTES + keyBytes.length + json.length);
+            record.putLong(storedAt);
+            record.putShort((short) keyBytes.length);
+            record.put(keyBytes);
+            record.put(json);
+            record.flip();
+
+            long offset = locked(() -> {
+                long end = channel.size();
+                while (record.hasRemaining()) {
+                    channel.write(record, end + record.position());
+                }
+                return end;
+            });
+            index.put(keyString(key), new Location(offset + HEADER_BYTES + keyBytes.length, json.length, storedAt));
+            writes.incrementAndGet();
+        } catch (IOException e) {
+            System.err.println("Failed to persist " + key + " to " + path + ": " + e.getMessage());
+        }
+    }
+
+    private boolean ensureLoaded() {
+        if (loaded) return channel != null;
+        loaded = true;
+
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            open();
+            locked(() -> {
+                long live = scan();
+                if (channel.size() > 1024 * 1024 && live * 2 < channel.size()) {
+                    compact();
+                }
+                return null;
+            });
+            return true;
+        } catch (IOException e) {
+            System.err.println("Fundamentals store disabled, cannot open " + path + ": " + e.getMessage());
+            channel = null;
+            return false;
+        }
+    }
+
+    private void open() throws IOException {
+        // Read before opening: if the file is replaced in between, the keys differ and the next
+        // locked() reopens, which is harmless, rather than match a file we do not hold.
+        fileKey = currentFileKey();
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private Object currentFileKey() throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs {@code action} holding the exclusive lock on the file at {@link #path}. If another
+     * process compacted it into a new file since this one was opened, the new file is opened and
+     * scanned first, so the action never appends to a file nobody reads any more.
+     */
+    private <T> T locked(LockedAction<T> action) throws IOException {
+        synchronized (PROCESS_LOCKS.computeIfAbsent(path.toAbsolutePath().normalize(), p -> new Object())) {
+            FileLock lock = channel.lock();
+            try {
+                while (!Objects.equals(fileKey, currentFileKey())) {
+                    lock.release();
+                    channel.close();
+                    open();
+                    lock = channel.lock();
+                    index.clear();
+                    scan();
+                }
+                return action.run();
+            } finally {
+                // Compaction closes the locked channel, which already released the lock.
+                if (lock.isValid()) {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the index from the file and returns the number of bytes held by live records. A
+     * torn record at the tail (from a crash mid-write) is cut off. Called under {@link #locked}.
+     */
+    private long scan() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            long storedAt = header.getLong();
+            int keyLength = header.getShort();
+            long end = position + Integer.BYTES + length;
+            if (length < Long.BYTES + Short.BYTES + keyLength || keyLength < 0 || end > size) break;
+
+            ByteBuffer keyBuffer = ByteBuffer.allocate(keyLength);
+            channel.read(keyBuffer, position + HEADER_BYTES);
+            String key = new String(keyBuffer.array(), StandardCharsets.UTF_8);
+            long jsonOffset = position + HEADER_BYTES + keyLength;
+            int jsonLength = (int) (end - jsonOffset);
+
+            if (storedAt >= cutoff) {
+                index.put(key, new Location(jsonOffset, jsonLength, storedAt));
+            } else {
+                index.remove(key);
+            }
+            position = end;
+        }
+
+        if (position < size) {
+            channel.truncate(position);
+        }
+
+        long live = 0;
+        for (Location location : index.values()) {
+            live += location.length;
+        }
+        return live;
+    }
+
+    /**
+     * Rewrites the live records into a new file that replaces the current one. Called under
+     * {@link #locked}; the old file stays locked until it is replaced, so no process appends to it
+     * in between.
+     */
+    private void compact() throws IOException {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        Map<String, Location> rewritten = new HashMap<>();
+
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                Location location = entry.getValue();
+                byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + keyBytes.length + location.length);
+                record.putInt(Long.BYTES + Short.BYTES + keyBytes.length + location.length);
+                record.putLong(location.storedAt);
+                record.putShort((short) keyBytes.length);
+                record.put(keyBytes);
+                ByteBuffer json = record.slice(record.position(), location.length);
+                channel.read(json, location.offset);
+                record.position(record.limit()).flip();
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+                rewritten.put(entry.getKey(), new Location(offset + HEADER_BYTES + keyBytes.length, location.length, location.storedAt));
+                offset += record.limit();
+            }
+            out.force(true);
+        }
+
+        FileChannel replaced = channel;
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+        replaced.close();
+        index.clear();
+        index.putAll(rewritten);
+    }
+
+    private static Object decode(AlphaVantageFunction function, JsonNode json) {
+        ReportSchema statements = ReportSchemas.statementsOf(function);
+        if (statements == null) return json;
+        return json.isArray() ? StatementTable.fromJson(statements, json) : null;
+    }
+
+    private static String keyString(CacheKey key) {
+        return key.function().name() + '|' + key.symbol() + '|' + key.params();
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public long reads() {
+        return reads.get();
+    }
+
+    public long writes() {
+        return writes.get();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * A result read back from disk, with the wall-clock time it was stored.
+     */
+    public record Stored(Object value, long storedAtMillis) {
+    }
+
+    private record Location(long offset, int length, long storedAt) {
+    }
+
+    @FunctionalInterface
+    private interface LockedAction<T> {
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,142 @@
+package com.StocksMCP.demo;
+
+import java.util.Arrays;
+
+/**
+ * Technical indicators over a series of daily values, oldest first. Each returns a series of the
+ * same length that is {@link Double#NaN} until the indicator has seen enough values.
+ */
+public final class Indicators {
+
+    private static final int TRADING_DAYS = 252;
+
+    private Indicators() {
+    }
+
+    /**
+     * Simple moving average over {@code period} values.
+     */
+    public static double[] sma(double[] values, int period) {
+        double[] result = empty(values.length);
+        double sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            sum += values[i];
+            if (i >= period) sum -= values[i - period];
+            if (i >= period - 1) result[i] = sum / period;
+        }
+        return result;
+    }
+
+    /**
+     * Exponential moving average with smoothing {@code 2 / (period + 1)}, seeded with the simple
+     * average of the first {@code period} values.
+     */
+    public static double[] ema(double[] values, int period) {
+        return smooth(values, period, 2.0 / (period + 1));
+    }
+
+    /**
+     * Wilder's relative strength index over {@code period} changes, from 0 to 100.
+     */
+    public static double[] rsi(double[] values, int period) {
+        double[] result = empty(values.length);
+        if (values.length <= period) return result;
+
+        double gain = 0;
+        double loss = 0;
+        for (int i = 1; i <= period; i++) {
+            double change = values[i] - values[i - 1];
+            gain += Math.max(change, 0);
+            loss += Math.max(-change, 0);
+        }
+        gain /= period;
+        loss /= period;
+        result[period] = rsi(gain, loss);
+        for (int i = period + 1; i < values.length; i++) {
+            double change = values[i] - values[i - 1];
+            gain = (gain * (period - 1) + Math.max(change, 0)) / period;
+            loss = (loss * (period - 1) + Math.max(-change, 0)) / period;
+            result[i] = rsi(gain, loss);
+        }
+        return result;
+    }
+
+    private static double rsi(double gain, double loss) {
+        return loss == 0 ? (gain == 0 ? 50 : 100) : 100 - 100 / (1 + gain / loss);
+    }
+
+    /**
+     * The MACD line ({@code fast} EMA minus {@code slow} EMA), its {@code signal} EMA and the
+     * histogram between the two, in that order.
+     */
+    public static double[][] macd(double[] values, int fast, int slow, int signal) {
+        double[] fastEma = ema(values, fast);
+        double[] slowEma = ema(values, slow);
+        double[] line = empty(values.length);
+        for (int i = 0; i < values.length; i++) {
+            line[i] = fastEma[i] - slowEma[i];
+        }
+
+        // The signal line starts once the MACD line has a full signal period of values.
+        int start = Math.max(fast, slow) - 1;
+        double[] signalLine = empty(values.length);
+        if (start < values.length) {
+            double[] tail = smooth(Arrays.copyOfRange(line, start, values.length), signal, 2.0 / (signal + 1));
+            System.arraycopy(tail, 0, signalLine, start, tail.length);
+        }
+        double[] histogram = empty(values.length);
+        for (int i = 0; i < values.length; i++) {
+            histogram[i] = line[i] - signalLine[i];
+        }
+        return new double[][]{line, signalLine, histogram};
+    }
+
+    /**
+     * Annualized volatility: the standard deviation of the last {@code period} daily log returns,
+     * scaled by the square root of the trading days in a year.
+     */
+    public static double[] volatility(double[] values, int period) {
+        double[] result = empty(values.length);
+        double[] returns = new double[values.length];
+        double sum = 0;
+        double squares = 0;
+        for (int i = 1; i < values.length; i++) {
+            returns[i] = Math.log(values[i] / values[i - 1]);
+            sum += returns[i];
+            squares += returns[i] * returns[i];
+            if (i > period) {
+                sum -= returns[i - period];
+                squares -= returns[i - period] * returns[i - period];
+            }
+            if (i >= period) {
+                double mean = sum / period;
+                double variance = Math.max(0, (squares - period * mean * mean) / (period - 1));
+                result[i] = Math.sqrt(variance * TRADING_DAYS);
+            }
+        }
+        return result;
+    }
+
+    private static double[] smooth(double[] values, int period, double alpha) {
+        double[] result = empty(values.length);
+        if (values.length < period) return result;
+
+        double average = 0;
+        for (int i = 0; i < period; i++) {
+            average += values[i];
+        }
+        average /= period;
+        result[period - 1] = average;
+        for (int i = period; i < values.length; i++) {
+            average += alpha * (values[i] - average);
+            result[i] = average;
+        }
+        return result;
+    }
+
+    private static double[] empty(int length) {
+        double[] result = new double[length];
+        Arrays.fill(result, Double.NaN);
+        return result;
+    }
+}
@@ -0,0 +1,19 @@
+package com.StocksMCP.demo;
+
+/**
+ * Thrown when a tool argument is present but cannot be decoded to its parameter's type, for
+ * example a single string sent for a list parameter.
+ */
+public class InvalidParamsException extends IllegalArgumentException {
+
+    private final String parameter;
+
+    public InvalidParamsException(String parameter, Throwable cause) {
+        super("Invalid params: " + parameter, cause);
+        this.parameter = parameter;
+    }
+
+    public String parameter() {
+        return parameter;
+    }
+}
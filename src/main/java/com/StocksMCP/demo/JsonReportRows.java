@@ -0,0 +1,62 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Collects decoded rows as JSON objects, for reports that are passed straight through to the client.
+ */
+public class JsonReportRows implements ReportRows {
+
+    private final ObjectMapper mapper;
+    private final ReportSchema schema;
+    private final ArrayNode rows;
+    private ObjectNode row;
+
+    public JsonReportRows(ObjectMapper mapper, ReportSchema schema) {
+        this.mapper = mapper;
+        this.schema = schema;
+        this.rows = mapper.createArrayNode();
+    }
+
+    @Override
+    public void startRow() {
+        row = schema.newRow(mapper);
+    }
+
+    @Override
+    public void text(int field, String value) {
+        row.put(schema.field(field).target(), value);
+    }
+
+    @Override
+    public void number(int field, double value) {
+        row.put(schema.field(field).target(), value);
+    }
+
+    @Override
+    public void integer(int field, int value) {
+        row.put(schema.field(field).target(), value);
+    }
+
+    @Override
+    public void listItem(int field, String value) {
+        ((ArrayNode) row.get(schema.field(field).target())).add(value);
+    }
+
+    @Override
+    public void endRow() {
+        rows.add(row);
+        row = null;
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    public ArrayNode array() {
+        return rows;
+    }
+}
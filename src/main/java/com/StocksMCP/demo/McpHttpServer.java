@@ -0,0 +1,47 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.transport.HttpServletSseServerTransportProvider;
+import org.springframework.ai.mcp.server.autoconfigure.McpServerProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Network mode: serves MCP over HTTP with server-sent events on {@code server.port}, for one
+ * long-running process shared by many clients instead of a stdio process per client. Every
+ * session goes through the same tool beans, so they share one {@link StockService}, its
+ * connection pool, caches, circuit breakers and upstream quota.
+ * <p>
+ * Enabled by the {@code http} profile ({@code mcp.transport=http}), which also starts the servlet
+ * container. Clients open {@code spring.ai.mcp.server.sse-endpoint} and post their requests to
+ * {@code spring.ai.mcp.server.sse-message-endpoint}. Defining the transport here replaces the
+ * stdio transport Spring AI would otherwise create, and the stdio {@link McpServerRunner} is not
+ * started.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "mcp.transport", havingValue = "http")
+public class McpHttpServer {
+
+    @Bean
+    public HttpServletSseServerTransportProvider mcpHttpTransport(McpServerProperties properties) {
+        return HttpServletSseServerTransportProvider.builder()
+                .objectMapper(new ObjectMapper())
+                .baseUrl(properties.getBaseUrl())
+                .sseEndpoint(properties.getSseEndpoint())
+                .messageEndpoint(properties.getSseMessageEndpoint())
+                .build();
+    }
+
+    @Bean
+    public ServletRegistrationBean<HttpServletSseServerTransportProvider> mcpHttpServlet(
+            HttpServletSseServerTransportProvider transport, McpServerProperties properties) {
+        ServletRegistrationBean<HttpServletSseServerTransportProvider> registration = new ServletRegistrationBean<>(
+                transport, properties.getSseEndpoint(), properties.getSseMessageEndpoint());
+        registration.setName("mcp");
+        registration.setAsyncSupported(true);
+        registration.setLoadOnStartup(1);
+        return registration;
+    }
+}
@@ -2,172 +2,291 @@ package com.StocksMCP.demo;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
+@ConditionalOnProperty(name = "mcp.transport", havingValue = "stdio", matchIfMissing = true)
 public class McpServerRunner implements CommandLineRunner {
 
-    private final StockService stockService;
+    private final ToolRegistry tools;
+    private final QuoteSubscriptions quoteSubscriptions;
+    private final ServerMetrics metrics;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final boolean concurrent;
+    private final int maxInFlight;
+    private final int queueDepth;
+    private final boolean echo;
+    private final int bufferSize;
 
-    public McpServerRunner(StockService stockService) {
-        this.stockService = stockService;
+    private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final Semaphore admitted;
+    private ResponseWriter output;
+    private ToolContext context = new ToolContext(Map.of());
+
+    public McpServerRunner(
+            ToolRegistry tools,
+            QuoteSubscriptions quoteSubscriptions,
+            ServerMetrics metrics,
+            @Value("${mcp.dispatch.concurrent:true}") boolean concurrent,
+            @Value("${mcp.dispatch.max-in-flight:16}") int maxInFlight,
+            @Value("${mcp.dispatch.queue-depth:256}") int queueDepth,
+            @Value("${mcp.stdio.echo:false}") boolean echo,
+            @Value("${mcp.stdio.buffer-size:65536}") int bufferSize
+    ) {
+        this.tools = tools;
+        this.quoteSubscriptions = quoteSubscriptions;
+        this.metrics = metrics;
+        this.concurrent = concurrent;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.queueDepth = Math.max(0, queueDepth);
+        this.echo = echo;
+        this.bufferSize = bufferSize;
+        this.admitted = new Semaphore(this.maxInFlight + this.queueDepth);
+
+        metrics.gauge("running", running::get);
+        metrics.gauge("queued", () -> Math.max(0,
+                this.maxInFlight + this.queueDepth - admitted.availablePermits() - running.get()));
     }
 
     @Override
     public void run(String... args) throws Exception {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        serve(System.in, new FileOutputStream(FileDescriptor.out).getChannel());
+    }
+
+    /**
+     * Answers the requests read line by line from {@code in} on {@code out} until {@code in} ends,
+     * then waits for the requests still running.
+     */
+    void serve(InputStream in, WritableByteChannel out) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in));
         String line;
 
+        output = ResponseWriter.start(out, bufferSize,
+                echo ? System.err : null, metrics::responseWritten);
+        metrics.gauge("stdoutWrites", () -> (int) output.flushes());
+        metrics.gauge("echoDropped", () -> (int) output.echoDropped());
+
+        // There is one client on stdio; quote notifications go out on stdout between responses.
+        QuoteSubscriptions.Subscriber client = output::write;
+        context = new ToolContext(Map.of(QuoteSubscriptions.SUBSCRIBER, client));
+
         System.err.println("MCP Server started. Waiting for JSON-RPC requests...");
 
+        if (!concurrent) {
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+
+                if (output.echoes()) output.echo("Received: " + line);
+                JsonNode response = handleRequest(line).block();
+                if (response != null) {
+                    writeResponse(response);
+                }
+            }
+
+            quoteSubscriptions.unsubscribeAll(client);
+            output.close();
+            System.err.println("MCP Server stopped (stdin closed).");
+            return;
+        }
+
+        // Admission permits bound the requests accepted but not yet answered (running + queued);
+        // once they run out we stop reading stdin, which pushes back on the client.
         while ((line = reader.readLine()) != null) {
             if (line.trim().isEmpty()) continue;
 
-            System.err.println("Received: " + line);
-
-            ObjectNode response = mapper.createObjectNode();
-            response.put("jsonrpc", "2.0");
-
-            try {
-                JsonNode request = mapper.readTree(line);
-                String method = request.has("method") ? request.get("method").asText() : null;
-                String id = request.has("id") ? request.get("id").asText() : null;
-                response.put("id", id);
-
-                if (method == null) {
-                    response.set("error", mapper.createObjectNode().put("message", "Missing method"));
-                } else if ("getStockPrice".equals(method)) {
-                    if (request.has("params") && request.get("params").has("symbol")) {
-                        String symbol = request.get("params").get("symbol").asText();
-                        JsonNode result = stockService.getStockPrice(symbol);
-
-                        if (result.has("error")) {
-                            response.set("error", result.get("error"));
-                        } else {
-                            response.set("result", result);
-                        }
-                    } else {
-                        response.set("error", mapper.createObjectNode().put("message", "Missing symbol parameter"));
-                    }
-                } else if ("getStockNews".equals(method)) {
-                    if (request.has("params") && request.get("params").has("symbol")) {
-                        String symbol = request.get("params").get("symbol").asText();
-                        Integer limit = request.get("params").has("limit") ? request.get("params").get("limit").asInt() : null;
-                        JsonNode news = stockService.getStockNews(symbol, limit);
-                        response.set("result", news);
-
-                        if (news.has("error")) {
-                            response.set("error", news);
-                        } else {
-                            response.set("result", news);
-                        }
-                    } else {
-                        response.set("error", mapper.createObjectNode().put("message", "Missing symbol parameter"));
-                    }
-                } else if ("getCompanyOverview".equals(method)) {
-                    if (request.has("params") && request.get("params").has("symbol")) {
-                        String symbol = request.get("params").get("symbol").asText();
-                        JsonNode overview = stockService.getCompanyOverview(symbol);
-
-                        if (overview.has("error")) {
-                            response.set("error", overview.get("error"));
-                        } else {
-                            response.set("result", overview);
-                        }
-                    } else {
-                        response.set("error", mapper.createObjectNode().put("message", "Missing symbol parameter"));
-                    }
-                } else if ("getInsiderTransactions".equals(method)) {
-                    if (request.has("params") && request.get("params").has("symbol")) {
-                        String symbol = request.get("params").get("symbol").asText();
-                        Integer limit = request.get("params").has("limit") ? request.get("params").get("limit").asInt() : null;
-                        JsonNode transactions = stockService.getInsiderTransactions(symbol, limit);
-
-                        if (transactions.has("error")) {
-                            response.set("error", transactions.get("error"));
-                        } else {
-                            response.set("result", transactions);
-                        }
-                    } else {
-                        response.set("error", mapper.createObjectNode().put("message", "Missing symbol parameter"));
-                    }
-                } else if ("getIncomeStatement".equals(method)) {
-                    if (request.has("params") && request.get("params").has("symbol")) {
-                        String symbol = request.get("params").get("symbol").asText();
-                        Integer limit = request.get("params").has("limit") ? request.get("params").get("limit").asInt() : null;
-                        JsonNode income = stockService.getIncomeStatement(symbol, limit);
-
-                        if (income.has("error")) {
-                            response.set("error", income.get("error"));
-                        } else {
-                            response.set("result", income);
-                        }
-                    } else {
-                        response.set("error", mapper.createObjectNode().put("message", "Missing symbol parameter"));
-                    }
-                } else if ("getBalanceSheet".equals(method)) {
-                    if (request.has("params") && request.get("params").has("symbol")) {
-                        String symbol = request.get("params").get("symbol").asText();
-                        Integer limit = request.get("params").has("limit") ? request.get("params").get("limit").asInt() : null;
-                        JsonNode balanceSheet = stockService.getBalanceSheet(symbol, limit);
-
-                        if (balanceSheet.has("error")) {
-                            response.set("error", balanceSheet.get("error"));
-                        } else {
-                            response.set("result", balanceSheet);
-                        }
-                    } else {
-                        response.set("error", mapper.createObjectNode().put("message", "Missing symbol parameter"));
-                    }
-                } else if ("getCashFlow".equals(method)) {
-                    if (request.has("params") && request.get("params").has("symbol")) {
-                        String symbol = request.get("params").get("symbol").asText();
-                        Integer limit = request.get("params").has("limit") ? request.get("params").get("limit").asInt() : null;
-                        JsonNode cashFlow = stockService.getCashFlow(symbol, limit);
-
-                        if (cashFlow.has("error")) {
-                            response.set("error", cashFlow.get("error"));
-                        } else {
-                            response.set("result", cashFlow);
-                        }
-                    } else {
-                        response.set("error", mapper.createObjectNode().put("message", "Missing symbol parameter"));
+            if (output.echoes()) output.echo("Received: " + line);
+
+            admitted.acquire();
+            pending.add(new Pending(line, System.nanoTime()));
+            dispatchPending();
+        }
+
+        // Wait for every accepted request to be answered before shutting down.
+        admitted.acquire(maxInFlight + queueDepth);
+        quoteSubscriptions.unsubscribeAll(client);
+        output.close();
+
+        System.err.println("MCP Server stopped (stdin closed).");
+    }
+
+    /**
+     * Starts queued requests while fewer than {@code maxInFlight} are running. Called by the reader
+     * and by every completing request, so no thread ever waits for a free slot.
+     */
+    private void dispatchPending() {
+        while (!pending.isEmpty()) {
+            int current = running.get();
+            if (current >= maxInFlight) return;
+            if (!running.compareAndSet(current, current + 1)) continue;
+
+            Pending request = pending.poll();
+            if (request == null) {
+                running.decrementAndGet();
+                continue;
+            }
+            metrics.dispatchWait(System.nanoTime() - request.acceptedAt());
+
+            // Deferred so that even a request that throws while starting gives back its slot.
+            Mono.defer(() -> handleRequest(request.line()))
+                    .doFinally(signal -> {
+                        running.decrementAndGet();
+                        admitted.release();
+                        dispatchPending();
+                    })
+                    .subscribe(this::writeResponse,
+                            e -> System.err.println("Request failed: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Handles one line from stdin: a single JSON-RPC request or a batch array. Emits nothing when
+     * there is nothing to answer, i.e. for a notification (a request with a {@code method} but no
+     * {@code id}) or a batch made only of notifications.
+     */
+    Mono<JsonNode> handleRequest(String line) {
+        JsonNode request;
+        try {
+            request = mapper.readTree(line);
+        } catch (Exception e) {
+            metrics.invalidRequest();
+            return Mono.just(error(NullNode.instance, -32700, "Parse error: " + e.getMessage()));
+        }
+
+        if (request.isArray()) {
+            return handleBatch(request);
+        }
+        if (!request.isObject()) {
+            return Mono.just(invalidRequest());
+        }
+        return respondUnlessNotification(request).cast(JsonNode.class);
+    }
+
+    /**
+     * Runs all members of a batch in parallel. Per JSON-RPC 2.0, notifications get no entry in the
+     * response array, an empty batch is itself an invalid
+     * request, and a batch of only notifications gets no response at all.
+     */
+    private Mono<JsonNode> handleBatch(JsonNode batch) {
+        if (batch.isEmpty()) {
+            return Mono.just(invalidRequest());
+        }
+
+        return Flux.fromIterable(batch)
+                .flatMapSequential(member -> {
+                    if (!member.isObject()) {
+                        return Mono.just(invalidRequest());
                     }
-                } else if ("getEarningsEstimates".equals(method)) {
-                    if (request.has("params") && request.get("params").has("symbol")) {
-                        String symbol = request.get("params").get("symbol").asText();
-                        Integer limit = request.get("params").has("limit") ? request.get("params").get("limit").asInt() : null;
-                        JsonNode income = stockService.getEarningsEstimates(symbol, limit);
-
-                        if (income.has("error")) {
-                            response.set("error", income.get("error"));
-                        } else {
-                            response.set("result", income);
-                        }
-                    } else {
-                        response.set("error", mapper.createObjectNode().put("message", "Missing symbol parameter"));
+                    return respondUnlessNotification(member);
+                })
+                .collectList()
+                .flatMap(responses -> {
+                    if (responses.isEmpty()) {
+                        return Mono.empty();
                     }
-                } else {
-                    response.set("error", mapper.createObjectNode().put("message", "Unknown method: " + method));
-                }
+                    ArrayNode array = mapper.createArrayNode();
+                    array.addAll(responses);
+                    return Mono.just((JsonNode) array);
+                });
+    }
 
-            } catch (Exception e) {
-                response.set("error", mapper.createObjectNode().put("message", "Invalid JSON: " + e.getMessage()));
-            }
+    /**
+     * Runs {@code request} and emits its response, or runs it and emits nothing if it is a
+     * notification. Without a {@code method} it is not a notification but an invalid request,
+     * answered with a {@code null} id when it has none.
+     */
+    private Mono<ObjectNode> respondUnlessNotification(JsonNode request) {
+        Mono<ObjectNode> response = handleMessage(request);
+        return request.has("id") || !request.has("method") ? response : response.then(Mono.empty());
+    }
 
-            String output = mapper.writeValueAsString(response);
-            System.out.println(output);
-            System.out.flush();
+    private ObjectNode invalidRequest() {
+        metrics.invalidRequest();
+        return error(NullNode.instance, -32600, "Invalid Request");
+    }
 
-            System.err.println("Responded: " + output);
+    private ObjectNode error(JsonNode id, int code, String message) {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", id);
+        response.set("error", mapper.createObjectNode()
+                .put("code", code)
+                .put("message", message));
+        return response;
+    }
+
+    private Mono<ObjectNode> handleMessage(JsonNode request) {
+        String method = request.has("method") ? request.get("method").asText() : null;
+        // JSON-RPC ids may be numbers or strings and are echoed back as sent.
+        JsonNode id = request.has("id") ? request.get("id") : NullNode.instance;
+
+        if (method == null) {
+            metrics.invalidRequest();
+            return Mono.just(error(id, -32600, "Invalid Request: missing method"));
         }
 
-        System.err.println("MCP Server stopped (stdin closed).");
+        Mono<JsonNode> call = invoke(method, request.path("params"));
+        if (call == null) {
+            metrics.unknownMethod();
+            return Mono.just(error(id, -32601, "Method not found: " + method));
+        }
+
+        ObjectNode response = mapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", id);
+
+        ServerMetrics.ToolCall timer = metrics.toolCall(method);
+        return call.map(result -> {
+            timer.finish(result);
+            if (result.has("error")) {
+                response.set("error", result.get("error"));
+            } else {
+                response.set("result", result);
+            }
+            return response;
+        }).onErrorResume(e -> {
+            timer.failed(e);
+            if (e instanceof InvalidParamsException) {
+                return Mono.just(error(id, -32602, e.getMessage()));
+            }
+            response.set("error", mapper.createObjectNode().put("message", e.getMessage()));
+            return Mono.just(response);
+        });
+    }
+
+    /**
+     * Starts the tool call for {@code method}, or returns {@code null} if there is no such tool.
+     */
+    private Mono<JsonNode> invoke(String method, JsonNode params) {
+        ToolRegistry.RegisteredTool tool = tools.get(method);
+        return tool == null ? null : tool.invoke(params, context);
+    }
+
+    private void writeResponse(JsonNode response) {
+        output.write(response);
+    }
+
+    private record Pending(String line, long acceptedAt) {
     }
 }
@@ -0,0 +1,271 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * The news articles seen per ticker, so polling callers can be answered with only what is new to
+ * them and Alpha Vantage is only asked for what is new to the server.
+ * <p>
+ * A cursor is the {@code time_published} of the newest article a caller has, such as
+ * {@code 20250815T143000}, followed by {@code ~} and the URL hash of each article it has from that
+ * time. Articles published at the cursor's time are still returned unless their hash is listed,
+ * so one that shows up late with the same timestamp is not skipped. Each ticker keeps its newest
+ * {@code alpha-vantage.news.max-articles} articles, newest first, with a sorted array of 64-bit
+ * hashes of their URLs to drop the duplicates an overlapping sync returns. It also remembers from which time on its articles are
+ * complete. A sync asks for {@code time_from} the newest article held, or the caller's cursor when
+ * that is older than the complete span. Syncs happen at most every {@code refresh-after} per
+ * ticker unless a caller needs older articles.
+ */
+@Component
+public class NewsIndex {
+
+    /**
+     * The most articles one incremental sync asks Alpha Vantage for.
+     */
+    public static final int SYNC_LIMIT = 1000;
+
+    private static final Pattern CURSOR = Pattern.compile("\\d{8}T\\d{4}(\\d{2})?(~[0-9a-f]{16})*");
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int MINUTE = "yyyyMMddTHHmm".length();
+
+    private final long refreshAfterMillis;
+    private final int maxArticles;
+    private final Map<String, Feed> feeds = new HashMap<>();
+
+    private final AtomicLong added = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+
+    public NewsIndex(
+            @Value("${alpha-vantage.news.refresh-after:1m}") Duration refreshAfter,
+            @Value("${alpha-vantage.news.max-articles:200}") int maxArticles
+    ) {
+        this.refreshAfterMillis = refreshAfter.toMillis();
+        this.maxArticles = Math.max(1, maxArticles);
+    }
+
+    /**
+     * Throws if {@code cursor} is not a {@code time_published} value, optionally followed by
+     * article hashes.
+     */
+    public static void checkCursor(String cursor) {
+        if (cursor != null && !CURSOR.matcher(cursor).matches()) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor + "; expected a time such as 20250815T143000");
+        }
+    }
+
+    /**
+     * The cursor of a caller at {@code previous} that has received {@code articles}: the newest
+     * time among them and the hashes of the articles published at that time, including those
+     * {@code previous} already lists for it.
+     */
+    public static String cursor(Iterable<? extends JsonNode> articles, String previous) {
+        String newest = null;
+        StringBuilder hashes = new StringBuilder();
+        for (JsonNode article : articles) {
+            String time = article.path("time").asText();
+            int order = newest == null ? 1 : time.compareTo(newest);
+            if (order > 0) {
+                newest = time;
+                hashes.setLength(0);
+            }
+            if (order >= 0) hashes.append('~').append(HEX.toHexDigits(hash(article)));
+        }
+        if (newest == null) return previous;
+        return previous != null && newest.equals(time(previous)) ? previous + hashes : newest + hashes;
+    }
+
+    /**
+     * The time part of {@code cursor}.
+     */
+    private static String time(String cursor) {
+        int hashes = cursor == null ? -1 : cursor.indexOf('~');
+        return hashes < 0 ? cursor : cursor.substring(0, hashes);
+    }
+
+    /**
+     * Whether {@code ticker} has to be synced before a caller at {@code cursor} can be answered.
+     */
+    public synchronized boolean needsSync(String ticker, String cursor, long now) {
+        cursor = time(cursor);
+        Feed feed = feeds.get(ticker);
+        return feed == null || now - feed.syncedAt >= refreshAfterMillis || !feed.covers(cursor);
+    }
+
+    /**
+     * The {@code time_from} to sync {@code ticker} with for a caller at {@code cursor}, cut to the
+     * minute Alpha Vantage expects, or {@code null} to fetch the latest articles.
+     */
+    public synchronized String timeFrom(String ticker, String cursor) {
+        cursor = time(cursor);
+        Feed feed = feeds.get(ticker);
+        String from = feed == null ? null : feed.newest() != null ? feed.newest() : feed.coveredFrom;
+        if (cursor != null && (feed == null || !feed.covers(cursor))) {
+            from = cursor;
+        }
+        return from == null ? null : from.substring(0, MINUTE);
+    }
+
+    /**
+     * Adds the articles of a sync that asked for {@code timeFrom} (or the latest articles when
+     * {@code null}) and got {@code complete} results, skipping those already held.
+     */
+    public synchronized void merge(String ticker, JsonNode articles, String timeFrom, boolean complete, long now) {
+        Feed feed = feeds.computeIfAbsent(ticker, key -> new Feed());
+        String newest = feed.newest();
+        String oldest = null;
+        List<Article> fresh = new ArrayList<>();
+        Set<Long> batch = new HashSet<>();
+        for (JsonNode article : articles) {
+            String time = article.path("time").asText();
+            if (oldest == null || time.compareTo(oldest) < 0) oldest = time;
+            long hash = hash(article);
+            if (Arrays.binarySearch(feed.hashes, hash) >= 0 || !batch.add(hash)) {
+                duplicates.incrementAndGet();
+                continue;
+            }
+            fresh.add(new Article(hash, time, (ObjectNode) article));
+        }
+        added.addAndGet(fresh.size());
+
+        String covered = complete && timeFrom != null ? timeFrom : oldest;
+        if (covered != null) {
+            boolean contiguous = feed.coveredFrom != null && (newest == null || covered.compareTo(newest) <= 0);
+            feed.coveredFrom = contiguous && feed.coveredFrom.compareTo(covered) < 0 ? feed.coveredFrom : covered;
+        }
+        feed.add(fresh, maxArticles);
+        feed.syncedAt = now;
+    }
+
+    /**
+     * The articles of {@code ticker} a caller at {@code cursor} does not have yet, or all held when
+     * it is {@code null}, newest first: those published after the cursor's time, and those
+     * published at that time whose hash the cursor does not list. When there are more than
+     * {@code limit}, the oldest of them are returned, so a caller moving its cursor to the
+     * {@link #cursor} of the page skips nothing; articles sharing a time are never split across
+     * pages.
+     */
+    public synchronized Page after(String ticker, String cursor, int limit) {
+        Feed feed = feeds.get(ticker);
+        if (feed == null) return new Page(List.of(), false);
+        String since = time(cursor);
+        Set<Long> seen = new HashSet<>();
+        if (cursor != null) {
+            for (String hash : cursor.substring(since.length()).split("~")) {
+                if (!hash.isEmpty()) seen.add(HexFormat.fromHexDigitsToLong(hash));
+            }
+        }
+        List<Article> unseen = new ArrayList<>();
+        for (Article article : feed.articles) {
+            int order = since == null ? 1 : article.time().compareTo(since);
+            if (order < 0) break;
+            if (order > 0 || !seen.contains(article.hash())) unseen.add(article);
+        }
+        int start = Math.max(0, unseen.size() - Math.max(1, limit));
+        while (start > 0 && unseen.get(start - 1).time().equals(unseen.get(start).time())) {
+            start--;
+        }
+        List<ObjectNode> page = new ArrayList<>(unseen.size() - start);
+        for (int i = start; i < unseen.size(); i++) {
+            page.add(unseen.get(i).row());
+        }
+        return new Page(page, start > 0);
+    }
+
+    /**
+     * Whether {@code ticker} has been synced at least once.
+     */
+    public synchronized boolean holds(String ticker) {
+        return feeds.containsKey(ticker);
+    }
+
+    public synchronized int size() {
+        return feeds.size();
+    }
+
+    public long added() {
+        return added.get();
+    }
+
+    public long duplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * FNV-1a over the article's URL, or its title and time when it has none.
+     */
+    static long hash(JsonNode article) {
+        String url = article.path("url").asText();
+        String key = url.isEmpty() ? article.path("title").asText() + '|' + article.path("time").asText() : url;
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @param articles the articles returned, newest first
+     * @param more     whether newer articles were left for the next page
+     */
+    public record Page(List<ObjectNode> articles, boolean more) {
+    }
+
+    private record Article(long hash, String time, ObjectNode row) {
+    }
+
+    private static final class Feed {
+
+        private List<Article> articles = List.of();
+        private long[] hashes = new long[0];
+        private String coveredFrom;
+        private long syncedAt;
+
+        String newest() {
+            return articles.isEmpty() ? null : articles.get(0).time();
+        }
+
+        /**
+         * Whether every article published after {@code cursor} is held, as far as the last sync knew.
+         */
+        boolean covers(String cursor) {
+            return coveredFrom != null && (cursor == null || coveredFrom.compareTo(cursor) <= 0);
+        }
+
+        /**
+         * Adds new articles, keeping the newest {@code maxArticles}. When older ones are dropped
+         * the span held completely starts at the oldest one kept.
+         */
+        void add(List<Article> fresh, int maxArticles) {
+            if (fresh.isEmpty()) return;
+            List<Article> merged = new ArrayList<>(articles.size() + fresh.size());
+            merged.addAll(articles);
+            merged.addAll(fresh);
+            merged.sort(Comparator.comparing(Article::time).reversed());
+            if (merged.size() > maxArticles) {
+                merged = merged.subList(0, maxArticles);
+                String oldest = merged.get(maxArticles - 1).time();
+                if (coveredFrom == null || coveredFrom.compareTo(oldest) < 0) coveredFrom = oldest;
+            }
+            articles = List.copyOf(merged);
+            hashes = articles.stream().mapToLong(Article::hash).sorted().toArray();
+        }
+    }
+}
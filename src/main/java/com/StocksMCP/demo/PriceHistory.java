@@ -0,0 +1,98 @@
+package com.StocksMCP.demo;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Daily bars of one symbol as primitive columns, oldest first. Dates are epoch days. The column
+ * arrays are handed out as they are, not copied, and must not be modified.
+ */
+public final class PriceHistory {
+
+    private final int[] dates;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final double[] volume;
+
+    public PriceHistory(int[] dates, double[] open, double[] high, double[] low, double[] close, double[] volume) {
+        this.dates = dates;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+    }
+
+    /**
+     * The bars of a {@link ReportSchemas#TIME_SERIES_DAILY} table, which Alpha Vantage sends
+     * newest first.
+     */
+    public static PriceHistory fromTable(StatementTable table) {
+        int n = table.rowCount();
+        int[] dates = new int[n];
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        double[] volume = new double[n];
+        for (int i = 0; i < n; i++) {
+            int row = n - 1 - i;
+            dates[i] = (int) LocalDate.parse(table.text("date", row)).toEpochDay();
+            open[i] = table.number("open", row);
+            high[i] = table.number("high", row);
+            low[i] = table.number("low", row);
+            close[i] = table.number("close", row);
+            volume[i] = table.number("volume", row);
+        }
+        return new PriceHistory(dates, open, high, low, close, volume);
+    }
+
+    public int size() {
+        return dates.length;
+    }
+
+    public LocalDate date(int bar) {
+        return LocalDate.ofEpochDay(dates[bar]);
+    }
+
+    /**
+     * The epoch day of the last bar, or {@link Integer#MIN_VALUE} if there is none.
+     */
+    public int lastDay() {
+        return dates.length == 0 ? Integer.MIN_VALUE : dates[dates.length - 1];
+    }
+
+    /**
+     * The index of the first bar after epoch day {@code day}.
+     */
+    public int firstAfter(int day) {
+        int at = Arrays.binarySearch(dates, day);
+        return at >= 0 ? at + 1 : -at - 1;
+    }
+
+    int[] dates() {
+        return dates;
+    }
+
+    public double[] open() {
+        return open;
+    }
+
+    public double[] high() {
+        return high;
+    }
+
+    public double[] low() {
+        return low;
+    }
+
+    public double[] close() {
+        return close;
+    }
+
+    public double[] volume() {
+        return volume;
+    }
+}
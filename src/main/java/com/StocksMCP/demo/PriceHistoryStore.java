@@ -0,0 +1,230 @@
+package com.StocksMCP.demo;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Daily bars per symbol, one columnar file each, memory-mapped and appended to as new bars
+ * arrive.
+ * <p>
+ * A file is a header {@code [int magic][int count][int capacity][long syncedAtMillis]} followed by
+ * one column per field, each {@code capacity} slots long: the dates as epoch days, then open, high,
+ * low, close and volume as doubles. New bars are written into the free slots and only then counted
+ * in the header, so a crash mid-append leaves the previous bars intact. A full file is rewritten
+ * with at least twice the capacity. When the store is disabled the same layout is kept in heap buffers.
+ */
+@Component
+public class PriceHistoryStore {
+
+    private static final int MAGIC = 0x42415253;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES + Long.BYTES;
+    private static final int COUNT = Integer.BYTES;
+    private static final int CAPACITY = 2 * Integer.BYTES;
+    private static final int SYNCED_AT = 3 * Integer.BYTES;
+    private static final int NUMBER_COLUMNS = 5;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final Pattern SYMBOL = Pattern.compile("[A-Z0-9.\\-]{1,16}");
+
+    private final boolean enabled;
+    private final Path directory;
+    private final Map<String, ByteBuffer> series = new HashMap<>();
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong appended = new AtomicLong();
+
+    public PriceHistoryStore(
+            @Value("${alpha-vantage.history.enabled:true}") boolean enabled,
+            @Value("${alpha-vantage.history.path:${user.home}/.stocks-mcp/history}") Path directory
+    ) {
+        this.enabled = enabled;
+        this.directory = directory;
+    }
+
+    /**
+     * The stored bars of {@code symbol}, or {@code null} if it has never been synced.
+     */
+    public synchronized PriceHistory read(String symbol) {
+        ByteBuffer buffer = open(key(symbol), false);
+        if (buffer == null) return null;
+        reads.incrementAndGet();
+
+        int count = buffer.getInt(COUNT);
+        int capacity = buffer.getInt(CAPACITY);
+        int[] dates = new int[count];
+        buffer.slice(HEADER_BYTES, count * Integer.BYTES).asIntBuffer().get(dates);
+        double[][] numbers = new double[NUMBER_COLUMNS][count];
+        for (int column = 0; column < NUMBER_COLUMNS; column++) {
+            buffer.slice(numberColumn(capacity, column), count * Double.BYTES).asDoubleBuffer().get(numbers[column]);
+        }
+        return new PriceHistory(dates, numbers[0], numbers[1], numbers[2], numbers[3], numbers[4]);
+    }
+
+    /**
+     * When {@code symbol} was last synced with Alpha Vantage, or 0 if never.
+     */
+    public synchronized long syncedAt(String symbol) {
+        ByteBuffer buffer = open(key(symbol), false);
+        return buffer == null ? 0 : buffer.getLong(SYNCED_AT);
+    }
+
+    /**
+     * Appends the bars of {@code bars} dated after the last stored bar and records the sync time.
+     *
+     * @return the number of bars appended
+     */
+    public synchronized int append(String symbol, PriceHistory bars, long syncedAtMillis) {
+        String key = key(symbol);
+        ByteBuffer buffer = open(key, true);
+        int count = buffer.getInt(COUNT);
+        int lastDay = count == 0 ? Integer.MIN_VALUE : buffer.getInt(HEADER_BYTES + (count - 1) * Integer.BYTES);
+        int from = bars.firstAfter(lastDay);
+        int added = bars.size() - from;
+
+        int needed = count + added;
+        if (needed > buffer.getInt(CAPACITY)) {
+            buffer = grow(key, buffer, Math.max(buffer.getInt(CAPACITY) * 2, needed + needed / 4));
+        }
+        int capacity = buffer.getInt(CAPACITY);
+        double[][] columns = {bars.open(), bars.high(), bars.low(), bars.close(), bars.volume()};
+        for (int i = 0; i < added; i++) {
+            buffer.putInt(HEADER_BYTES + (count + i) * Integer.BYTES, bars.dates()[from + i]);
+            for (int column = 0; column < NUMBER_COLUMNS; column++) {
+                buffer.putDouble(numberColumn(capacity, column) + (count + i) * Double.BYTES, columns[column][from + i]);
+            }
+        }
+        buffer.putInt(COUNT, count + added);
+        buffer.putLong(SYNCED_AT, syncedAtMillis);
+        if (buffer instanceof MappedByteBuffer mapped) {
+            mapped.force();
+        }
+        appended.addAndGet(added);
+        return added;
+    }
+
+    private static String key(String symbol) {
+        String key = symbol.trim().toUpperCase(Locale.ROOT);
+        if (!SYMBOL.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid symbol: " + symbol);
+        }
+        return key;
+    }
+
+    private ByteBuffer open(String key, boolean create) {
+        ByteBuffer buffer = series.get(key);
+        if (buffer != null) return buffer;
+
+        if (enabled && Files.exists(file(key))) {
+            try {
+                buffer = map(file(key), Files.size(file(key)));
+                if (buffer.getInt(0) != MAGIC || size(buffer.getInt(CAPACITY)) != buffer.capacity()
+                        || buffer.getInt(COUNT) > buffer.getInt(CAPACITY)) {
+                    System.err.println("Ignoring corrupt price history " + file(key));
+                    buffer = null;
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to open price history " + file(key) + ": " + e.getMessage());
+            }
+        }
+        if (buffer == null) {
+            if (!create) return null;
+            buffer = allocate(key, INITIAL_CAPACITY);
+        }
+        series.put(key, buffer);
+        return buffer;
+    }
+
+    /**
+     * A new empty series with room for {@code capacity} bars, mapped from a fresh file when the
+     * store is enabled. If the file cannot be written the series is kept in memory only.
+     */
+    private ByteBuffer allocate(String key, int capacity) {
+        if (enabled) {
+            Path file = file(key);
+            Path fresh = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                Files.createDirectories(directory);
+                try (FileChannel channel = FileChannel.open(fresh, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    channel.write(ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(0).putInt(capacity).putLong(0).flip());
+                    channel.write(ByteBuffer.allocate(1), size(capacity) - 1);
+                }
+                Files.move(fresh, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return map(file, size(capacity));
+            } catch (IOException e) {
+                System.err.println("Failed to write price history " + file + ", keeping it in memory: " + e.getMessage());
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size(capacity));
+        buffer.putInt(0, MAGIC).putInt(CAPACITY, capacity);
+        return buffer;
+    }
+
+    private ByteBuffer grow(String key, ByteBuffer old, int capacity) {
+        int count = old.getInt(COUNT);
+        int oldCapacity = old.getInt(CAPACITY);
+        ByteBuffer grown = allocate(key, capacity);
+        grown.put(HEADER_BYTES, old, HEADER_BYTES, count * Integer.BYTES);
+        for (int column = 0; column < NUMBER_COLUMNS; column++) {
+            grown.put(numberColumn(capacity, column), old, numberColumn(oldCapacity, column), count * Double.BYTES);
+        }
+        grown.putInt(COUNT, count);
+        grown.putLong(SYNCED_AT, old.getLong(SYNCED_AT));
+        series.put(key, grown);
+        return grown;
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private Path file(String key) {
+        return directory.resolve(key + ".bars");
+    }
+
+    private static int numberColumn(int capacity, int column) {
+        return HEADER_BYTES + capacity * Integer.BYTES + column * capacity * Double.BYTES;
+    }
+
+    private static int size(int capacity) {
+        return numberColumn(capacity, NUMBER_COLUMNS);
+    }
+
+    public synchronized int size() {
+        return series.size();
+    }
+
+    public long reads() {
+        return reads.get();
+    }
+
+    public long appended() {
+        return appended.get();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (ByteBuffer buffer : series.values()) {
+            if (buffer instanceof MappedByteBuffer mapped) {
+                mapped.force();
+            }
+        }
+        series.clear();
+    }
+}
@@ -0,0 +1,357 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Quote subscriptions: one shared poller per subscribed symbol, however many clients watch it,
+ * and a {@value #NOTIFICATION_METHOD} notification to each of them when its price or volume
+ * changes.
+ * <p>
+ * A single thread polls the subscribed symbols in turn, one every {@code interval / symbols}, so
+ * polls are spread evenly over the interval rather than sent in bursts. The interval is adapted to
+ * the number of symbols so that polling stays within {@code mcp.quotes.quota-share} of the
+ * Alpha Vantage quota, and never drops below {@code mcp.quotes.min-interval}. Quotes are fetched
+ * through {@link StockService#getStockPriceAsync}, so polls and interactive calls share the cache.
+ * <p>
+ * Clients are identified by the {@link Subscriber} their transport puts in the {@link ToolContext}
+ * under {@link #SUBSCRIBER}; a transport that cannot push notifications passes none.
+ */
+@Component
+public class QuoteSubscriptions {
+
+    public static final String SUBSCRIBER = "quoteSubscriber";
+    public static final String NOTIFICATION_METHOD = "notifications/quote";
+
+    /**
+     * Receives the notifications for one client connection.
+     */
+    public interface Subscriber {
+        void quoteChanged(JsonNode notification);
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final StockService stockService;
+    private final UpstreamScheduler scheduler;
+    private final long minIntervalNanos;
+    private final double quotaShare;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, Poller> pollers = new HashMap<>();
+    private final ArrayDeque<String> rotation = new ArrayDeque<>();
+    private final Map<Subscriber, Set<String>> subscriptions = new HashMap<>();
+    private long nextPollAt;
+
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong notifications = new AtomicLong();
+    private final Thread thread;
+
+    public QuoteSubscriptions(
+            StockService stockService,
+            UpstreamScheduler scheduler,
+            ServerMetrics metrics,
+            @Value("${mcp.quotes.min-interval:30s}") Duration minInterval,
+            @Value("${mcp.quotes.quota-share:0.5}") double quotaShare
+    ) {
+        this.stockService = stockService;
+        this.scheduler = scheduler;
+        this.minIntervalNanos = Math.max(1, minInterval.toNanos());
+        this.quotaShare = quotaShare;
+
+        metrics.gauge("quoteSymbols", this::symbols);
+        metrics.gauge("quoteSubscribers", this::subscribers);
+
+        this.thread = Thread.ofPlatform()
+                .name("quote-poller")
+                .daemon(true)
+                .start(this::poll);
+    }
+
+    @Tool(name = "subscribeQuotes", description = "Subscribe to live quotes for comma-separated stock symbols. "
+            + "The server then sends a notifications/quote message whenever the price or volume of one of them changes")
+    public JsonNode subscribeQuotes(@ToolParam(description = "Comma-separated stock symbols") String symbols,
+                                    ToolContext context) {
+        return subscribeQuotesAsync(symbols, context).block();
+    }
+
+    public Mono<JsonNode> subscribeQuotesAsync(String symbols, ToolContext context) {
+        return Mono.fromSupplier(() -> {
+            Subscriber subscriber = subscriber(context);
+            if (subscriber == null) {
+                return errorResponse("Quote subscriptions need a connection that accepts notifications");
+            }
+            Set<String> requested = parse(symbols);
+            if (requested.isEmpty()) {
+                return errorResponse("No symbols to subscribe to");
+            }
+            return subscribe(subscriber, requested);
+        });
+    }
+
+    @Tool(name = "unsubscribeQuotes", description = "Stop live quotes for comma-separated stock symbols, or for all symbols if none are given")
+    public JsonNode unsubscribeQuotes(@ToolParam(description = "Comma-separated stock symbols", required = false) String symbols,
+                                      ToolContext context) {
+        return unsubscribeQuotesAsync(symbols, context).block();
+    }
+
+    public Mono<JsonNode> unsubscribeQuotesAsync(String symbols, ToolContext context) {
+        return Mono.fromSupplier(() -> {
+            Subscriber subscriber = subscriber(context);
+            if (subscriber == null) {
+                return errorResponse("Quote subscriptions need a connection that accepts notifications");
+            }
+            return unsubscribe(subscriber, symbols == null || symbols.isBlank() ? null : parse(symbols));
+        });
+    }
+
+    /**
+     * Drops every subscription of {@code subscriber}, e.g. when its connection closes.
+     */
+    public void unsubscribeAll(Subscriber subscriber) {
+        unsubscribe(subscriber, null);
+    }
+
+    private JsonNode subscribe(Subscriber subscriber, Set<String> symbols) {
+        List<JsonNode> known = new ArrayList<>();
+        ObjectNode result;
+        lock.lock();
+        try {
+            Set<String> watched = subscriptions.computeIfAbsent(subscriber, s -> new TreeSet<>());
+            for (String symbol : symbols) {
+                if (!watched.add(symbol)) continue;
+                Poller poller = pollers.get(symbol);
+                if (poller == null) {
+                    poller = new Poller();
+                    pollers.put(symbol, poller);
+                    // New symbols are polled next, ahead of the ones already being watched.
+                    rotation.addFirst(symbol);
+                } else if (poller.last != null) {
+                    known.add(notification(poller.last, null));
+                }
+                poller.subscribers.add(subscriber);
+            }
+            changed.signalAll();
+            result = subscriptionResult(watched);
+        } finally {
+            lock.unlock();
+        }
+
+        // Subscribers joining a symbol that is already polled get its latest quote right away.
+        known.forEach(subscriber::quoteChanged);
+        return result;
+    }
+
+    private JsonNode unsubscribe(Subscriber subscriber, Set<String> symbols) {
+        lock.lock();
+        try {
+            Set<String> watched = subscriptions.get(subscriber);
+            if (watched == null) {
+                return subscriptionResult(Set.of());
+            }
+            for (String symbol : symbols == null ? List.copyOf(watched) : symbols) {
+                if (!watched.remove(symbol)) continue;
+                Poller poller = pollers.get(symbol);
+                poller.subscribers.remove(subscriber);
+                if (poller.subscribers.isEmpty()) {
+                    pollers.remove(symbol);
+                    rotation.remove(symbol);
+                }
+            }
+            if (watched.isEmpty()) {
+                subscriptions.remove(subscriber);
+            }
+            return subscriptionResult(watched);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ObjectNode subscriptionResult(Set<String> watched) {
+        ObjectNode result = mapper.createObjectNode();
+        result.put("success", true);
+        ArrayNode symbols = result.putArray("symbols");
+        watched.forEach(symbols::add);
+        result.put("pollIntervalSeconds", rotation.isEmpty() ? 0.0
+                : spacingNanos(rotation.size()) * rotation.size() / 1e9);
+        return result;
+    }
+
+    private void poll() {
+        lock.lock();
+        try {
+            while (true) {
+                if (rotation.isEmpty()) {
+                    changed.await();
+                    continue;
+                }
+                long now = System.nanoTime();
+                if (now - nextPollAt < 0) {
+                    changed.awaitNanos(nextPollAt - now);
+                    continue;
+                }
+
+                String symbol = rotation.pollFirst();
+                rotation.addLast(symbol);
+                nextPollAt = now + spacingNanos(rotation.size());
+                Poller poller = pollers.get(symbol);
+
+                lock.unlock();
+                try {
+                    polls.incrementAndGet();
+                    stockService.getStockPriceAsync(symbol).subscribe(poller::update, error -> {
+                    });
+                } finally {
+                    lock.lock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Time between two polls while {@code symbols} symbols are watched: the minimum interval
+     * spread over the symbols, stretched when that would use more than our share of the quota.
+     */
+    long spacingNanos(int symbols) {
+        long spacing = minIntervalNanos / Math.max(1, symbols);
+        int keys = scheduler.apiKeyCount();
+        double perMinute = Double.MAX_VALUE;
+        if (scheduler.requestsPerMinute() > 0) {
+            perMinute = scheduler.requestsPerMinute() * keys;
+        }
+        if (scheduler.requestsPerDay() > 0) {
+            perMinute = Math.min(perMinute, scheduler.requestsPerDay() * keys / (double) TimeUnit.DAYS.toMinutes(1));
+        }
+        if (perMinute != Double.MAX_VALUE && quotaShare > 0) {
+            spacing = Math.max(spacing, (long) (TimeUnit.MINUTES.toNanos(1) / (perMinute * quotaShare)));
+        }
+        return spacing;
+    }
+
+    private ObjectNode notification(JsonNode quote, JsonNode previous) {
+        ObjectNode params = quote.deepCopy();
+        if (previous != null) {
+            params.set("previousPrice", previous.get("price"));
+            params.set("previousVolume", previous.get("volume"));
+        }
+        ObjectNode notification = mapper.createObjectNode();
+        notification.put("jsonrpc", "2.0");
+        notification.put("method", NOTIFICATION_METHOD);
+        notification.set("params", params);
+        return notification;
+    }
+
+    private static Subscriber subscriber(ToolContext context) {
+        return context != null && context.getContext().get(SUBSCRIBER) instanceof Subscriber subscriber ? subscriber : null;
+    }
+
+    private static Set<String> parse(String symbols) {
+        Set<String> parsed = new LinkedHashSet<>();
+        if (symbols == null) return parsed;
+        Arrays.stream(symbols.split(","))
+                .map(symbol -> symbol.trim().toUpperCase(Locale.ROOT))
+                .filter(symbol -> !symbol.isEmpty())
+                .forEach(parsed::add);
+        return parsed;
+    }
+
+    private ObjectNode errorResponse(String message) {
+        ObjectNode error = mapper.createObjectNode();
+        error.put("error", message);
+        return error;
+    }
+
+    public int symbols() {
+        lock.lock();
+        try {
+            return pollers.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int subscribers() {
+        lock.lock();
+        try {
+            return subscriptions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long polls() {
+        return polls.get();
+    }
+
+    public long notifications() {
+        return notifications.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        thread.interrupt();
+    }
+
+    /**
+     * The shared poller of one symbol: its subscribers and the last quote they were sent.
+     */
+    private final class Poller {
+
+        final Set<Subscriber> subscribers = new LinkedHashSet<>();
+        JsonNode last;
+
+        void update(JsonNode quote) {
+            if (quote.has("error")) return;
+
+            List<Subscriber> recipients;
+            JsonNode previous;
+            lock.lock();
+            try {
+                previous = last;
+                if (previous != null && previous.path("price").equals(quote.path("price"))
+                        && previous.path("volume").equals(quote.path("volume"))) {
+                    return;
+                }
+                last = quote;
+                recipients = List.copyOf(subscribers);
+            } finally {
+                lock.unlock();
+            }
+
+            ObjectNode notification = notification(quote, previous);
+            for (Subscriber subscriber : recipients) {
+                notifications.incrementAndGet();
+                subscriber.quoteChanged(notification);
+            }
+        }
+    }
+}
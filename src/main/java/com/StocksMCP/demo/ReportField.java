@@ -0,0 +1,61 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * One field copied from an Alpha Vantage report into an output row.
+ *
+ * @param source       key in the upstream report
+ * @param target       key in the output row
+ * @param type         how the value is read
+ * @param nestedField  for {@link Type#TEXT_LIST}, the key picked from each object of the nested array
+ * @param defaultValue value written when the upstream report lacks the field or has {@code null}
+ */
+public record ReportField(String source, String target, Type type, String nestedField, JsonNode defaultValue) {
+
+    public enum Type {
+        TEXT,
+        DOUBLE,
+        INTEGER,
+        TEXT_LIST
+    }
+
+    public static ReportField text(String source, String target) {
+        return new ReportField(source, target, Type.TEXT, null, TextNode.valueOf(""));
+    }
+
+    public static ReportField number(String source, String target) {
+        return new ReportField(source, target, Type.DOUBLE, null, DoubleNode.valueOf(0.0));
+    }
+
+    /**
+     * A reported amount that Alpha Vantage may give as {@code None}. A missing amount reads as
+     * {@code NaN} rather than zero, so nothing computed from it is made up.
+     */
+    public static ReportField amount(String source, String target) {
+        return new ReportField(source, target, Type.DOUBLE, null, DoubleNode.valueOf(Double.NaN));
+    }
+
+    public static ReportField integer(String source, String target) {
+        return new ReportField(source, target, Type.INTEGER, null, IntNode.valueOf(0));
+    }
+
+    public static ReportField textList(String source, String nestedField, String target) {
+        return new ReportField(source, target, Type.TEXT_LIST, nestedField, JsonNodeFactory.instance.arrayNode());
+    }
+
+    public ReportField withDefault(JsonNode defaultValue) {
+        return new ReportField(source, target, type, nestedField, defaultValue);
+    }
+
+    /**
+     * Whether the value is stored as a number rather than as text.
+     */
+    public boolean numeric() {
+        return type == Type.DOUBLE || type == Type.INTEGER;
+    }
+}
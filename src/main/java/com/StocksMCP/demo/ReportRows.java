@@ -0,0 +1,22 @@
+package com.StocksMCP.demo;
+
+/**
+ * Receives the rows a {@link ReportStreamDecoder} reads. Fields are identified by their index in
+ * the {@link ReportSchema}; fields that never appear in a row keep their default value.
+ */
+public interface ReportRows {
+
+    void startRow();
+
+    void text(int field, String value);
+
+    void number(int field, double value);
+
+    void integer(int field, int value);
+
+    void listItem(int field, String value);
+
+    void endRow();
+
+    int size();
+}
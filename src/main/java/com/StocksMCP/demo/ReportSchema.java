@@ -0,0 +1,204 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Declares how an Alpha Vantage response is mapped into output rows: where the rows are and
+ * which fields are copied from each of them.
+ * <p>
+ * A schema is compiled once when it is created. Fields get a fixed index and a column within
+ * their kind, and source keys are resolved to indexes up front, so decoding a row never looks
+ * anything up by target name.
+ */
+public final class ReportSchema {
+
+    /**
+     * Where the rows sit in the response.
+     */
+    public enum Shape {
+        /** Each element of the array under {@code container} is a row, as in {@code annualReports}. */
+        ARRAY,
+        /** The object under {@code container} is the single row, as in {@code Global Quote}. */
+        OBJECT,
+        /** The response object itself is the single row, as for {@code OVERVIEW}. */
+        ROOT,
+        /**
+         * Each member of the object under {@code container} is a row and its name is the row's
+         * first field, as for the dates of {@code Time Series (Daily)}.
+         */
+        KEYED
+    }
+
+    private final Shape shape;
+    private final String container;
+    private final List<ReportField> fields;
+    private final String[] sources;
+    private final Map<String, Integer> bySource = new HashMap<>();
+    private final Map<String, Integer> byTarget = new HashMap<>();
+    private final int[] columns;
+    private final int textColumns;
+    private final int numberColumns;
+
+    public ReportSchema(String arrayField, List<ReportField> fields) {
+        this(Shape.ARRAY, arrayField, fields);
+    }
+
+    private ReportSchema(Shape shape, String container, List<ReportField> fields) {
+        this.shape = shape;
+        this.container = container;
+        this.fields = List.copyOf(fields);
+        this.sources = new String[fields.size()];
+        this.columns = new int[fields.size()];
+        int texts = 0;
+        int numbers = 0;
+        for (int i = 0; i < fields.size(); i++) {
+            ReportField field = fields.get(i);
+            sources[i] = field.source().intern();
+            bySource.put(field.source(), i);
+            byTarget.put(field.target(), i);
+            columns[i] = field.numeric() ? numbers++ : texts++;
+        }
+        this.textColumns = texts;
+        this.numberColumns = numbers;
+    }
+
+    public static ReportSchema object(String objectField, List<ReportField> fields) {
+        return new ReportSchema(Shape.OBJECT, objectField, fields);
+    }
+
+    public static ReportSchema root(List<ReportField> fields) {
+        return new ReportSchema(Shape.ROOT, null, fields);
+    }
+
+    /**
+     * Rows keyed by member name under {@code objectField}; the first field, which must be text,
+     * receives the name.
+     */
+    public static ReportSchema keyed(String objectField, List<ReportField> fields) {
+        if (fields.isEmpty() || fields.get(0).type() != ReportField.Type.TEXT) {
+            throw new IllegalArgumentException("The first field of a keyed schema holds the key and must be text");
+        }
+        return new ReportSchema(Shape.KEYED, objectField, fields);
+    }
+
+    /**
+     * The same fields read from another array of the response, such as {@code quarterlyReports}.
+     */
+    public ReportSchema withArrayField(String arrayField) {
+        return new ReportSchema(Shape.ARRAY, arrayField, fields);
+    }
+
+    public Shape shape() {
+        return shape;
+    }
+
+    /**
+     * Whether the response holds any number of rows rather than a single one.
+     */
+    public boolean multiRow() {
+        return shape == Shape.ARRAY || shape == Shape.KEYED;
+    }
+
+    /**
+     * The top-level key holding the rows, or {@code null} for {@link Shape#ROOT}.
+     */
+    public String container() {
+        return container;
+    }
+
+    public List<ReportField> fields() {
+        return fields;
+    }
+
+    public ReportField field(int index) {
+        return fields.get(index);
+    }
+
+    /**
+     * Index of the field read from the upstream key {@code source}, or -1 if it is not mapped.
+     */
+    public int indexOf(String source) {
+        Integer index = bySource.get(source);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Like {@link #indexOf(String)}, but first tries the field declared after {@code previous}.
+     * Alpha Vantage sends fields in a stable order and schemas declare them in that order, and
+     * the parser hands out canonical (interned) names, so the guess is usually settled by a single
+     * reference comparison instead of a hash lookup.
+     */
+    public int indexOf(String source, int previous) {
+        int next = previous + 1;
+        if (next < sources.length && sources[next] == source) {
+            return next;
+        }
+        return indexOf(source);
+    }
+
+    /**
+     * Index of the field written to the output key {@code target}, or -1 if there is none.
+     */
+    public int indexOfTarget(String target) {
+        Integer index = byTarget.get(target);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Indexes of the fields written to the output keys {@code targets}, in schema order, or of
+     * every field when {@code targets} is {@code null} or empty.
+     *
+     * @throws IllegalArgumentException if a target is not an output key of this schema
+     */
+    public int[] indexesOfTargets(Collection<String> targets) {
+        if (targets == null || targets.isEmpty()) {
+            return IntStream.range(0, fields.size()).toArray();
+        }
+        boolean[] selected = new boolean[fields.size()];
+        for (String target : targets) {
+            int index = indexOfTarget(target.trim());
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown field " + target + "; known fields are "
+                        + fields.stream().map(ReportField::target).collect(Collectors.joining(", ")));
+            }
+            selected[index] = true;
+        }
+        return IntStream.range(0, fields.size()).filter(index -> selected[index]).toArray();
+    }
+
+    /**
+     * Position of field {@code index} among the fields stored the same way: numeric fields are
+     * numbered apart from text fields, so each kind can be packed into its own array.
+     */
+    public int column(int index) {
+        return columns[index];
+    }
+
+    public int textColumns() {
+        return textColumns;
+    }
+
+    public int numberColumns() {
+        return numberColumns;
+    }
+
+    /**
+     * Creates a row holding every target key with its default value, so rows keep the schema's
+     * key order no matter in which order the upstream fields arrive.
+     */
+    public ObjectNode newRow(ObjectMapper mapper) {
+        ObjectNode row = mapper.createObjectNode();
+        for (ReportField field : fields) {
+            row.set(field.target(), field.defaultValue().deepCopy());
+        }
+        return row;
+    }
+}
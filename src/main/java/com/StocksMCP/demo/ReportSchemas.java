@@ -0,0 +1,238 @@
+package com.StocksMCP.demo;
+
+import java.util.List;
+
+/**
+ * Field mappings for every Alpha Vantage endpoint the server calls. Adding a field or an endpoint
+ * is a matter of declaring it here; the decoder needs no new code.
+ */
+public final class ReportSchemas {
+
+    public static final ReportSchema GLOBAL_QUOTE = ReportSchema.object("Global Quote", List.of(
+            ReportField.number("05. price", "price"),
+            ReportField.number("02. open", "open"),
+            ReportField.number("03. high", "high"),
+            ReportField.number("04. low", "low"),
+            ReportField.number("06. volume", "volume"),
+            ReportField.text("07. latest trading day", "latestTradingDay"),
+            ReportField.number("08. previous close", "previousClose"),
+            ReportField.number("09. change", "change"),
+            ReportField.text("10. change percent", "changePercent")
+    ));
+
+    public static final ReportSchema BULK_QUOTES = new ReportSchema("data", List.of(
+            ReportField.text("symbol", "symbol"),
+            ReportField.number("close", "price"),
+            ReportField.number("open", "open"),
+            ReportField.number("high", "high"),
+            ReportField.number("low", "low"),
+            ReportField.number("volume", "volume"),
+            ReportField.text("timestamp", "timestamp"),
+            ReportField.number("previous_close", "previousClose"),
+            ReportField.number("change", "change"),
+            ReportField.text("change_percent", "changePercent")
+    ));
+
+    public static final ReportSchema TIME_SERIES_DAILY = ReportSchema.keyed("Time Series (Daily)", List.of(
+            ReportField.text("date", "date"),
+            ReportField.number("1. open", "open"),
+            ReportField.number("2. high", "high"),
+            ReportField.number("3. low", "low"),
+            ReportField.number("4. close", "close"),
+            ReportField.number("5. volume", "volume")
+    ));
+
+    public static final ReportSchema OVERVIEW = ReportSchema.root(List.of(
+            ReportField.text("AssetType", "assetType"),
+            ReportField.text("Description", "description"),
+            ReportField.text("Country", "country"),
+            ReportField.text("Industry", "industry"),
+            ReportField.text("LatestQuarter", "latestQuarter")
+    ));
+
+    public static final ReportSchema INSIDER_TRANSACTIONS = new ReportSchema("data", List.of(
+            ReportField.text("transaction_date", "transactionDate"),
+            ReportField.text("ticker", "symbol"),
+            ReportField.text("executive", "executiveName"),
+            ReportField.text("executive_title", "executiveTitle"),
+            ReportField.text("security_type", "securityType"),
+            ReportField.text("acquisition_or_disposal", "acquisitionOrDisposal"),
+            ReportField.number("shares", "shares"),
+            ReportField.number("share_price", "sharePrice")
+    ));
+
+    public static final ReportSchema EARNINGS_ESTIMATES = new ReportSchema("estimates", List.of(
+            ReportField.text("date", "Date"),
+            ReportField.number("eps_estimate_average", "estimateAverageEPS"),
+            ReportField.number("eps_estimate_high", "estimateHighEPS"),
+            ReportField.number("eps_estimate_low", "estimateLowEPS"),
+            ReportField.integer("eps_estimate_analyst_count", "numberOfAnalysts"),
+            ReportField.number("revenue_estimate_average", "estimateAverageRevenue"),
+            ReportField.number("revenue_estimate_analyst_count", "numberOfAnalystsRevenue")
+    ));
+
+    public static final ReportSchema NEWS_FEED = new ReportSchema("feed", List.of(
+            ReportField.text("title", "title"),
+            ReportField.text("url", "url"),
+            ReportField.text("summary", "summary"),
+            ReportField.text("time_published", "time"),
+            ReportField.text("overall_sentiment_label", "sentiment"),
+            ReportField.text("source", "source"),
+            ReportField.textList("ticker_sentiment", "ticker", "tickers")
+    ));
+
+    public static final ReportSchema INCOME_STATEMENT = new ReportSchema("annualReports", List.of(
+            ReportField.text("fiscalDateEnding", "fiscalDateEnding"),
+            ReportField.text("reportedCurrency", "reportedCurrency"),
+            ReportField.amount("grossProfit", "grossProfit"),
+            ReportField.amount("totalRevenue", "totalRevenue"),
+            ReportField.number("costOfRevenue", "costOfRevenue"),
+            ReportField.number("costofGoodsAndServicesSold", "costOfGoodsAndServicesSold"),
+            ReportField.amount("operatingIncome", "operatingIncome"),
+            ReportField.number("sellingGeneralAndAdministrative", "sellingGeneralAndAdministrative"),
+            ReportField.number("researchAndDevelopment", "researchAndDevelopment"),
+            ReportField.number("operatingExpenses", "operatingExpenses"),
+            ReportField.number("investmentIncomeNet", "investmentIncomeNet"),
+            ReportField.number("interestIncome", "interestIncome"),
+            ReportField.amount("interestExpense", "interestExpense"),
+            ReportField.number("nonInterestIncome", "nonInterestIncome"),
+            ReportField.number("otherNonOperatingIncome", "otherNonOperatingIncome"),
+            ReportField.number("depreciation", "depreciation"),
+            ReportField.number("depreciationAndAmortization", "depreciationAndAmortization"),
+            ReportField.number("incomeBeforeTax", "incomeBeforeTax"),
+            ReportField.number("incomeTaxExpense", "incomeTaxExpense"),
+            ReportField.number("interestAndDebtExpense", "interestAndDebtExpense"),
+            ReportField.number("netIncomeFromContinuingOperations", "netIncomeFromContinuingOperations"),
+            ReportField.number("comprehensiveIncomeNetOfTax", "comprehensiveIncomeNetOfTax"),
+            ReportField.amount("ebit", "ebit"),
+            ReportField.amount("ebitda", "ebitda"),
+            ReportField.amount("netIncome", "netIncome")
+    ));
+
+    public static final ReportSchema BALANCE_SHEET = new ReportSchema("annualReports", List.of(
+            ReportField.text("fiscalDateEnding", "fiscalDateEnding"),
+            ReportField.text("reportedCurrency", "reportedCurrency"),
+            ReportField.amount("totalAssets", "totalAssets"),
+            ReportField.amount("totalCurrentAssets", "totalCurrentAssets"),
+            ReportField.number("cashAndCashEquivalentsAtCarryingValue", "cashAndCashEquivalentsAtCarryingValue"),
+            ReportField.number("cashAndShortTermInvestments", "cashAndShortTermInvestments"),
+            ReportField.number("inventory", "inventory"),
+            ReportField.number("currentNetReceivables", "currentNetReceivables"),
+            ReportField.number("totalNonCurrentAssets", "totalNonCurrentAssets"),
+            ReportField.number("propertyPlantEquipment", "propertyPlantEquipment"),
+            ReportField.number("accumulatedDepreciationAmortizationPPE", "accumulatedDepreciationAmortizationPPE"),
+            ReportField.number("intangibleAssets", "intangibleAssets"),
+            ReportField.number("intangibleAssetsExcludingGoodwill", "intangibleAssetsExcludingGoodwill"),
+            ReportField.number("goodwill", "goodwill"),
+            ReportField.number("investments", "investments"),
+            ReportField.number("longTermInvestments", "longTermInvestments"),
+            ReportField.number("shortTermInvestments", "shortTermInvestments"),
+            ReportField.number("otherCurrentAssets", "otherCurrentAssets"),
+            ReportField.number("otherNonCurrentAssets", "otherNonCurrentAssets"),
+            ReportField.number("totalLiabilities", "totalLiabilities"),
+            ReportField.amount("totalCurrentLiabilities", "totalCurrentLiabilities"),
+            ReportField.number("currentAccountsPayable", "currentAccountsPayable"),
+            ReportField.number("deferredRevenue", "deferredRevenue"),
+            ReportField.number("currentDebt", "currentDebt"),
+            ReportField.amount("shortTermDebt", "shortTermDebt"),
+            ReportField.number("totalNonCurrentLiabilities", "totalNonCurrentLiabilities"),
+            ReportField.number("capitalLeaseObligations", "capitalLeaseObligations"),
+            ReportField.amount("longTermDebt", "longTermDebt"),
+            ReportField.number("currentLongTermDebt", "currentLongTermDebt"),
+            ReportField.number("longTermDebtNoncurrent", "longTermDebtNoncurrent"),
+            ReportField.amount("shortLongTermDebtTotal", "shortLongTermDebtTotal"),
+            ReportField.number("otherCurrentLiabilities", "otherCurrentLiabilities"),
+            ReportField.number("otherNonCurrentLiabilities", "otherNonCurrentLiabilities"),
+            ReportField.amount("totalShareholderEquity", "totalShareholderEquity"),
+            ReportField.number("treasuryStock", "treasuryStock"),
+            ReportField.number("retainedEarnings", "retainedEarnings"),
+            ReportField.number("commonStock", "commonStock"),
+            ReportField.number("commonStockSharesOutstanding", "commonStockSharesOutstanding")
+    ));
+
+    public static final ReportSchema CASH_FLOW = new ReportSchema("annualReports", List.of(
+            ReportField.text("fiscalDateEnding", "fiscalDateEnding"),
+            ReportField.text("reportedCurrency", "reportedCurrency"),
+            ReportField.amount("operatingCashflow", "operatingCashflow"),
+            ReportField.number("paymentsForOperatingActivities", "paymentsForOperatingActivities"),
+            ReportField.number("proceedsFromOperatingActivities", "proceedsFromOperatingActivities"),
+            ReportField.number("changeInOperatingLiabilities", "changeInOperatingLiabilities"),
+            ReportField.number("changeInOperatingAssets", "changeInOperatingAssets"),
+            ReportField.number("depreciationDepletionAndAmortization", "depreciationDepletionAndAmortization"),
+            ReportField.amount("capitalExpenditures", "capitalExpenditures"),
+            ReportField.number("changeInReceivables", "changeInReceivables"),
+            ReportField.number("changeInInventory", "changeInInventory"),
+            ReportField.number("profitLoss", "profitLoss"),
+            ReportField.number("cashflowFromInvestment", "cashflowFromInvestment"),
+            ReportField.number("cashflowFromFinancing", "cashflowFromFinancing"),
+            ReportField.number("proceedsFromRepaymentsOfShortTermDebt", "proceedsFromRepaymentsOfShortTermDebt"),
+            ReportField.number("paymentsForRepurchaseOfCommonStock", "paymentsForRepurchaseOfCommonStock"),
+            ReportField.number("paymentsForRepurchaseOfEquity", "paymentsForRepurchaseOfEquity"),
+            ReportField.number("paymentsForRepurchaseOfPreferredStock", "paymentsForRepurchaseOfPreferredStock"),
+            ReportField.number("dividendPayout", "dividendPayout"),
+            ReportField.number("dividendPayoutCommonStock", "dividendPayoutCommonStock"),
+            ReportField.number("dividendPayoutPreferredStock", "dividendPayoutPreferredStock"),
+            ReportField.number("proceedsFromIssuanceOfCommonStock", "proceedsFromIssuanceOfCommonStock"),
+            ReportField.number("proceedsFromIssuanceOfLongTermDebtAndCapitalSecuritiesNet", "proceedsFromIssuanceOfLongTermDebtAndCapitalSecuritiesNet"),
+            ReportField.number("proceedsFromIssuanceOfPreferredStock", "proceedsFromIssuanceOfPreferredStock"),
+            ReportField.number("proceedsFromRepurchaseOfEquity", "proceedsFromRepurchaseOfEquity"),
+            ReportField.number("proceedsFromSaleOfTreasuryStock", "proceedsFromSaleOfTreasuryStock"),
+            ReportField.number("changeInCashAndCashEquivalents", "changeInCashAndCashEquivalents"),
+            ReportField.number("changeInExchangeRate", "changeInExchangeRate"),
+            ReportField.number("netIncome", "netIncome")
+    ));
+
+    public static final ReportSchema QUARTERLY_INCOME_STATEMENT = INCOME_STATEMENT.withArrayField("quarterlyReports");
+
+    public static final ReportSchema QUARTERLY_BALANCE_SHEET = BALANCE_SHEET.withArrayField("quarterlyReports");
+
+    public static final ReportSchema QUARTERLY_CASH_FLOW = CASH_FLOW.withArrayField("quarterlyReports");
+
+    /**
+     * The schema used to decode responses of {@code function}.
+     */
+    public static ReportSchema of(AlphaVantageFunction function) {
+        return switch (function) {
+            case GLOBAL_QUOTE -> GLOBAL_QUOTE;
+            case REALTIME_BULK_QUOTES -> BULK_QUOTES;
+            case TIME_SERIES_DAILY -> TIME_SERIES_DAILY;
+            case NEWS_SENTIMENT -> NEWS_FEED;
+            case OVERVIEW -> OVERVIEW;
+            case INSIDER_TRANSACTIONS -> INSIDER_TRANSACTIONS;
+            case INCOME_STATEMENT -> INCOME_STATEMENT;
+            case BALANCE_SHEET -> BALANCE_SHEET;
+            case CASH_FLOW -> CASH_FLOW;
+            case EARNINGS_ESTIMATES -> EARNINGS_ESTIMATES;
+        };
+    }
+
+    /**
+     * The schema of the statement reports returned by {@code function}, or {@code null} if it
+     * does not return statements.
+     */
+    public static ReportSchema statementsOf(AlphaVantageFunction function) {
+        return switch (function) {
+            case INCOME_STATEMENT -> INCOME_STATEMENT;
+            case BALANCE_SHEET -> BALANCE_SHEET;
+            case CASH_FLOW -> CASH_FLOW;
+            default -> null;
+        };
+    }
+
+    /**
+     * Like {@link #statementsOf(AlphaVantageFunction)}, but reading the {@code quarterlyReports}
+     * of the same response when {@code quarterly} is set.
+     */
+    public static ReportSchema statementsOf(AlphaVantageFunction function, boolean quarterly) {
+        if (!quarterly) return statementsOf(function);
+        return switch (function) {
+            case INCOME_STATEMENT -> QUARTERLY_INCOME_STATEMENT;
+            case BALANCE_SHEET -> QUARTERLY_BALANCE_SHEET;
+            case CASH_FLOW -> QUARTERLY_CASH_FLOW;
+            default -> null;
+        };
+    }
+
+    private ReportSchemas() {
+    }
+}
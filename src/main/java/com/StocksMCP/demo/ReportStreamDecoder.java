@@ -0,0 +1,265 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Decodes the rows of an Alpha Vantage response token by token as the body arrives, without
+ * ever building the full JSON tree.
+ * <p>
+ * Only the fields named in the {@link ReportSchema} are read and handed to a {@link ReportRows}
+ * sink; everything else is skipped. Once {@code limit} rows are complete the decoder reports
+ * {@link #isDone()} so the caller can cancel the rest of the download.
+ */
+public class ReportStreamDecoder<R extends ReportRows> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Set<String> UPSTREAM_MESSAGE_FIELDS = Set.of("Information", "Note", "Error Message");
+
+    private static final int ROOT = 1;
+    private static final int CONTAINER = 2;
+
+    private final ReportSchema schema;
+    private final Integer limit;
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final int rowDepth;
+
+    private final R rows;
+    private boolean found;
+    private String upstreamMessage;
+    private boolean done;
+
+    private int depth;
+    private int skipDepth = -1;
+    private String rootField;
+    private String rowKey;
+    private boolean inRow;
+    private int pending = -1;
+    private int lastField = -1;
+    private boolean inList;
+    private boolean listValuePending;
+
+    public ReportStreamDecoder(ReportSchema schema, Integer limit, R rows) {
+        this.schema = schema;
+        this.limit = limit;
+        this.rows = rows;
+        this.rowDepth = switch (schema.shape()) {
+            case ARRAY, KEYED -> 3;
+            case OBJECT -> 2;
+            case ROOT -> 1;
+        };
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feeds the next chunk of the response body and releases it.
+     *
+     * @return {@code true} once no more input is needed
+     */
+    public boolean feed(DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+            while (!done && chunks.hasNext()) {
+                feed(chunks.next());
+            }
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+        return done;
+    }
+
+    /**
+     * Feeds the next chunk of the response body.
+     *
+     * @return {@code true} once no more input is needed
+     */
+    public boolean feed(ByteBuffer chunk) {
+        if (done) return true;
+        try {
+            feeder.feedInput(chunk);
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return done;
+    }
+
+    /**
+     * Signals the end of the response body.
+     */
+    public void finish() {
+        if (done) return;
+        try {
+            feeder.endOfInput();
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            done = true;
+        }
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * The sink holding the mapped rows, or {@code null} if the response had no report array, or
+     * for single-row schemas, none of the mapped fields.
+     */
+    public R rows() {
+        return found ? rows : null;
+    }
+
+    /**
+     * The {@code Information}, {@code Note} or {@code Error Message} Alpha Vantage sent instead of data, if any.
+     */
+    public String upstreamMessage() {
+        return upstreamMessage;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!done && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> onStart(token);
+                case END_OBJECT, END_ARRAY -> onEnd();
+                case FIELD_NAME -> onFieldName();
+                default -> onValue(token);
+            }
+        }
+    }
+
+    private void onStart(JsonToken token) {
+        depth++;
+        if (skipDepth > 0) return;
+
+        boolean object = token == JsonToken.START_OBJECT;
+        if (depth == ROOT) {
+            if (object && schema.shape() == ReportSchema.Shape.ROOT) startRow();
+            return;
+        }
+        // A ROOT schema has no container, and a body that is not an object has no root field.
+        if (depth == CONTAINER && schema.shape() != ReportSchema.Shape.ROOT && Objects.equals(rootField, schema.container())) {
+            if (!object && schema.shape() == ReportSchema.Shape.ARRAY) {
+                found = true;
+                if (limitReached()) done = true;
+                return;
+            }
+            if (object && schema.shape() == ReportSchema.Shape.OBJECT) {
+                startRow();
+                return;
+            }
+            if (object && schema.shape() == ReportSchema.Shape.KEYED) {
+                found = true;
+                if (limitReached()) done = true;
+                return;
+            }
+        }
+        if (depth == rowDepth && found && object && schema.multiRow()) {
+            startRow();
+            if (schema.shape() == ReportSchema.Shape.KEYED) {
+                rows.text(0, rowKey);
+                lastField = 0;
+            }
+            return;
+        }
+        if (depth == rowDepth + 1 && inRow && !object
+                && pending >= 0 && schema.field(pending).type() == ReportField.Type.TEXT_LIST) {
+            inList = true;
+            return;
+        }
+        if (depth == rowDepth + 2 && inList && object) return;
+
+        pending = -1;
+        skipDepth = depth;
+    }
+
+    private void startRow() {
+        rows.startRow();
+        inRow = true;
+        lastField = -1;
+    }
+
+    private void onEnd() {
+        int closing = depth--;
+        if (skipDepth > 0) {
+            if (closing == skipDepth) skipDepth = -1;
+            return;
+        }
+
+        if (closing == rowDepth + 1 && inList) {
+            inList = false;
+            pending = -1;
+        } else if (closing == rowDepth && inRow) {
+            rows.endRow();
+            inRow = false;
+            if (!schema.multiRow() || limitReached()) done = true;
+        } else if (closing == CONTAINER && found || closing == ROOT) {
+            done = true;
+        }
+    }
+
+    private void onFieldName() throws IOException {
+        if (skipDepth > 0) return;
+
+        String name = parser.currentName();
+        if (depth == ROOT) {
+            rootField = name;
+        }
+        if (depth == CONTAINER && found && schema.shape() == ReportSchema.Shape.KEYED) {
+            rowKey = name;
+        } else if (depth == rowDepth && inRow) {
+            pending = schema.indexOf(name, lastField);
+            if (pending >= 0) {
+                lastField = pending;
+                if (!schema.multiRow()) found = true;
+            }
+        } else if (depth == rowDepth + 2 && inList) {
+            listValuePending = name.equals(schema.field(pending).nestedField());
+        }
+    }
+
+    private void onValue(JsonToken token) throws IOException {
+        if (skipDepth > 0) return;
+
+        if (depth == ROOT && UPSTREAM_MESSAGE_FIELDS.contains(rootField)) {
+            upstreamMessage = parser.getText();
+        }
+        if (depth == rowDepth && pending >= 0) {
+            ReportField field = schema.field(pending);
+            if (token != JsonToken.VALUE_NULL) {
+                switch (field.type()) {
+                    case TEXT -> rows.text(pending, parser.getText());
+                    case DOUBLE -> rows.number(pending, parser.getValueAsDouble(field.defaultValue().asDouble()));
+                    case INTEGER -> rows.integer(pending, parser.getValueAsInt(field.defaultValue().asInt()));
+                    case TEXT_LIST -> {
+                    }
+                }
+            }
+            pending = -1;
+        } else if (depth == rowDepth + 2 && listValuePending) {
+            rows.listItem(pending, parser.getText());
+            listValuePending = false;
+        }
+    }
+
+    private boolean limitReached() {
+        return limit != null && rows.size() >= limit;
+    }
+}
@@ -0,0 +1,255 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of mapped Alpha Vantage results with a TTL per function. Values are the
+ * JSON responses, or the {@link StatementTable} for statement functions.
+ * <p>
+ * An entry past its TTL but still inside its stale window is returned immediately and
+ * refreshed once in the background, so callers only wait on upstream for true misses.
+ * Error results are never cached.
+ * <p>
+ * Functions kept by the {@link FundamentalsStore} are also written through to disk, and a miss
+ * for them is answered from disk when the stored copy is still inside its fresh or stale window.
+ * <p>
+ * Entries past their stale window stay until they are evicted, so {@link #lastKnown(CacheKey)}
+ * can still answer with them while Alpha Vantage is unavailable.
+ */
+@Component
+public class ResponseCache {
+
+    private final FundamentalsStore store;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Map<AlphaVantageFunction, Long> ttlNanos = new EnumMap<>(AlphaVantageFunction.class);
+    private final Map<AlphaVantageFunction, Long> maxStaleNanos = new EnumMap<>(AlphaVantageFunction.class);
+    private final Map<CacheKey, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public ResponseCache(
+            Environment environment,
+            FundamentalsStore store,
+            @Value("${alpha-vantage.cache.enabled:true}") boolean enabled,
+            @Value("${alpha-vantage.cache.max-entries:2000}") int maxEntries
+    ) {
+        this.store = store;
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        for (AlphaVantageFunction function : AlphaVantageFunction.values()) {
+            ttlNanos.put(function, duration(environment,
+                    "alpha-vantage.cache.ttl." + function.name(), function.defaultTtl()).toNanos());
+            maxStaleNanos.put(function, duration(environment,
+                    "alpha-vantage.cache.max-stale." + function.name(), function.defaultMaxStale()).toNanos());
+        }
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, Entry> eldest) {
+                if (size() > ResponseCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static Duration duration(Environment environment, String key, Duration defaultValue) {
+        String value = environment.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : DurationStyle.detectAndParse(value.trim());
+    }
+
+    public <T> Mono<T> get(CacheKey key, Supplier<Mono<T>> loader) {
+        if (!enabled) {
+            return Mono.defer(loader);
+        }
+
+        return Mono.defer(() -> {
+            Entry entry;
+            synchronized (entries) {
+                entry = entries.get(key);
+            }
+
+            Mono<T> cached = serve(key, entry, loader);
+            if (cached != null) {
+                return cached;
+            }
+            if (!store.persists(key.function())) {
+                misses.incrementAndGet();
+                return load(key, loader);
+            }
+
+            return Mono.fromCallable(() -> store.get(key))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(stored -> {
+                        Entry restored = restore(stored);
+                        Mono<T> fromDisk = serve(key, restored, loader);
+                        if (fromDisk == null) {
+                            return Mono.<T>empty();
+                        }
+                        diskHits.incrementAndGet();
+                        synchronized (entries) {
+                            entries.putIfAbsent(key, restored);
+                        }
+                        return fromDisk;
+                    })
+                    .switchIfEmpty(Mono.defer(() -> {
+                        misses.incrementAndGet();
+                        return load(key, loader);
+                    }));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> serve(CacheKey key, Entry entry, Supplier<Mono<T>> loader) {
+        if (entry == null) {
+            return null;
+        }
+
+        long age = System.nanoTime() - entry.loadedAt;
+        long ttl = ttlNanos.get(key.function());
+        if (age <= ttl) {
+            hits.incrementAndGet();
+            return Mono.just((T) entry.value);
+        }
+        if (age <= ttl + maxStaleNanos.get(key.function())) {
+            staleHits.incrementAndGet();
+            refreshInBackground(key, entry, loader);
+            return Mono.just((T) entry.value);
+        }
+        return null;
+    }
+
+    private static Entry restore(FundamentalsStore.Stored stored) {
+        long ageMillis = Math.max(0, System.currentTimeMillis() - stored.storedAtMillis());
+        return new Entry(stored.value(), System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ageMillis));
+    }
+
+    /**
+     * The latest good value of {@code key} however old, from memory or disk, for answering while
+     * upstream is unavailable. Empty if there never was one. Counted apart from hits.
+     */
+    public Mono<LastKnown> lastKnown(CacheKey key) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+
+        return Mono.defer(() -> {
+            Entry entry;
+            synchronized (entries) {
+                entry = entries.get(key);
+            }
+            Mono<Entry> known = entry != null ? Mono.just(entry)
+                    : !store.persists(key.function()) ? Mono.empty()
+                    : Mono.fromCallable(() -> store.get(key))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .map(ResponseCache::restore);
+            return known.map(found -> {
+                fallbacks.incrementAndGet();
+                return new LastKnown(found.value, Duration.ofNanos(System.nanoTime() - found.loadedAt));
+            });
+        });
+    }
+
+    private <T> Mono<T> load(CacheKey key, Supplier<Mono<T>> loader) {
+        return loader.get().doOnNext(value -> put(key, value));
+    }
+
+    private void refreshInBackground(CacheKey key, Entry entry, Supplier<? extends Mono<?>> loader) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        refreshes.incrementAndGet();
+        loader.get()
+                .doFinally(signal -> entry.refreshing.set(false))
+                .subscribe(value -> put(key, value), error -> { });
+    }
+
+    private void put(CacheKey key, Object value) {
+        if (value == null || value instanceof JsonNode json && json.has("error")) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry(value, System.nanoTime()));
+        }
+        if (store.persists(key.function())) {
+            Schedulers.boundedElastic().schedule(() -> store.put(key, value));
+        }
+    }
+
+    public void invalidate(CacheKey key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long staleHits() {
+        return staleHits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long diskHits() {
+        return diskHits.get();
+    }
+
+    public long refreshes() {
+        return refreshes.get();
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    public long fallbacks() {
+        return fallbacks.get();
+    }
+
+    public record LastKnown(Object value, Duration age) {
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long loadedAt;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(Object value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
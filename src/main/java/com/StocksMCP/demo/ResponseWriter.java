@@ -0,0 +1,250 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Writes JSON-RPC responses to a channel, one per line, from a single writer thread.
+ * <p>
+ * Responses are streamed by one long-lived {@link JsonGenerator} into a reusable direct buffer,
+ * never rendered to a {@code String}. The writer takes every response that is waiting whenever it
+ * wakes up and writes them with one flush, so responses completing together share a syscall. The
+ * optional echo to stderr runs on its own thread from a bounded queue and drops lines rather than
+ * slowing down stdout.
+ */
+public final class ResponseWriter implements AutoCloseable {
+
+    private static final JsonNode CLOSE = new TextNode("close");
+
+    private final ObjectMapper mapper = new ObjectMapper().disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    private final BufferOutputStream out;
+    private final JsonGenerator generator;
+    private final IntConsumer sizes;
+    private final BlockingQueue<JsonNode> queue = new LinkedBlockingQueue<>();
+
+    private final PrintStream echo;
+    private final BlockingQueue<Object> echoQueue = new ArrayBlockingQueue<>(1024);
+
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong echoDropped = new AtomicLong();
+
+    private Thread writer;
+    private Thread echoer;
+    private volatile boolean failed;
+
+    /**
+     * A writer that is driven directly through {@link #append(JsonNode)} and {@link #flush()};
+     * {@link #start} also runs the writer thread.
+     *
+     * @param echo  where to echo requests and responses, or {@code null} for no echo
+     * @param sizes told the size in bytes of every response written
+     */
+    public ResponseWriter(WritableByteChannel channel, int bufferSize, PrintStream echo, IntConsumer sizes) {
+        this.out = new BufferOutputStream(channel, Math.max(1024, bufferSize));
+        this.echo = echo;
+        this.sizes = sizes;
+        try {
+            this.generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static ResponseWriter start(WritableByteChannel channel, int bufferSize, PrintStream echo, IntConsumer sizes) {
+        ResponseWriter responseWriter = new ResponseWriter(channel, bufferSize, echo, sizes);
+        responseWriter.writer = Thread.ofPlatform().name("stdout-writer").daemon(true).start(responseWriter::writeLoop);
+        if (echo != null) {
+            responseWriter.echoer = Thread.ofPlatform().name("stderr-echo").daemon(true).start(responseWriter::echoLoop);
+        }
+        return responseWriter;
+    }
+
+    /**
+     * Queues a response for the writer thread.
+     */
+    public void write(JsonNode response) {
+        queue.add(response);
+        if (echo != null) echo(response);
+    }
+
+    public boolean echoes() {
+        return echo != null;
+    }
+
+    /**
+     * Queues a request line or a response for the stderr echo, if there is one. Drops it when the
+     * echo is behind.
+     */
+    public void echo(Object message) {
+        if (echo != null && !echoQueue.offer(message)) {
+            echoDropped.incrementAndGet();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                JsonNode response = queue.take();
+                boolean closing = response == CLOSE;
+                if (!closing) append(response);
+                while (!closing && (response = queue.poll()) != null) {
+                    if (response == CLOSE) {
+                        closing = true;
+                    } else {
+                        append(response);
+                    }
+                }
+                flush();
+                if (closing) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Serializes one response and its line break into the buffer. Only the writer thread, or a
+     * caller driving an unstarted writer, may call this.
+     */
+    void append(JsonNode response) {
+        if (failed) return;
+        try {
+            long before = out.count() + generator.getOutputBuffered();
+            mapper.writeTree(generator, response);
+            generator.writeRaw('\n');
+            responses.incrementAndGet();
+            if (sizes != null) sizes.accept((int) (out.count() + generator.getOutputBuffered() - before));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Writes everything appended so far to the channel.
+     */
+    void flush() {
+        if (failed) return;
+        try {
+            generator.flush();
+            if (out.drain()) flushes.incrementAndGet();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        failed = true;
+        System.err.println("Failed to write response: " + e.getMessage());
+    }
+
+    private void echoLoop() {
+        try {
+            while (true) {
+                Object message = echoQueue.take();
+                if (message == CLOSE) return;
+                echo.println(message instanceof JsonNode node ? "Responded: " + node : message);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long responses() {
+        return responses.get();
+    }
+
+    public long flushes() {
+        return flushes.get();
+    }
+
+    public long echoDropped() {
+        return echoDropped.get();
+    }
+
+    /**
+     * Writes every queued response and stops the writer threads.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        if (writer == null) {
+            flush();
+            return;
+        }
+        queue.add(CLOSE);
+        writer.join();
+        if (echoer != null) {
+            echoQueue.put(CLOSE);
+            echoer.join();
+        }
+    }
+
+    /**
+     * Collects bytes in a direct buffer and hands full buffers to the channel.
+     */
+    private static final class BufferOutputStream extends OutputStream {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer;
+        private long count;
+
+        BufferOutputStream(WritableByteChannel channel, int size) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(size);
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) drain();
+            buffer.put((byte) b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            count += length;
+            while (length > 0) {
+                if (!buffer.hasRemaining()) drain();
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        /**
+         * Writes out the buffered bytes, returning whether there were any.
+         */
+        boolean drain() throws IOException {
+            if (buffer.position() == 0) return false;
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+            return true;
+        }
+    }
+}
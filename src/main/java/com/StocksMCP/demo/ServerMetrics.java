@@ -0,0 +1,399 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.SignalType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters, gauges and latency histograms for the request path, from the tool call down to each
+ * Alpha Vantage function, together with the statistics the cache, the single-flight table, the
+ * quota scheduler and the fundamentals store already keep.
+ * <p>
+ * Upstream calls are split into the time spent waiting for quota, the time on the network and the
+ * time spent mapping the response, so a slow tail can be attributed to one of them. Everything is
+ * cumulative since startup. {@link #snapshot()} renders it all as JSON; it backs the
+ * {@code getServerStats} tool and, when {@code mcp.stats.dump-file} is set, is appended to that
+ * file as one line every {@code mcp.stats.dump-interval}.
+ */
+@Component
+public class ServerMetrics {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ResponseCache cache;
+    private final SingleFlight singleFlight;
+    private final UpstreamScheduler scheduler;
+    private final FundamentalsStore store;
+    private final long startedAt = System.nanoTime();
+
+    private final ConcurrentMap<String, ToolStats> tools = new ConcurrentHashMap<>();
+    private final Map<AlphaVantageFunction, FunctionStats> functions = new EnumMap<>(AlphaVantageFunction.class);
+    private final Map<String, IntSupplier> gauges = new ConcurrentHashMap<>();
+    private final Histogram dispatchWait = new Histogram();
+    private final Histogram responseBytes = new Histogram();
+    private final AtomicLong unknownMethods = new AtomicLong();
+    private final AtomicLong invalidRequests = new AtomicLong();
+
+    private final Path dumpFile;
+    private final ScheduledExecutorService dumper;
+
+    public ServerMetrics(
+            ResponseCache cache,
+            SingleFlight singleFlight,
+            UpstreamScheduler scheduler,
+            FundamentalsStore store,
+            @Value("${mcp.stats.dump-file:}") String dumpFile,
+            @Value("${mcp.stats.dump-interval:60s}") Duration dumpInterval
+    ) {
+        this.cache = cache;
+        this.singleFlight = singleFlight;
+        this.scheduler = scheduler;
+        this.store = store;
+        for (AlphaVantageFunction function : AlphaVantageFunction.values()) {
+            functions.put(function, new FunctionStats());
+        }
+
+        if (dumpFile == null || dumpFile.isBlank()) {
+            this.dumpFile = null;
+            this.dumper = null;
+        } else {
+            this.dumpFile = Path.of(dumpFile.trim());
+            this.dumper = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                    .name("server-stats-dump")
+                    .daemon(true)
+                    .factory());
+            long interval = Math.max(1, dumpInterval.toMillis());
+            dumper.scheduleAtFixedRate(this::dump, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Starts timing one call of {@code tool}. The caller reports its outcome on the returned
+     * {@link ToolCall}; a result carrying an {@code error} field counts as an error response.
+     */
+    public ToolCall toolCall(String tool) {
+        ToolStats stats = tools.get(tool);
+        if (stats == null) {
+            stats = tools.computeIfAbsent(tool, name -> new ToolStats());
+        }
+        stats.calls.incrementAndGet();
+        stats.inFlight.incrementAndGet();
+        return new ToolCall(stats, System.nanoTime());
+    }
+
+    /**
+     * Starts tracking one upstream call of {@code function} whose quota was requested at
+     * {@code requestedAt} and has just been granted.
+     */
+    public UpstreamCall upstreamCall(AlphaVantageFunction function, long requestedAt) {
+        FunctionStats stats = functions.get(function);
+        long now = System.nanoTime();
+        stats.queue.record(now - requestedAt);
+        stats.calls.incrementAndGet();
+        stats.inFlight.incrementAndGet();
+        return new UpstreamCall(stats, now);
+    }
+
+    /**
+     * Counts an upstream call of {@code function} that failed before it was sent, while waiting for quota.
+     */
+    public void upstreamRejected(AlphaVantageFunction function, Throwable error) {
+        functions.get(function).error(cause(error));
+    }
+
+    /**
+     * Counts a second attempt of an upstream call of {@code function} sent because the first was slow.
+     */
+    public void upstreamHedged(AlphaVantageFunction function) {
+        functions.get(function).hedged.incrementAndGet();
+    }
+
+    /**
+     * The network times of completed upstream calls of {@code function}.
+     */
+    public Histogram upstreamNetwork(AlphaVantageFunction function) {
+        return functions.get(function).network;
+    }
+
+    public void dispatchWait(long nanos) {
+        dispatchWait.record(nanos);
+    }
+
+    public void responseWritten(int bytes) {
+        responseBytes.record(bytes);
+    }
+
+    public void unknownMethod() {
+        unknownMethods.incrementAndGet();
+    }
+
+    public void invalidRequest() {
+        invalidRequests.incrementAndGet();
+    }
+
+    /**
+     * Registers a value read on every snapshot, such as the depth of a queue owned elsewhere.
+     */
+    public void gauge(String name, IntSupplier value) {
+        gauges.put(name, value);
+    }
+
+    static String cause(Throwable error) {
+        if (error instanceof TimeoutException) return "timeout";
+        if (error instanceof UpstreamQuotaException) return "quota";
+        if (error instanceof UpstreamUnavailableException) return "circuit_open";
+        if (error instanceof WebClientResponseException response) return "http_" + response.getStatusCode().value();
+        if (error instanceof WebClientRequestException) return "connection";
+        if (error instanceof IOException || error instanceof UncheckedIOException) return "decode";
+        return error.getClass().getSimpleName();
+    }
+
+    @Tool(name = "getServerStats", description = "Get latency, error, cache and quota statistics of this server")
+    public JsonNode getServerStats() {
+        return snapshot();
+    }
+
+    public ObjectNode snapshot() {
+        ObjectNode stats = mapper.createObjectNode();
+        stats.put("time", Instant.now().toString());
+        stats.put("uptimeSeconds", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt));
+
+        ObjectNode dispatch = stats.putObject("dispatch");
+        new TreeMap<>(gauges).forEach((name, value) -> dispatch.put(name, value.getAsInt()));
+        dispatch.put("unknownMethods", unknownMethods.get());
+        dispatch.put("invalidRequests", invalidRequests.get());
+        dispatch.set("queueWaitMs", millis(dispatchWait));
+        dispatch.set("responseBytes", units(responseBytes));
+
+        ObjectNode toolStats = stats.putObject("tools");
+        new TreeMap<>(tools).forEach((name, tool) -> {
+            ObjectNode node = toolStats.putObject(name);
+            node.put("calls", tool.calls.get());
+            node.put("inFlight", tool.inFlight.get());
+            node.set("errors", counts(tool.errors));
+            node.set("latencyMs", millis(tool.latency));
+        });
+
+        ObjectNode upstream = stats.putObject("upstream");
+        functions.forEach((function, call) -> {
+            if (call.calls.get() == 0 && call.errors.isEmpty()) return;
+            ObjectNode node = upstream.putObject(function.name());
+            node.put("calls", call.calls.get());
+            node.put("inFlight", call.inFlight.get());
+            node.put("hedged", call.hedged.get());
+            node.set("errors", counts(call.errors));
+            node.set("quotaWaitMs", millis(call.queue));
+            node.set("networkMs", millis(call.network));
+            node.set("mappingMs", millis(call.mapping));
+            node.set("payloadBytes", units(call.payload));
+        });
+
+        long hits = cache.hits() + cache.staleHits() + cache.diskHits();
+        ObjectNode cacheStats = stats.putObject("cache");
+        cacheStats.put("entries", cache.size());
+        cacheStats.put("hits", cache.hits());
+        cacheStats.put("staleHits", cache.staleHits());
+        cacheStats.put("diskHits", cache.diskHits());
+        cacheStats.put("misses", cache.misses());
+        cacheStats.put("refreshes", cache.refreshes());
+        cacheStats.put("evictions", cache.evictions());
+        cacheStats.put("fallbacks", cache.fallbacks());
+        cacheStats.put("hitRatio", ratio(hits, hits + cache.misses()));
+
+        ObjectNode coalescing = stats.putObject("coalescing");
+        coalescing.put("inFlight", singleFlight.inFlight());
+        coalescing.put("executions", singleFlight.executions());
+        coalescing.put("coalesced", singleFlight.coalesced());
+        coalescing.put("hitRatio", ratio(singleFlight.coalesced(), singleFlight.executions() + singleFlight.coalesced()));
+
+        ObjectNode quota = stats.putObject("scheduler");
+        quota.put("apiKeys", scheduler.apiKeyCount());
+        quota.put("queueDepth", scheduler.queueDepth());
+        quota.put("rejected", scheduler.rejected());
+        for (UpstreamPriority priority : UpstreamPriority.values()) {
+            long granted = scheduler.granted(priority);
+            ObjectNode node = quota.putObject(priority.name());
+            node.put("granted", granted);
+            node.put("meanWaitMs", granted == 0 ? 0.0 : scheduler.totalWaitNanos(priority) / NANOS_PER_MILLI / granted);
+            node.put("maxWaitMs", scheduler.maxWaitNanos(priority) / NANOS_PER_MILLI);
+        }
+
+        ObjectNode disk = stats.putObject("store");
+        disk.put("reads", store.reads());
+        disk.put("writes", store.writes());
+        return stats;
+    }
+
+    private ObjectNode counts(Map<String, AtomicLong> counters) {
+        ObjectNode node = mapper.createObjectNode();
+        new TreeMap<>(counters).forEach((name, count) -> node.put(name, count.get()));
+        return node;
+    }
+
+    private ObjectNode millis(Histogram histogram) {
+        return summary(histogram, NANOS_PER_MILLI);
+    }
+
+    private ObjectNode units(Histogram histogram) {
+        return summary(histogram, 1.0);
+    }
+
+    private ObjectNode summary(Histogram histogram, double scale) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("count", histogram.count());
+        node.put("mean", histogram.mean() / scale);
+        node.put("p50", histogram.percentile(0.50) / scale);
+        node.put("p90", histogram.percentile(0.90) / scale);
+        node.put("p99", histogram.percentile(0.99) / scale);
+        node.put("p999", histogram.percentile(0.999) / scale);
+        node.put("max", histogram.max() / scale);
+        return node;
+    }
+
+    private static double ratio(long part, long total) {
+        return total == 0 ? 0.0 : (double) part / total;
+    }
+
+    private void dump() {
+        try {
+            Files.createDirectories(dumpFile.toAbsolutePath().getParent());
+            Files.writeString(dumpFile, mapper.writeValueAsString(snapshot()) + System.lineSeparator(),
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to write server stats to " + dumpFile + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dump();
+        }
+    }
+
+    /**
+     * One tool call in progress.
+     */
+    public static final class ToolCall {
+
+        private final ToolStats stats;
+        private final long startedAt;
+
+        private ToolCall(ToolStats stats, long startedAt) {
+            this.stats = stats;
+            this.startedAt = startedAt;
+        }
+
+        public void finish(JsonNode result) {
+            if (result.has("error")) stats.error("error_response");
+            done();
+        }
+
+        public void failed(Throwable error) {
+            stats.error(cause(error));
+            done();
+        }
+
+        private void done() {
+            stats.inFlight.decrementAndGet();
+            stats.latency.record(System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * One upstream call in progress. The decoder reports how long it spent on each chunk and the
+     * rest of the call's time is attributed to the network.
+     */
+    public static final class UpstreamCall {
+
+        private final FunctionStats stats;
+        private final long grantedAt;
+        private long mappingNanos;
+        private long bytes;
+
+        private UpstreamCall(FunctionStats stats, long grantedAt) {
+            this.stats = stats;
+            this.grantedAt = grantedAt;
+        }
+
+        public void mapped(int chunkBytes, long nanos) {
+            bytes += chunkBytes;
+            mappingNanos += nanos;
+        }
+
+        /**
+         * Counts a response that arrived but held no data, such as a rate-limit notice.
+         */
+        public void empty(String upstreamMessage) {
+            stats.error(upstreamMessage == null ? "no_data"
+                    : upstreamMessage.toLowerCase().contains("rate limit") ? "rate_limit" : "upstream_message");
+        }
+
+        public void failed(Throwable error) {
+            stats.error(cause(error));
+        }
+
+        public void finish(SignalType signal) {
+            stats.inFlight.decrementAndGet();
+            if (signal == SignalType.CANCEL) stats.error("cancelled");
+            if (signal != SignalType.ON_COMPLETE) return;
+
+            long total = System.nanoTime() - grantedAt;
+            stats.mapping.record(mappingNanos);
+            stats.network.record(total - mappingNanos);
+            stats.payload.record(bytes);
+        }
+    }
+
+    private static class CallStats {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final ConcurrentMap<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+        void error(String cause) {
+            errors.computeIfAbsent(cause, key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private static final class ToolStats extends CallStats {
+        final Histogram latency = new Histogram();
+    }
+
+    private static final class FunctionStats extends CallStats {
+        final AtomicLong hedged = new AtomicLong();
+        final Histogram queue = new Histogram();
+        final Histogram network = new Histogram();
+        final Histogram mapping = new Histogram();
+        final Histogram payload = new Histogram();
+    }
+}
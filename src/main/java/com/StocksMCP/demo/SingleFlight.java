@@ -0,0 +1,68 @@
+package com.StocksMCP.demo;
+
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Table of upstream calls currently in flight. A caller asking for a key that is already
+ * being fetched waits for that call instead of issuing its own, and gets the same result.
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentMap<CacheKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(CacheKey key, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            CompletableFuture<Object> mine = new CompletableFuture<>();
+            CompletableFuture<Object> pending = inFlight.putIfAbsent(key, mine);
+
+            if (pending != null) {
+                coalesced.incrementAndGet();
+                return Mono.fromFuture((CompletableFuture<T>) pending, true);
+            }
+
+            executions.incrementAndGet();
+            // Subscribed independently of the leading caller, so its cancellation never fails the followers.
+            // The key is released before the result is published, so a caller that has seen the result
+            // and asks again starts a new call rather than joining the finished one. Deferred so that a
+            // call throwing before it returns its Mono fails the waiters and releases the key too.
+            Mono.defer(call).subscribe(
+                    result -> {
+                        inFlight.remove(key, mine);
+                        mine.complete(result);
+                    },
+                    error -> {
+                        inFlight.remove(key, mine);
+                        mine.completeExceptionally(error);
+                    },
+                    () -> {
+                        inFlight.remove(key, mine);
+                        mine.complete(null);
+                    });
+            return Mono.fromFuture((CompletableFuture<T>) mine, true);
+        });
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    public long executions() {
+        return executions.get();
+    }
+
+    public long coalesced() {
+        return coalesced.get();
+    }
+}
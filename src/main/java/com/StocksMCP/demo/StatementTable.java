@@ -0,0 +1,237 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Financial statement reports held as primitive columns rather than JSON trees.
+ * <p>
+ * The field layout comes from the shared {@link ReportSchema}; each numeric field is one run of
+ * {@code rowCount} doubles in a single flat array, and text fields are stored the same way in a
+ * {@code String} array. JSON is only produced by {@link #toJson(ObjectMapper)} when a response is
+ * written.
+ */
+public final class StatementTable {
+
+    private final ReportSchema schema;
+    private final int rowCount;
+    private final String[] texts;
+    private final double[] numbers;
+    private final Duration staleAge;
+
+    private StatementTable(ReportSchema schema, int rowCount, String[] texts, double[] numbers) {
+        this(schema, rowCount, texts, numbers, null);
+    }
+
+    private StatementTable(ReportSchema schema, int rowCount, String[] texts, double[] numbers, Duration staleAge) {
+        this.schema = schema;
+        this.rowCount = rowCount;
+        this.texts = texts;
+        this.numbers = numbers;
+        this.staleAge = staleAge;
+    }
+
+    /**
+     * The same reports, marked as served from an old copy of the given age while Alpha Vantage
+     * was unavailable. The columns are shared, not copied.
+     */
+    public StatementTable stale(Duration age) {
+        return new StatementTable(schema, rowCount, texts, numbers, age);
+    }
+
+    /**
+     * The age of the copy these reports were served from, or {@code null} if they are current.
+     */
+    public Duration staleAge() {
+        return staleAge;
+    }
+
+    public ReportSchema schema() {
+        return schema;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * The value of numeric output field {@code target} in {@code row}.
+     */
+    public double number(String target, int row) {
+        return numbers[offset(target, true) + row];
+    }
+
+    /**
+     * The value of text output field {@code target} in {@code row}.
+     */
+    public String text(String target, int row) {
+        return texts[offset(target, false) + row];
+    }
+
+    /**
+     * A copy of the numeric column {@code target}, one value per row.
+     */
+    public double[] column(String target) {
+        int offset = offset(target, true);
+        return Arrays.copyOfRange(numbers, offset, offset + rowCount);
+    }
+
+    private int offset(String target, boolean numeric) {
+        int index = schema.indexOfTarget(target);
+        if (index < 0 || schema.field(index).numeric() != numeric) {
+            throw new IllegalArgumentException("No " + (numeric ? "numeric" : "text") + " field " + target);
+        }
+        return schema.column(index) * rowCount;
+    }
+
+    public ArrayNode toJson(ObjectMapper mapper) {
+        return toJson(mapper, schema.indexesOfTargets(null), 0, rowCount);
+    }
+
+    /**
+     * Renders rows {@code from} (inclusive) to {@code to} (exclusive) with only the fields at the
+     * given schema indexes; the other columns are never read.
+     */
+    public ArrayNode toJson(ObjectMapper mapper, int[] fields, int from, int to) {
+        ArrayNode rows = mapper.createArrayNode();
+        for (int row = Math.max(0, from); row < Math.min(to, rowCount); row++) {
+            ObjectNode node = rows.addObject();
+            for (int i : fields) {
+                ReportField field = schema.field(i);
+                int at = schema.column(i) * rowCount + row;
+                switch (field.type()) {
+                    case DOUBLE -> {
+                        // A missing amount (see ReportField#amount) is written as null, not as NaN.
+                        if (Double.isNaN(numbers[at])) {
+                            node.putNull(field.target());
+                        } else {
+                            node.put(field.target(), numbers[at]);
+                        }
+                    }
+                    case INTEGER -> node.put(field.target(), (int) numbers[at]);
+                    default -> node.put(field.target(), texts[at]);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Rebuilds a table from rows written by {@link #toJson(ObjectMapper)}.
+     */
+    public static StatementTable fromJson(ReportSchema schema, JsonNode rows) {
+        Builder builder = new Builder(schema);
+        for (JsonNode node : rows) {
+            builder.startRow();
+            for (int i = 0; i < schema.fields().size(); i++) {
+                ReportField field = schema.field(i);
+                JsonNode value = node.get(field.target());
+                if (value == null || value.isNull()) continue;
+                if (field.numeric()) {
+                    builder.number(i, value.asDouble(0.0));
+                } else {
+                    builder.text(i, value.asText(""));
+                }
+            }
+            builder.endRow();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collects decoded rows row by row and lays them out column by column on {@link #build()}.
+     * List fields are not supported and stay empty.
+     */
+    public static final class Builder implements ReportRows {
+
+        private final ReportSchema schema;
+        private final int textWidth;
+        private final int numberWidth;
+        private final String[] textDefaults;
+        private final double[] numberDefaults;
+        private String[] texts;
+        private double[] numbers;
+        private int rows;
+
+        public Builder(ReportSchema schema) {
+            this.schema = schema;
+            this.textWidth = schema.textColumns();
+            this.numberWidth = schema.numberColumns();
+            this.textDefaults = new String[textWidth];
+            this.numberDefaults = new double[numberWidth];
+            for (int i = 0; i < schema.fields().size(); i++) {
+                ReportField field = schema.field(i);
+                if (field.numeric()) {
+                    numberDefaults[schema.column(i)] = field.defaultValue().asDouble();
+                } else {
+                    textDefaults[schema.column(i)] = field.defaultValue().asText();
+                }
+            }
+            this.texts = new String[textWidth * 8];
+            this.numbers = new double[numberWidth * 8];
+        }
+
+        @Override
+        public void startRow() {
+            if ((rows + 1) * textWidth > texts.length || (rows + 1) * numberWidth > numbers.length) {
+                texts = Arrays.copyOf(texts, texts.length * 2);
+                numbers = Arrays.copyOf(numbers, numbers.length * 2);
+            }
+            System.arraycopy(textDefaults, 0, texts, rows * textWidth, textWidth);
+            System.arraycopy(numberDefaults, 0, numbers, rows * numberWidth, numberWidth);
+        }
+
+        @Override
+        public void text(int field, String value) {
+            int column = schema.column(field);
+            // Repeated values such as the reporting currency share one instance across rows.
+            if (rows > 0 && value.equals(texts[(rows - 1) * textWidth + column])) {
+                value = texts[(rows - 1) * textWidth + column];
+            }
+            texts[rows * textWidth + column] = value;
+        }
+
+        @Override
+        public void number(int field, double value) {
+            numbers[rows * numberWidth + schema.column(field)] = value;
+        }
+
+        @Override
+        public void integer(int field, int value) {
+            number(field, value);
+        }
+
+        @Override
+        public void listItem(int field, String value) {
+        }
+
+        @Override
+        public void endRow() {
+            rows++;
+        }
+
+        @Override
+        public int size() {
+            return rows;
+        }
+
+        public StatementTable build() {
+            String[] columnTexts = new String[textWidth * rows];
+            double[] columnNumbers = new double[numberWidth * rows];
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < textWidth; column++) {
+                    columnTexts[column * rows + row] = texts[row * textWidth + column];
+                }
+                for (int column = 0; column < numberWidth; column++) {
+                    columnNumbers[column * rows + row] = numbers[row * numberWidth + column];
+                }
+            }
+            return new StatementTable(schema, rows, columnTexts, columnNumbers);
+        }
+    }
+}
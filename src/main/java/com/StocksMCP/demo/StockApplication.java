@@ -1,10 +1,12 @@
 package com.StocksMCP.demo;
 
+import io.modelcontextprotocol.server.McpSyncServer;
 import org.springframework.ai.tool.ToolCallbackProvider;
-import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+import org.springframework.boot.LazyInitializationExcludeFilter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
@@ -18,7 +20,18 @@ public class StockApplication {
 	}
 
 	@Bean
-	public ToolCallbackProvider stockTools(StockService stockService) {
-		return  MethodToolCallbackProvider.builder().toolObjects(stockService).build();
+	public ToolCallbackProvider stockTools(ToolRegistry tools) {
+		return ToolCallbackProvider.from(tools.callbacks());
+	}
+
+	/**
+	 * Nothing depends on the MCP server bean, but creating it starts its transport, so it must
+	 * still be created at startup under {@code spring.main.lazy-initialization}. Only the http
+	 * profile runs that server; stdio is served by {@link McpServerRunner}.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "mcp.transport", havingValue = "http")
+	static LazyInitializationExcludeFilter eagerMcpServer() {
+		return LazyInitializationExcludeFilter.forBeanTypes(McpSyncServer.class);
 	}
 }
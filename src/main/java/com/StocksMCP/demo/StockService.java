@@ -4,472 +4,837 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.ExchangeStrategies;
-import org.springframework.web.reactive.function.client.WebClient;
-
-
-import java.time.Instant;
-
-
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+
+/**
+ * Alpha Vantage backed stock tools.
+ * <p>
+ * Every tool has a non-blocking {@code ...Async} variant returning a {@link Mono}; nothing on that
+ * path parks a thread, from quota scheduling through the HTTP call to the response mapping. The
+ * {@link Tool} methods declare the tools to the {@link ToolRegistry}, which calls the
+ * {@code ...Async} variant; their own bodies are thin blocking adapters.
+ */
 @Service
 public class StockService {
 
+    /**
+     * Calendar days safely covered by the 100 bars of a compact daily time series.
+     */
+    private static final int COMPACT_HISTORY_DAYS = 140;
+
     private final ObjectMapper mapper = new ObjectMapper();
-    private final WebClient webClient;
-    private final String apiKey;
-    private final String baseUrl;
+    private final UpstreamTransport transport;
+    private final boolean bulkQuotes;
+    private final int bulkBatchSize;
+    private final int quoteFanOut;
+    private final long historyRefreshAfterMillis;
+    private final ResponseCache cache;
+    private final PriceHistoryStore history;
+    private final NewsIndex news;
+    private final SingleFlight singleFlight;
+    private final UpstreamScheduler scheduler;
+    private final CircuitBreakers breakers;
+    private final ServerMetrics metrics;
 
     public StockService(
-            @Value("${alpha-vantage.api-key}") String apiKey,
-            @Value("${alpha-vantage.base-url}") String baseUrl
+            UpstreamTransport transport,
+            @Value("${alpha-vantage.bulk-quotes.enabled:false}") boolean bulkQuotes,
+            @Value("${alpha-vantage.bulk-quotes.batch-size:100}") int bulkBatchSize,
+            @Value("${alpha-vantage.quote-fan-out:4}") int quoteFanOut,
+            @Value("${alpha-vantage.history.refresh-after:6h}") Duration historyRefreshAfter,
+            ResponseCache cache,
+            PriceHistoryStore history,
+            NewsIndex news,
+            SingleFlight singleFlight,
+            UpstreamScheduler scheduler,
+            CircuitBreakers breakers,
+            ServerMetrics metrics
     ) {
-        this.apiKey = apiKey;
-        this.baseUrl = baseUrl;
-        ExchangeStrategies strategies = ExchangeStrategies.builder()
-                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(16 * 1024 * 1024)) // 16MB limit
-                .build();
-
-        this.webClient = WebClient.builder()
-                .baseUrl(baseUrl)
-                .exchangeStrategies(strategies)
-                .build();
+        this.transport = transport;
+        this.bulkQuotes = bulkQuotes;
+        this.bulkBatchSize = Math.max(1, bulkBatchSize);
+        this.quoteFanOut = Math.max(1, quoteFanOut);
+        this.historyRefreshAfterMillis = historyRefreshAfter.toMillis();
+        this.cache = cache;
+        this.history = history;
+        this.news = news;
+        this.singleFlight = singleFlight;
+        this.scheduler = scheduler;
+        this.breakers = breakers;
+        this.metrics = metrics;
+        metrics.gauge("priceHistorySymbols", history::size);
+        metrics.gauge("newsTickers", news::size);
+        metrics.gauge("newsDuplicatesDropped", () -> (int) news.duplicates());
     }
 
     @Tool(name = "getStockPrice", description = "Get the current stock price for a given symbol")
     public JsonNode getStockPrice(String symbol) {
-        try {
-            // Call Alpha Vantage API to get stock price
-            JsonNode response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .queryParam("function", "GLOBAL_QUOTE")
-                            .queryParam("symbol", symbol)
-                            .queryParam("apikey", apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .block();
-
-            JsonNode quote = response.get("Global Quote");
-            if (quote == null || quote.isEmpty()) {
-                return errorResponse("No data found for symbol: " + symbol);
-            }
+        return getStockPriceAsync(symbol).block();
+    }
+
+    public Mono<JsonNode> getStockPriceAsync(String symbol) {
+        return cached(CacheKey.of(AlphaVantageFunction.GLOBAL_QUOTE, symbol), () -> fetchStockPrice(symbol), this::stale);
+    }
 
-            double price = quote.get("05. price").asDouble();
+    private Mono<JsonNode> fetchStockPrice(String symbol) {
+        // Call Alpha Vantage API to get stock price
+        return requestReports(AlphaVantageFunction.GLOBAL_QUOTE, "symbol", symbol, ReportSchemas.GLOBAL_QUOTE, null,
+                () -> new JsonReportRows(mapper, ReportSchemas.GLOBAL_QUOTE))
+                .map(quote -> {
+                    if (quote.rows() == null) {
+                        return errorResponse("No data found for symbol: " + symbol);
+                    }
+
+                    ObjectNode result = mapper.createObjectNode();
+                    result.put("symbol", symbol);
+                    result.setAll((ObjectNode) quote.rows().array().get(0));
+                    result.put("currency", "USD");
+                    // The time of the data, not of the fetch, so a cached or stale quote does not look current.
+                    result.set("time", result.get("latestTradingDay"));
+                    return (JsonNode) result;
+                })
+                .onErrorResume(e -> Mono.just(errorResponse("Error fetching stock price: " + e.getMessage())));
+    }
+
+    @Tool(name = "getStockPrices", description = "Get the current stock quotes for several symbols in one call")
+    public JsonNode getStockPrices(List<String> symbols) {
+        return getStockPricesAsync(symbols).block();
+    }
+
+    /**
+     * Quotes for every symbol, in the order given, with the symbols that failed listed apart. Uses
+     * the bulk quote endpoint when {@code alpha-vantage.bulk-quotes.enabled} is set, otherwise one
+     * {@link #getStockPriceAsync} per symbol with at most {@code alpha-vantage.quote-fan-out} in
+     * flight.
+     */
+    public Mono<JsonNode> getStockPricesAsync(List<String> symbols) {
+        List<String> requested = symbols == null ? List.of() : symbols.stream()
+                .filter(Objects::nonNull)
+                .map(symbol -> symbol.trim().toUpperCase(Locale.ROOT))
+                .filter(symbol -> !symbol.isEmpty())
+                .distinct()
+                .toList();
+        if (requested.isEmpty()) {
+            return Mono.just(errorResponse("No symbols given"));
+        }
+
+        Flux<JsonNode> quotes;
+        if (bulkQuotes) {
+            List<List<String>> batches = new ArrayList<>();
+            for (int i = 0; i < requested.size(); i += bulkBatchSize) {
+                batches.add(requested.subList(i, Math.min(requested.size(), i + bulkBatchSize)));
+            }
+            quotes = Flux.fromIterable(batches).flatMapSequential(this::getBulkQuotes, quoteFanOut);
+        } else {
+            quotes = Flux.fromIterable(requested).flatMapSequential(symbol -> getStockPriceAsync(symbol)
+                    .map(quote -> quote.has("error") ? symbolError(symbol, quote.get("error")) : quote), quoteFanOut);
+        }
 
+        return quotes.collectList().map(results -> {
             ObjectNode result = mapper.createObjectNode();
-            result.put("symbol", symbol);
-            result.put("price", price);
-            result.put("currency", "USD");
-            result.put("time", Instant.now().toString());
+            result.put("success", true);
+            ArrayNode found = mapper.createArrayNode();
+            ArrayNode errors = mapper.createArrayNode();
+            for (JsonNode quote : results) {
+                (quote.has("error") ? errors : found).add(quote);
+            }
+            result.put("count", found.size());
+            result.set("quotes", found);
+            result.set("errors", errors);
             return result;
-        } catch (Exception e) {
-            return errorResponse("Error fetching stock price: " + e.getMessage());
-        }
+        });
+    }
+
+    /**
+     * One entry per symbol of {@code batch}, from a single bulk quote call.
+     */
+    private Flux<JsonNode> getBulkQuotes(List<String> batch) {
+        return cached(CacheKey.of(AlphaVantageFunction.REALTIME_BULK_QUOTES, String.join(",", batch)), () -> fetchBulkQuotes(batch),
+                        this::staleBulkQuotes)
+                .flatMapIterable(response -> {
+                    Map<String, JsonNode> bySymbol = new HashMap<>();
+                    response.path("quotes").forEach(quote -> bySymbol.put(quote.get("symbol").asText().toUpperCase(Locale.ROOT), quote));
+
+                    List<JsonNode> entries = new ArrayList<>(batch.size());
+                    for (String symbol : batch) {
+                        JsonNode quote = bySymbol.get(symbol);
+                        if (response.has("error")) {
+                            entries.add(symbolError(symbol, response.get("error")));
+                        } else if (quote == null) {
+                            entries.add(symbolError(symbol, TextNode.valueOf("No data found for symbol: " + symbol)));
+                        } else {
+                            entries.add(quote);
+                        }
+                    }
+                    return entries;
+                });
+    }
+
+    private Mono<JsonNode> fetchBulkQuotes(List<String> batch) {
+        return requestReports(AlphaVantageFunction.REALTIME_BULK_QUOTES, "symbol", String.join(",", batch), ReportSchemas.BULK_QUOTES,
+                null, () -> new JsonReportRows(mapper, ReportSchemas.BULK_QUOTES))
+                .map(bulk -> {
+                    if (bulk.rows() == null) {
+                        String message = bulk.upstreamMessage();
+                        return errorResponse(message != null ? message : "No bulk quotes returned");
+                    }
+
+                    ArrayNode quotes = mapper.createArrayNode();
+                    for (JsonNode row : bulk.rows().array()) {
+                        ObjectNode quote = (ObjectNode) row;
+                        quote.put("currency", "USD");
+                        quote.set("time", quote.get("timestamp"));
+                        quotes.add(quote);
+                    }
+                    ObjectNode result = mapper.createObjectNode();
+                    result.set("quotes", quotes);
+                    return (JsonNode) result;
+                })
+                .onErrorResume(e -> Mono.just(errorResponse("Error fetching bulk quotes: " + e.getMessage())));
+    }
+
+    private ObjectNode symbolError(String symbol, JsonNode error) {
+        ObjectNode entry = mapper.createObjectNode();
+        entry.put("symbol", symbol);
+        entry.set("error", error);
+        return entry;
     }
 
     @Tool(name = "getStockNews", description = "Get the latest news articles for a given stock symbol")
-    public JsonNode getStockNews(String symbols, Integer limit) {
-        try {
-            JsonNode response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .queryParam("function", "NEWS_SENTIMENT")
-                            .queryParam("tickers", symbols)
-                            .queryParam("apikey", apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .block();
-
-            if (response == null || !response.has("feed")) {
-                return errorResponse("No news found for symbol: " + symbols);
-            }
+    public JsonNode getStockNews(String symbol, Integer limit,
+            @ToolParam(description = "Number of newest articles to skip", required = false) Integer offset,
+            @ToolParam(description = "Article fields to return, all if omitted", required = false) List<String> fields,
+            @ToolParam(description = "The cursor of an earlier response, to get only the articles published since",
+                    required = false) String cursor) {
+        return getStockNewsAsync(symbol, limit, offset, fields, cursor).block();
+    }
 
-            ArrayNode articles = mapper.createArrayNode();
-            int count = 0;
-
-            for (JsonNode article : response.get("feed")) {
-                if (limit != null && count >= limit) break;
-
-                ObjectNode simplified = mapper.createObjectNode();
-                simplified.put("title", article.path("title").asText(""));
-                simplified.put("url", article.path("url").asText(""));
-                simplified.put("summary", article.path("summary").asText(""));
-                simplified.put("time", article.path("time_published").asText(""));
-                simplified.put("sentiment", article.path("overall_sentiment_label").asText(""));
-                simplified.put("source", article.path("source").asText(""));
-
-                ArrayNode tickers = mapper.createArrayNode();
-                if (article.has("ticker_sentiment")) {
-                    for (JsonNode ticker : article.get("ticker_sentiment")) {
-                        tickers.add(ticker.get("ticker").asText());
+    public Mono<JsonNode> getStockNewsAsync(String symbol, Integer limit) {
+        return getStockNewsAsync(symbol, limit, null, null, null);
+    }
+
+    /**
+     * The articles from {@code offset} on, with only the {@code fields} asked for. The feed is
+     * fetched and cached once for {@code offset + limit} articles; pages and projections of it
+     * are cut from the cached copy. With a {@code cursor} the articles come from the
+     * {@link NewsIndex} instead, and only those the caller does not have yet are returned.
+     */
+    public Mono<JsonNode> getStockNewsAsync(String symbol, Integer limit, Integer offset, List<String> fields, String cursor) {
+        return Mono.defer(() -> {
+                    int[] selected = ReportSchemas.NEWS_FEED.indexesOfTargets(fields);
+                    if (cursor != null) {
+                        NewsIndex.checkCursor(cursor);
+                        return newsSince(symbol, cursor, limit, selected);
+                    }
+                    int skip = offset == null ? 0 : Math.max(0, offset);
+                    Integer count = limit == null ? null : skip + Math.max(0, limit);
+                    return cached(CacheKey.of(AlphaVantageFunction.NEWS_SENTIMENT, symbol, count), () -> fetchStockNews(symbol, count),
+                            this::stale)
+                            .map(response -> page(response, "articles", ReportSchemas.NEWS_FEED, selected, skip));
+                })
+                .onErrorResume(e -> Mono.just(errorResponse("Error fetching news: " + e.getMessage())));
+    }
+
+    private Mono<JsonNode> fetchStockNews(String symbols, Integer limit) {
+        return requestReports(AlphaVantageFunction.NEWS_SENTIMENT, "tickers", symbols, ReportSchemas.NEWS_FEED, limit,
+                () -> new JsonReportRows(mapper, ReportSchemas.NEWS_FEED), Map.of("sort", "LATEST"))
+                .map(feed -> {
+                    if (feed.rows() == null) {
+                        return errorResponse("No news found for symbol: " + symbols);
                     }
-                }
-                simplified.set("tickers", tickers);
+                    news.merge(symbols, feed.rows().array(), null, false, System.currentTimeMillis());
+
+                    ObjectNode result = mapper.createObjectNode();
+                    result.put("success", true);
+                    result.put("symbol", symbols);
+                    result.put("count", feed.rows().size());
+                    result.set("articles", feed.rows().array());
+                    result.put("cursor", NewsIndex.cursor(feed.rows().array(), null));
+
+                    return (JsonNode) result;
+                })
+                .onErrorResume(e -> Mono.just(errorResponse("Error fetching news: " + e.getMessage())));
+    }
 
-                articles.add(simplified);
-                count++;
+    /**
+     * Answers a poll at {@code cursor} from the {@link NewsIndex}, syncing the ticker first when it
+     * is due. A failed sync still answers from what the index holds, if anything.
+     */
+    private Mono<JsonNode> newsSince(String symbol, String cursor, Integer limit, int[] fields) {
+        Mono<Boolean> synced = Mono.just(true);
+        if (news.needsSync(symbol, cursor, System.currentTimeMillis())) {
+            String timeFrom = news.timeFrom(symbol, cursor);
+            synced = singleFlight.execute(CacheKey.of(AlphaVantageFunction.NEWS_SENTIMENT, symbol, "from", timeFrom),
+                            () -> syncNews(symbol, timeFrom))
+                    .onErrorResume(e -> news.holds(symbol) ? Mono.just(false) : Mono.error(e));
+        }
+        return synced.map(ignored -> {
+            NewsIndex.Page page = news.after(symbol, cursor, limit == null ? Integer.MAX_VALUE : limit);
+            ArrayNode articles = mapper.createArrayNode();
+            for (ObjectNode article : page.articles()) {
+                articles.add(project(article, ReportSchemas.NEWS_FEED, fields));
             }
-
             ObjectNode result = mapper.createObjectNode();
             result.put("success", true);
-            result.put("symbol", symbols);
+            result.put("symbol", symbol);
             result.put("count", articles.size());
             result.set("articles", articles);
+            result.put("cursor", NewsIndex.cursor(page.articles(), cursor));
+            result.put("hasMore", page.more());
+            return (JsonNode) result;
+        });
+    }
 
-            return result;
-        } catch (Exception e) {
-            return errorResponse("Error fetching news: " + e.getMessage());
-        }
+    /**
+     * Asks Alpha Vantage for the articles of {@code symbol} published from {@code timeFrom} on,
+     * or for the latest ones when it is {@code null}, and adds them to the {@link NewsIndex}.
+     */
+    private Mono<Boolean> syncNews(String symbol, String timeFrom) {
+        Map<String, String> params = timeFrom == null ? Map.of("sort", "LATEST")
+                : Map.of("sort", "LATEST", "time_from", timeFrom, "limit", String.valueOf(NewsIndex.SYNC_LIMIT));
+        return requestReports(AlphaVantageFunction.NEWS_SENTIMENT, "tickers", symbol, ReportSchemas.NEWS_FEED, null,
+                () -> new JsonReportRows(mapper, ReportSchemas.NEWS_FEED), params)
+                .map(feed -> {
+                    if (feed.rows() == null) {
+                        throw new UpstreamDataException(feed.upstreamMessage() != null ? feed.upstreamMessage() : symbol);
+                    }
+                    news.merge(symbol, feed.rows().array(), timeFrom, feed.rows().size() < NewsIndex.SYNC_LIMIT,
+                            System.currentTimeMillis());
+                    return true;
+                });
     }
 
-    @Tool(name = "getCompanyOverview", description = "Get the company overview for a given stock symbol")
-    public JsonNode getCompanyOverview(String symbol) {
-        try {
-            JsonNode response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .queryParam("function", "OVERVIEW")
-                            .queryParam("symbol", symbol)
-                            .queryParam("apikey", apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .block();
-
-            if (response == null || response.isEmpty()) {
-                return errorResponse("Error fetching company overview: " + symbol);
+    /**
+     * Cuts the rows of {@code rowsField} from {@code offset} on down to the fields at the given
+     * schema indexes, leaving the cached response as it is. Error responses pass through.
+     */
+    private JsonNode page(JsonNode response, String rowsField, ReportSchema schema, int[] fields, int offset) {
+        JsonNode rows = response.get(rowsField);
+        if (rows == null || offset == 0 && fields.length == schema.fields().size()) {
+            return response;
+        }
+        ArrayNode projected = mapper.createArrayNode();
+        for (int row = offset; row < rows.size(); row++) {
+            projected.add(project(rows.get(row), schema, fields));
+        }
+        ObjectNode result = mapper.createObjectNode();
+        for (Map.Entry<String, JsonNode> property : response.properties()) {
+            String name = property.getKey();
+            if (name.equals("count")) {
+                result.put(name, projected.size());
+            } else {
+                result.set(name, name.equals(rowsField) ? projected : property.getValue());
             }
+        }
+        return result;
+    }
 
-            ObjectNode result = mapper.createObjectNode();
-            result.put("symbol", symbol);
-            result.put("assetType", response.path("AssetType").asText(""));
-            result.put("description", response.path("Description").asText(""));
-            result.put("country", response.path("Country").asText(""));
-            result.put("industry", response.path("Industry").asText(""));
-            result.put("latestQuarter", response.path("LatestQuarter").asText(""));
-            return result;
-        }  catch (Exception e) {
-            return errorResponse("Error fetching company overview: " + e.getMessage());
+    private JsonNode project(JsonNode row, ReportSchema schema, int[] fields) {
+        if (fields.length == schema.fields().size()) {
+            return row;
         }
+        ObjectNode projected = mapper.createObjectNode();
+        for (int i : fields) {
+            String name = schema.field(i).target();
+            projected.set(name, row.get(name));
+        }
+        return projected;
     }
 
-    @Tool(name = "getInsiderTransactions", description = "Get insider transactions for a given stock symbol")
-    public JsonNode getInsiderTransactions(String symbol, Integer limit) {
-        try {
-            JsonNode response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .queryParam("function", "INSIDER_TRANSACTIONS")
-                            .queryParam("symbol", symbol)
-                            .queryParam("apikey", apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .block();
-
-            if (response == null || response.isEmpty()) {
-                return errorResponse("Error fetching insider transactions: " + symbol);
-            }
+    @Tool(name = "getCompanyOverview", description = "Get the company overview for a given stock symbol")
+    public JsonNode getCompanyOverview(String symbol) {
+        return getCompanyOverviewAsync(symbol).block();
+    }
 
-            ArrayNode transactions = mapper.createArrayNode();
-            int count = 0;
+    public Mono<JsonNode> getCompanyOverviewAsync(String symbol) {
+        return cached(CacheKey.of(AlphaVantageFunction.OVERVIEW, symbol), () -> fetchCompanyOverview(symbol), this::stale);
+    }
 
-            for (JsonNode transaction : response.get("data")) {
-                if (limit != null && count >= limit) break;
+    private Mono<JsonNode> fetchCompanyOverview(String symbol) {
+        return requestReports(AlphaVantageFunction.OVERVIEW, "symbol", symbol, ReportSchemas.OVERVIEW, null,
+                () -> new JsonReportRows(mapper, ReportSchemas.OVERVIEW))
+                .map(overview -> {
+                    if (overview.rows() == null) {
+                        return errorResponse("Error fetching company overview: " + symbol);
+                    }
 
-                ObjectNode row = mapper.createObjectNode();
+                    ObjectNode result = mapper.createObjectNode();
+                    result.put("symbol", symbol);
+                    result.setAll((ObjectNode) overview.rows().array().get(0));
+                    return (JsonNode) result;
+                })
+                .onErrorResume(e -> Mono.just(errorResponse("Error fetching company overview: " + e.getMessage())));
+    }
 
-                row.put("transactionDate", transaction.path("transaction_date").asText(""));
-                row.put("symbol", transaction.path("ticker").asText(""));
-                row.put("executiveName", transaction.path("executive").asText(""));
-                row.put("executiveTitle", transaction.path("executive_title").asText(""));
-                row.put("securityType", transaction.path("security_type").asText(""));
-                row.put("acquisitionOrDisposal", transaction.path("acquisition_or_disposal").asText(""));
-                row.put("shares", transaction.path("shares").asDouble(0.0));
-                row.put("sharePrice", transaction.path("share_price").asDouble(0.0));
+    @Tool(name = "getInsiderTransactions", description = "Get insider transactions for a given stock symbol")
+    public JsonNode getInsiderTransactions(String symbol, Integer limit) {
+        return getInsiderTransactionsAsync(symbol, limit).block();
+    }
 
-                transactions.add(row);
-                count++;
-            }
+    public Mono<JsonNode> getInsiderTransactionsAsync(String symbol, Integer limit) {
+        return cached(CacheKey.of(AlphaVantageFunction.INSIDER_TRANSACTIONS, symbol, limit), () -> fetchInsiderTransactions(symbol, limit),
+                this::stale);
+    }
 
-            ObjectNode result = mapper.createObjectNode();
-            result.put("success", true);
-            result.put("symbol", symbol);
-            result.put("count", transactions.size());
-            result.set("transactions", transactions);
+    private Mono<JsonNode> fetchInsiderTransactions(String symbol, Integer limit) {
+        return requestReports(AlphaVantageFunction.INSIDER_TRANSACTIONS, "symbol", symbol, ReportSchemas.INSIDER_TRANSACTIONS, limit,
+                () -> new JsonReportRows(mapper, ReportSchemas.INSIDER_TRANSACTIONS))
+                .map(transactions -> {
+                    if (transactions.rows() == null) {
+                        return errorResponse("Error fetching insider transactions: " + symbol);
+                    }
 
-            return result;
-        } catch (Exception e) {
-            return errorResponse("Error fetching insider transactions: " + e.getMessage());
-        }
+                    ObjectNode result = mapper.createObjectNode();
+                    result.put("success", true);
+                    result.put("symbol", symbol);
+                    result.put("count", transactions.rows().size());
+                    result.set("transactions", transactions.rows().array());
+
+                    return (JsonNode) result;
+                })
+                .onErrorResume(e -> Mono.just(errorResponse("Error fetching insider transactions: " + e.getMessage())));
     }
 
     @Tool(name = "getIncomeStatement", description = "Get income statement for a given stock symbol")
-    public JsonNode getIncomeStatement(String symbol, Integer limit) {
-        try {
-            JsonNode response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .queryParam("function", "INCOME_STATEMENT")
-                            .queryParam("symbol", symbol)
-                            .queryParam("apikey", apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .block();
-
-            if (response == null || response.isEmpty()) {
-                return errorResponse("Error fetching income statement: " + symbol);
-            }
+    public JsonNode getIncomeStatement(String symbol, Integer limit,
+            @ToolParam(description = "Number of newest reports to skip", required = false) Integer offset,
+            @ToolParam(description = "annual (default) or quarterly", required = false) String period,
+            @ToolParam(description = "Report fields to return, all if omitted", required = false) List<String> fields) {
+        return getIncomeStatementAsync(symbol, limit, offset, period, fields).block();
+    }
 
-            ArrayNode statements = mapper.createArrayNode();
-            int count = 0;
-
-            for (JsonNode statement : response.get("annualReports")) {
-                if (limit != null && count >= limit) break;
-
-                ObjectNode row = mapper.createObjectNode();
-
-                row.put("fiscalDateEnding", statement.path("fiscalDateEnding").asText(""));
-                row.put("reportedCurrency", statement.path("reportedCurrency").asText(""));
-                row.put("grossProfit", statement.path("grossProfit").asDouble(0.0));
-                row.put("totalRevenue", statement.path("totalRevenue").asDouble(0.0));
-                row.put("costOfRevenue", statement.path("costOfRevenue").asDouble(0.0));
-                row.put("costofGoodsAndServicesSold", statement.path("costOfGoodsAndServicesSold").asDouble(0.0));
-                row.put("operatingIncome", statement.path("operatingIncome").asDouble(0.0));
-                row.put("sellingGeneralAndAdministrative", statement.path("sellingGeneralAndAdministrative").asDouble(0.0));
-                row.put("researchAndDevelopment", statement.path("researchAndDevelopment").asDouble(0.0));
-                row.put("operatingExpenses", statement.path("operatingExpenses").asDouble(0.0));
-                row.put("investmentIncomeNet", statement.path("investmentIncomeNet").asDouble(0.0));
-                row.put("interestIncome", statement.path("interestIncome").asDouble(0.0));
-                row.put("interestExpense", statement.path("interestExpense").asDouble(0.0));
-                row.put("nonInterestIncome", statement.path("nonInterestIncome").asDouble(0.0));
-                row.put("otherNonOperatingIncome", statement.path("otherNonOperatingIncome").asDouble(0.0));
-                row.put("depriciation", statement.path("depreciation").asDouble(0.0));
-                row.put("depriciationAndAmortization", statement.path("depreciationAndAmortization").asDouble(0.0));
-                row.put("incomeBeforeTax", statement.path("incomeBeforeTax").asDouble(0.0));
-                row.put("incomeTaxExpense", statement.path("incomeTaxExpense").asDouble(0.0));
-                row.put("interestAndDebtExpense", statement.path("interestAndDebtExpense").asDouble(0.0));
-                row.put("netIncomeFromContinuingOperations", statement.path("netIncomeFromContinuingOperations").asDouble(0.0));
-                row.put("comprehensiveIncomeNetOfTax", statement.path("comprehensiveIncomeNetOfTax").asDouble(0.0));
-                row.put("ebit", statement.path("ebit").asDouble(0.0));
-                row.put("ebitda", statement.path("ebitda").asDouble(0.0));
-                row.put("netIncome", statement.path("netIncome").asDouble(0.0));
-
-                statements.add(row);
-                count++;
-            }
+    public Mono<JsonNode> getIncomeStatementAsync(String symbol, Integer limit) {
+        return getIncomeStatementAsync(symbol, limit, null, null, null);
+    }
 
-            ObjectNode result = mapper.createObjectNode();
-            result.put("success", true);
-            result.put("symbol", symbol);
-            result.put("count", statements.size());
-            result.set("incomeStatements", statements);
+    public Mono<JsonNode> getIncomeStatementAsync(String symbol, Integer limit, Integer offset, String period, List<String> fields) {
+        return statementsResponse(AlphaVantageFunction.INCOME_STATEMENT, symbol, limit, offset, period, fields, "income statement", "incomeStatements");
+    }
 
-            return result;
-        } catch (Exception e) {
-            return errorResponse("Error fetching income statement: " + e.getMessage());
-        }
+    public Mono<StatementTable> getIncomeStatementTable(String symbol, Integer limit) {
+        return statements(AlphaVantageFunction.INCOME_STATEMENT, symbol, limit, false);
     }
 
     @Tool(name = "getBalanceSheet", description = "Get balance sheet for a given stock symbol")
-    public JsonNode getBalanceSheet(String symbol, Integer limit) {
-        try {
-            JsonNode response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .queryParam("function", "BALANCE_SHEET")
-                            .queryParam("symbol", symbol)
-                            .queryParam("apikey", apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .block();
-
-            if (response == null || response.isEmpty()) {
-                return errorResponse("Error fetching balance sheet: " + symbol);
-            }
+    public JsonNode getBalanceSheet(String symbol, Integer limit,
+            @ToolParam(description = "Number of newest reports to skip", required = false) Integer offset,
+            @ToolParam(description = "annual (default) or quarterly", required = false) String period,
+            @ToolParam(description = "Report fields to return, all if omitted", required = false) List<String> fields) {
+        return getBalanceSheetAsync(symbol, limit, offset, period, fields).block();
+    }
 
-            ArrayNode sheets = mapper.createArrayNode();
-            int count = 0;
-
-            for (JsonNode sheet : response.get("annualReports")) {
-                if (limit != null && count >= limit) break;
-
-                ObjectNode row = mapper.createObjectNode();
-
-                row.put("fiscalDateEnding", sheet.path("fiscalDateEnding").asText(""));
-                row.put("reportedCurrency", sheet.path("reportedCurrency").asText(""));
-                row.put("totalAssets", sheet.path("totalAssets").asDouble(0.0));
-                row.put("totalCurrentAssets", sheet.path("totalCurrentAssets").asDouble(0.0));
-                row.put("cashAndCashEquivalentsAtCarryingValue", sheet.path("cashAndCashEquivalentsAtCarryingValue").asDouble(0.0));
-                row.put("cashAndShortTermInvestments", sheet.path("cashAndShortTermInvestments").asDouble(0.0));
-                row.put("inventory", sheet.path("inventory").asDouble(0.0));
-                row.put("currentNetReceivables", sheet.path("currentNetReceivables").asDouble(0.0));
-                row.put("totalNonCurrentAssets", sheet.path("totalNonCurrentAssets").asDouble(0.0));
-                row.put("propertyPlantEquipment", sheet.path("propertyPlantEquipment").asDouble(0.0));
-                row.put("accumulatedDepreciationAmortizationPPE", sheet.path("accumulatedDepreciationAmortizationPPE").asDouble(0.0));
-                row.put("intangibleAssets", sheet.path("intangibleAssets").asDouble(0.0));
-                row.put("intagibleAssetsExcludingGoodwill", sheet.path("intangibleAssetsExcludingGoodwill").asDouble(0.0));
-                row.put("goodwill", sheet.path("goodwill").asDouble(0.0));
-                row.put("investments", sheet.path("investments").asDouble(0.0));
-                row.put("longTermInvestments", sheet.path("longTermInvestments").asDouble(0.0));
-                row.put("shortTermInvestments", sheet.path("shortTermInvestments").asDouble(0.0));
-                row.put("otherCurrentAssets", sheet.path("otherCurrentAssets").asDouble(0.0));
-                row.put("otherNonCurrentAssets", sheet.path("otherNonCurrentAssets").asDouble(0.0));
-                row.put("totalLiabilities", sheet.path("totalLiabilities").asDouble(0.0));
-                row.put("totalCurrentLiabilities", sheet.path("totalCurrentLiabilities").asDouble(0.0));
-                row.put("currentAccountsPayable", sheet.path("currentAccountsPayable").asDouble(0.0));
-                row.put("deferredRevenue", sheet.path("deferredRevenue").asDouble(0.0));
-                row.put("currentDebt", sheet.path("currentDebt").asDouble(0.0));
-                row.put("shortTermDebt", sheet.path("shortTermDebt").asDouble(0.0));
-                row.put("totalNonCurrentLiabilities", sheet.path("totalNonCurrentLiabilities").asDouble(0.0));
-                row.put("capitalLeaseObligations", sheet.path("capitalLeaseObligations").asDouble(0.0));
-                row.put("longTermDebt", sheet.path("longTermDebt").asDouble(0.0));
-                row.put("currentLongTermDebt", sheet.path("currentLongTermDebt").asDouble(0.0));
-                row.put("longTermDebtNoncurrent", sheet.path("longTermDebtNoncurrent").asDouble(0.0));
-                row.put("shortLongTermDebtTotal", sheet.path("shortLongTermDebtTotal").asDouble(0.0));
-                row.put("otherCurrentLiabilities", sheet.path("otherCurrentLiabilities").asDouble(0.0));
-                row.put("otherNonCurrentLiabilities", sheet.path("otherNonCurrentLiabilities").asDouble(0.0));
-                row.put("totalShareholderEquity", sheet.path("totalShareholderEquity").asDouble(0.0));
-                row.put("treasuryStock", sheet.path("treasuryStock").asDouble(0.0));
-                row.put("retainedEarnings", sheet.path("retainedEarnings").asDouble(0.0));
-                row.put("commonStock", sheet.path("commonStock").asDouble(0.0));
-                row.put("commonStockSharesOutstanding", sheet.path("commonStockSharesOutstanding").asDouble(0.0));
-
-                sheets.add(row);
-                count++;
-            }
+    public Mono<JsonNode> getBalanceSheetAsync(String symbol, Integer limit) {
+        return getBalanceSheetAsync(symbol, limit, null, null, null);
+    }
 
-            ObjectNode result = mapper.createObjectNode();
-            result.put("success", true);
-            result.put("symbol", symbol);
-            result.put("count", sheets.size());
-            result.set("balanceSheets", sheets);
+    public Mono<JsonNode> getBalanceSheetAsync(String symbol, Integer limit, Integer offset, String period, List<String> fields) {
+        return statementsResponse(AlphaVantageFunction.BALANCE_SHEET, symbol, limit, offset, period, fields, "balance sheet", "balanceSheets");
+    }
 
-            return result;
-        } catch (Exception e) {
-            return errorResponse("Error fetching balance sheet: " + e.getMessage());
-        }
+    public Mono<StatementTable> getBalanceSheetTable(String symbol, Integer limit) {
+        return statements(AlphaVantageFunction.BALANCE_SHEET, symbol, limit, false);
     }
 
     @Tool(name = "getCashFlow", description = "Get cash flow for a given symbol")
-    public JsonNode getCashFlow(String symbol, Integer limit) {
-        try {
-            JsonNode response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .queryParam("function", "CASH_FLOW")
-                            .queryParam("symbol", symbol)
-                            .queryParam("apikey", apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .block();
-
-            if (response == null || response.isEmpty()) {
-                return errorResponse("Error fetching cash flow: " + symbol);
-            }
+    public JsonNode getCashFlow(String symbol, Integer limit,
+            @ToolParam(description = "Number of newest reports to skip", required = false) Integer offset,
+            @ToolParam(description = "annual (default) or quarterly", required = false) String period,
+            @ToolParam(description = "Report fields to return, all if omitted", required = false) List<String> fields) {
+        return getCashFlowAsync(symbol, limit, offset, period, fields).block();
+    }
 
-            ArrayNode cashFlows = mapper.createArrayNode();
-            int count = 0;
-
-            for (JsonNode cashFlow : response.get("annualReports")) {
-                if (limit != null && count >= limit) break;
-
-                ObjectNode row = mapper.createObjectNode();
-
-                row.put("fiscalDateEnding", cashFlow.path("fiscalDateEnding").asText(""));
-                row.put("reportedCurrency", cashFlow.path("reportedCurrency").asText(""));
-                row.put("operatingCashflow", cashFlow.path("operatingCashflow").asDouble(0.0));
-                row.put("paymentsForOperatingActivities", cashFlow.path("paymentsForOperatingActivities").asDouble(0.0));
-                row.put("proceedsFromOperatingActivities", cashFlow.path("proceedsFromOperatingActivities").asDouble(0.0));
-                row.put("changeInOperatingLiabilities", cashFlow.path("changeInOperatingLiabilities").asDouble(0.0));
-                row.put("changeInOperatingAssets", cashFlow.path("changeInOperatingAssets").asDouble(0.0));
-                row.put("depreciationDepletionAndAmortization", cashFlow.path("depreciationDepletionAndAmortization").asDouble(0.0));
-                row.put("capitalExpenditures", cashFlow.path("capitalExpenditures").asDouble(0.0));
-                row.put("changeInReceivables", cashFlow.path("changeInReceivables").asDouble(0.0));
-                row.put("changeInInventory", cashFlow.path("changeInInventory").asDouble(0.0));
-                row.put("profitLoss", cashFlow.path("profitLoss").asDouble(0.0));
-                row.put("cashflowFromInvestment", cashFlow.path("cashflowFromInvestment").asDouble(0.0));
-                row.put("cashflowFromFinancing", cashFlow.path("cashflowFromFinancing").asDouble(0.0));
-                row.put("proceedsFromRepaymentsOfShortTermDebt", cashFlow.path("proceedsFromRepaymentsOfShortTermDebt").asDouble(0.0));
-                row.put("paymentsForRepurchaseOfCommonStock", cashFlow.path("paymentsForRepurchaseOfCommonStock").asDouble(0.0));
-                row.put("paymentsForRepurchaseOfEquity", cashFlow.path("paymentsForRepurchaseOfEquity").asDouble(0.0));
-                row.put("paymentsForRepurchaseOfPreferredStock", cashFlow.path("paymentsForRepurchaseOfPreferredStock").asDouble(0.0));
-                row.put("dividendPayout", cashFlow.path("dividendPayout").asDouble(0.0));
-                row.put("dividendPayoutCommonStock", cashFlow.path("dividendPayoutCommonStock").asDouble(0.0));
-                row.put("dividendPayoutPreferredStock", cashFlow.path("dividendPayoutPreferredStock").asDouble(0.0));
-                row.put("proceedsFromIssuanceOfCommonStock", cashFlow.path("proceedsFromIssuanceOfCommonStock").asDouble(0.0));
-                row.put("proceedsFromIssuanceOfLongTermDebtAndCapitalSecuritiesNet", cashFlow.path("proceedsFromIssuanceOfLongTermDebtAndCapitalSecuritiesNet").asDouble(0.0));
-                row.put("proceedsFromIssuanceOfPreferredStock", cashFlow.path("proceedsFromIssuanceOfPreferredStock").asDouble(0.0));
-                row.put("proceedsFromRepurchaseOfEquity", cashFlow.path("proceedsFromRepurchaseOfEquity").asDouble(0.0));
-                row.put("proceedsFromSaleOfTreasuryStock", cashFlow.path("proceedsFromSaleOfTreasuryStock").asDouble(0.0));
-                row.put("changeInCashAndCashEquivalents", cashFlow.path("changeInCashAndCashEquivalents").asDouble(0.0));
-                row.put("changeInExchangeRate", cashFlow.path("changeInExchangeRate").asDouble(0.0));
-                row.put("netIncome", cashFlow.path("netIncome").asDouble(0.0));
-
-                cashFlows.add(row);
-                count++;
-            }
+    public Mono<JsonNode> getCashFlowAsync(String symbol, Integer limit) {
+        return getCashFlowAsync(symbol, limit, null, null, null);
+    }
 
-            ObjectNode result = mapper.createObjectNode();
-            result.put("success", true);
-            result.put("symbol", symbol);
-            result.put("count", cashFlows.size());
-            result.set("cashFlows", cashFlows);
+    public Mono<JsonNode> getCashFlowAsync(String symbol, Integer limit, Integer offset, String period, List<String> fields) {
+        return statementsResponse(AlphaVantageFunction.CASH_FLOW, symbol, limit, offset, period, fields, "cash flow", "cashFlows");
+    }
 
-            return result;
-        } catch (Exception e) {
-            return errorResponse("Error fetching cash flow: " + e.getMessage());
-        }
+    public Mono<StatementTable> getCashFlowTable(String symbol, Integer limit) {
+        return statements(AlphaVantageFunction.CASH_FLOW, symbol, limit, false);
+    }
+
+    @Tool(name = "getFinancialRatios", description = "Get margins, returns, liquidity, leverage and year-over-year growth "
+            + "for a given stock symbol, computed from its annual income statement, balance sheet and cash flow")
+    public JsonNode getFinancialRatios(String symbol, Integer years) {
+        return getFinancialRatiosAsync(symbol, years).block();
+    }
+
+    /**
+     * Fetches the three statements concurrently, with one extra year for the growth of the oldest
+     * year asked for, and reduces them to a {@link FinancialRatios} table.
+     */
+    public Mono<JsonNode> getFinancialRatiosAsync(String symbol, Integer years) {
+        int count = years == null ? 5 : Math.max(1, Math.min(years, 30));
+        return Mono.zip(getIncomeStatementTable(symbol, count + 1), getBalanceSheetTable(symbol, count + 1),
+                        getCashFlowTable(symbol, count + 1))
+                .map(statements -> {
+                    ObjectNode result = mapper.createObjectNode();
+                    result.put("success", true);
+                    result.put("symbol", symbol);
+                    ObjectNode ratios = FinancialRatios.compute(mapper, statements.getT1(), statements.getT2(), statements.getT3(), count);
+                    result.put("count", ratios.get("rows").size());
+                    result.setAll(ratios);
+                    Duration staleAge = Stream.of(statements.getT1(), statements.getT2(), statements.getT3())
+                            .map(StatementTable::staleAge)
+                            .filter(Objects::nonNull)
+                            .max(Duration::compareTo)
+                            .orElse(null);
+                    if (staleAge != null) {
+                        result.put("stale", true);
+                        result.put("staleAgeSeconds", staleAge.toSeconds());
+                    }
+                    return (JsonNode) result;
+                })
+                .onErrorResume(e -> Mono.just(errorResponse("Error fetching financial ratios: " + e.getMessage())));
+    }
+
+    /**
+     * Annual reports are cached under the key they always had, so ratios and earlier stored
+     * copies keep sharing them; quarterly reports, read from the same response, get their own.
+     */
+    private Mono<StatementTable> statements(AlphaVantageFunction function, String symbol, Integer limit, boolean quarterly) {
+        CacheKey key = quarterly ? CacheKey.of(function, symbol, limit, "quarterly") : CacheKey.of(function, symbol, limit);
+        return cached(key, () -> fetchStatements(function, symbol, limit, quarterly), StatementTable::stale);
+    }
+
+    private Mono<StatementTable> fetchStatements(AlphaVantageFunction function, String symbol, Integer limit, boolean quarterly) {
+        ReportSchema schema = ReportSchemas.statementsOf(function, quarterly);
+        return requestReports(function, "symbol", symbol, schema, limit, () -> new StatementTable.Builder(schema))
+                .map(reports -> {
+                    if (reports.rows() == null) {
+                        throw new UpstreamDataException(reports.upstreamMessage() != null ? reports.upstreamMessage() : symbol);
+                    }
+                    return reports.rows().build();
+                });
+    }
+
+    /**
+     * Renders statements as the tool response; this is the only place their JSON is built. The
+     * table is fetched and cached for {@code offset + limit} reports, and only the page and the
+     * {@code fields} asked for are written out.
+     */
+    private Mono<JsonNode> statementsResponse(AlphaVantageFunction function, String symbol, Integer limit, Integer offset,
+                                              String period, List<String> fields, String label, String resultField) {
+        return Mono.defer(() -> {
+                    boolean quarterly = quarterly(period);
+                    int[] selected = ReportSchemas.statementsOf(function).indexesOfTargets(fields);
+                    int skip = offset == null ? 0 : Math.max(0, offset);
+                    Integer count = limit == null ? null : skip + Math.max(0, limit);
+                    return statements(function, symbol, count, quarterly).map(table -> {
+                        ObjectNode result = mapper.createObjectNode();
+                        result.put("success", true);
+                        result.put("symbol", symbol);
+                        result.put("period", quarterly ? "quarterly" : "annual");
+                        result.put("count", Math.max(0, table.rowCount() - skip));
+                        result.set(resultField, table.toJson(mapper, selected, skip, table.rowCount()));
+                        if (table.staleAge() != null) {
+                            result.put("stale", true);
+                            result.put("staleAgeSeconds", table.staleAge().toSeconds());
+                        }
+
+                        return (JsonNode) result;
+                    });
+                })
+                .onErrorResume(e -> Mono.just(errorResponse("Error fetching " + label + ": " + e.getMessage())));
+    }
+
+    private static boolean quarterly(String period) {
+        if (period == null || period.isBlank() || period.equalsIgnoreCase("annual")) return false;
+        if (period.equalsIgnoreCase("quarterly")) return true;
+        throw new IllegalArgumentException("Unknown period " + period + "; expected annual or quarterly");
+    }
+
+    @Tool(name = "getPriceHistory", description = "Get daily open, high, low, close and volume for a given stock symbol, newest first")
+    public JsonNode getPriceHistory(String symbol, Integer days) {
+        return getPriceHistoryAsync(symbol, days).block();
+    }
+
+    public Mono<JsonNode> getPriceHistoryAsync(String symbol, Integer days) {
+        int count = days == null ? 30 : Math.max(1, days);
+        return priceHistory(symbol)
+                .map(bars -> {
+                    int from = Math.max(0, bars.size() - count);
+                    ObjectNode result = mapper.createObjectNode();
+                    result.put("success", true);
+                    result.put("symbol", symbol);
+                    result.put("count", bars.size() - from);
+                    ArrayNode columns = result.putArray("columns");
+                    List.of("date", "open", "high", "low", "close", "volume").forEach(columns::add);
+                    ArrayNode rows = result.putArray("rows");
+                    for (int bar = bars.size() - 1; bar >= from; bar--) {
+                        ArrayNode row = rows.addArray();
+                        row.add(bars.date(bar).toString());
+                        row.add(bars.open()[bar]);
+                        row.add(bars.high()[bar]);
+                        row.add(bars.low()[bar]);
+                        row.add(bars.close()[bar]);
+                        row.add((long) bars.volume()[bar]);
+                    }
+                    return (JsonNode) result;
+                })
+                .onErrorResume(e -> Mono.just(errorResponse("Error fetching price history: " + e.getMessage())));
+    }
+
+    @Tool(name = "getIndicators", description = "Get moving averages, RSI, MACD and volatility for a given stock symbol, "
+            + "computed from its daily closes, newest first")
+    public JsonNode getIndicators(String symbol, Integer days) {
+        return getIndicatorsAsync(symbol, days).block();
+    }
+
+    /**
+     * Computes the indicators over the whole stored history, so the long averages are warmed up
+     * even for the oldest day asked for, and renders the newest {@code days} of them.
+     */
+    public Mono<JsonNode> getIndicatorsAsync(String symbol, Integer days) {
+        int count = days == null ? 10 : Math.max(1, days);
+        return priceHistory(symbol)
+                .map(bars -> {
+                    double[] close = bars.close();
+                    double[][] macd = Indicators.macd(close, 12, 26, 9);
+                    double[][] series = {
+                            close,
+                            Indicators.sma(close, 20),
+                            Indicators.sma(close, 50),
+                            Indicators.sma(close, 200),
+                            Indicators.ema(close, 12),
+                            Indicators.ema(close, 26),
+                            Indicators.rsi(close, 14),
+                            macd[0],
+                            macd[1],
+                            macd[2],
+                            Indicators.volatility(close, 20)
+                    };
+
+                    int from = Math.max(0, bars.size() - count);
+                    ObjectNode result = mapper.createObjectNode();
+                    result.put("success", true);
+                    result.put("symbol", symbol);
+                    result.put("count", bars.size() - from);
+                    ArrayNode columns = result.putArray("columns");
+                    List.of("date", "close", "sma20", "sma50", "sma200", "ema12", "ema26", "rsi14",
+                            "macd", "macdSignal", "macdHistogram", "volatility20").forEach(columns::add);
+                    ArrayNode rows = result.putArray("rows");
+                    for (int bar = bars.size() - 1; bar >= from; bar--) {
+                        ArrayNode row = rows.addArray();
+                        row.add(bars.date(bar).toString());
+                        for (double[] values : series) {
+                            if (Double.isNaN(values[bar])) {
+                                row.addNull();
+                            } else {
+                                row.add(Math.round(values[bar] * 10_000) / 10_000.0);
+                            }
+                        }
+                    }
+                    return (JsonNode) result;
+                })
+                .onErrorResume(e -> Mono.just(errorResponse("Error computing indicators: " + e.getMessage())));
+    }
+
+    /**
+     * The daily bars of {@code symbol} from the {@link PriceHistoryStore}, synced with Alpha Vantage
+     * first when they are older than {@code alpha-vantage.history.refresh-after}. If the sync fails
+     * the stored bars are served as they are.
+     */
+    private Mono<PriceHistory> priceHistory(String symbol) {
+        return Mono.fromCallable(() -> Optional.ofNullable(history.read(symbol)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(stored -> {
+                    if (stored.isPresent() && System.currentTimeMillis() - history.syncedAt(symbol) < historyRefreshAfterMillis) {
+                        return Mono.just(stored.get());
+                    }
+                    Mono<PriceHistory> synced = singleFlight.execute(CacheKey.of(AlphaVantageFunction.TIME_SERIES_DAILY, symbol),
+                            () -> syncPriceHistory(symbol, stored.orElse(null)));
+                    return stored.isEmpty() ? synced : synced.onErrorReturn(stored.get());
+                });
+    }
+
+    /**
+     * Fetches the full history when nothing is stored or the stored bars end before the span of
+     * the compact response (the latest 100 bars), otherwise just the compact response, and appends
+     * the bars that are new.
+     */
+    private Mono<PriceHistory> syncPriceHistory(String symbol, PriceHistory stored) {
+        boolean full = stored == null || stored.size() == 0
+                || LocalDate.now().toEpochDay() - stored.lastDay() > COMPACT_HISTORY_DAYS;
+        return requestReports(AlphaVantageFunction.TIME_SERIES_DAILY, "symbol", symbol, ReportSchemas.TIME_SERIES_DAILY, null,
+                () -> new StatementTable.Builder(ReportSchemas.TIME_SERIES_DAILY), Map.of("outputsize", full ? "full" : "compact"))
+                .publishOn(Schedulers.boundedElastic())
+                .map(bars -> {
+                    if (bars.rows() == null) {
+                        throw new UpstreamDataException(bars.upstreamMessage() != null ? bars.upstreamMessage() : symbol);
+                    }
+                    history.append(symbol, PriceHistory.fromTable(bars.rows().build()), System.currentTimeMillis());
+                    return history.read(symbol);
+                });
     }
 
     @Tool(name = "getEarningsEstimates", description = "Get earnings estimates for a given stock symbol")
     public JsonNode getEarningsEstimates(String symbol, Integer limit) {
-        try {
-            JsonNode response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .queryParam("function", "EARNINGS_ESTIMATES")
-                            .queryParam("symbol", symbol)
-                            .queryParam("apikey", apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .block();
-
-            if (response == null || response.isEmpty()) {
-                return errorResponse("Error fetching earnings estimates: " + symbol);
-            }
+        return getEarningsEstimatesAsync(symbol, limit).block();
+    }
+
+    public Mono<JsonNode> getEarningsEstimatesAsync(String symbol, Integer limit) {
+        return cached(CacheKey.of(AlphaVantageFunction.EARNINGS_ESTIMATES, symbol, limit), () -> fetchEarningsEstimates(symbol, limit),
+                this::stale);
+    }
 
-            ArrayNode estimates = mapper.createArrayNode();
-            int count = 0;
+    private Mono<JsonNode> fetchEarningsEstimates(String symbol, Integer limit) {
+        return requestReports(AlphaVantageFunction.EARNINGS_ESTIMATES, "symbol", symbol, ReportSchemas.EARNINGS_ESTIMATES, limit,
+                () -> new JsonReportRows(mapper, ReportSchemas.EARNINGS_ESTIMATES))
+                .map(estimates -> {
+                    if (estimates.rows() == null) {
+                        return errorResponse("Error fetching earnings estimates: " + symbol);
+                    }
 
-            for (JsonNode estimate : response.get("estimates")) {
-                if (limit != null && count >= limit) break;
+                    ObjectNode result = mapper.createObjectNode();
+                    result.put("success", true);
+                    result.put("symbol", symbol);
+                    result.put("count", estimates.rows().size());
+                    result.set("earningsEstimates", estimates.rows().array());
 
-                ObjectNode row = mapper.createObjectNode();
+                    return (JsonNode) result;
+                })
+                .onErrorResume(e -> Mono.just(errorResponse("Error fetching earnings estimates: " + e.getMessage())));
+    }
 
-                row.put("Date", estimate.path("date").asText(""));
-                row.put("estimateAverageEPS", estimate.path("eps_estimate_average").asDouble(0.0));
-                row.put("estimateHighEPS", estimate.path("eps_estimate_high").asDouble(0.0));
-                row.put("estimateLowEPS", estimate.path("eps_estimate_low").asDouble(0.0));
-                row.put("numberOfAnalysts", estimate.path("eps_estimate_analyst_count").asInt(0));
-                row.put("estimateAverageRevenue", estimate.path("revenue_estimate_average").asDouble(0.0));
-                row.put("numberOfAnalystsRevenue", estimate.path("revenue_estimate_analyst_count").asDouble(0.0));
+    /**
+     * Waits for quota, then streams the response body through a {@link ReportStreamDecoder} and
+     * stops the download as soon as the decoder has read {@code limit} reports. The time spent
+     * inside the decoder is reported to {@link ServerMetrics} apart from the rest of the call.
+     * {@code rows} is asked for a fresh target on every attempt, since a hedged call may read two
+     * responses at once. While the function's {@link CircuitBreakers} breaker is open the call
+     * fails at once with an {@link UpstreamUnavailableException}.
+     */
+    private <R extends ReportRows> Mono<ReportStreamDecoder<R>> requestReports(AlphaVantageFunction function, String symbolParam,
+                                                                               String symbol, ReportSchema schema, Integer limit,
+                                                                               Supplier<R> rows) {
+        return requestReports(function, symbolParam, symbol, schema, limit, rows, Map.of());
+    }
 
-                estimates.add(row);
-                count++;
+    private <R extends ReportRows> Mono<ReportStreamDecoder<R>> requestReports(AlphaVantageFunction function, String symbolParam,
+                                                                               String symbol, ReportSchema schema, Integer limit,
+                                                                               Supplier<R> rows, Map<String, String> params) {
+        return Mono.defer(() -> {
+            CircuitBreakers.Permit permit = breakers.tryAcquire(function);
+            if (permit == null) {
+                return Mono.error(breakers.rejection(function));
             }
+            Mono<ReportStreamDecoder<R>> attempt = Mono.defer(() -> {
+                long requestedAt = System.nanoTime();
+                return scheduler.acquireAsync(function.priority())
+                        .doOnError(error -> metrics.upstreamRejected(function, error))
+                        .flatMap(apiKey -> {
+                            ServerMetrics.UpstreamCall call = metrics.upstreamCall(function, requestedAt);
+                            permit.started();
+                            ReportStreamDecoder<R> decoder = new ReportStreamDecoder<>(schema, limit, rows.get());
+                            return transport.webClient().get()
+                                    .uri(uriBuilder -> {
+                                        uriBuilder.queryParam("function", function.name())
+                                                .queryParam(symbolParam, symbol);
+                                        params.forEach(uriBuilder::queryParam);
+                                        return uriBuilder.queryParam("apikey", apiKey).build();
+                                    })
+                                    .retrieve()
+                                    .bodyToFlux(DataBuffer.class)
+                                    .takeUntil(buffer -> {
+                                        int size = buffer.readableByteCount();
+                                        long start = System.nanoTime();
+                                        boolean done = decoder.feed(buffer);
+                                        call.mapped(size, System.nanoTime() - start);
+                                        return done;
+                                    })
+                                    .then(Mono.fromCallable(() -> {
+                                        long start = System.nanoTime();
+                                        decoder.finish();
+                                        call.mapped(0, System.nanoTime() - start);
+                                        if (decoder.rows() == null) {
+                                            call.empty(decoder.upstreamMessage());
+                                        }
+                                        return decoder;
+                                    }))
+                                    .timeout(transport.timeout(function))
+                                    .doOnError(call::failed)
+                                    .doFinally(call::finish);
+                        });
+            });
+            return transport.hedged(function, attempt)
+                    .doOnNext(decoder -> {
+                        if (decoder.rows() == null && rateLimited(decoder.upstreamMessage())) {
+                            permit.failed();
+                        } else {
+                            permit.succeeded();
+                        }
+                    })
+                    .doOnError(permit::failed)
+                    .doFinally(signal -> permit.release());
+        });
+    }
 
-            ObjectNode result = mapper.createObjectNode();
-            result.put("success", true);
-            result.put("symbol", symbol);
-            result.put("count", estimates.size());
-            result.set("earningsEstimates", estimates);
+    private static boolean rateLimited(String upstreamMessage) {
+        return upstreamMessage != null && upstreamMessage.toLowerCase(Locale.ROOT).contains("rate limit");
+    }
 
-            return result;
-        } catch (Exception e) {
-            return errorResponse("Error fetching earnings estimates: " + e.getMessage());
+    /**
+     * Serves {@code key} from the cache, fetching it on a miss. While the circuit breaker of its
+     * function is open a miss is answered with the last known good value instead, passed through
+     * {@code stale} with its age, and only fails when there never was one.
+     */
+    private <T> Mono<T> cached(CacheKey key, Supplier<Mono<T>> fetch, BiFunction<T, Duration, T> stale) {
+        Supplier<Mono<T>> load = () -> singleFlight.execute(key, fetch);
+        return cache.get(key, () -> breakers.isOpen(key.function()) ? Mono.error(breakers.rejection(key.function())) : load.get())
+                .onErrorResume(UpstreamUnavailableException.class, e -> cache.lastKnown(key)
+                        .map(known -> {
+                            @SuppressWarnings("unchecked")
+                            T value = (T) known.value();
+                            return stale.apply(value, known.age());
+                        })
+                        .switchIfEmpty(Mono.defer(load)));
+    }
+
+    /**
+     * Marks a response served from an old copy while Alpha Vantage is unavailable.
+     */
+    private JsonNode stale(JsonNode response, Duration age) {
+        if (!(response instanceof ObjectNode object)) {
+            return response;
         }
+        ObjectNode marked = object.deepCopy();
+        marked.put("stale", true);
+        marked.put("staleAgeSeconds", age.toSeconds());
+        return marked;
+    }
+
+    private JsonNode staleBulkQuotes(JsonNode response, Duration age) {
+        ObjectNode marked = ((ObjectNode) response).deepCopy();
+        ArrayNode quotes = mapper.createArrayNode();
+        marked.path("quotes").forEach(quote -> quotes.add(stale(quote, age)));
+        marked.set("quotes", quotes);
+        return marked;
     }
 
     private ObjectNode errorResponse(String message) {
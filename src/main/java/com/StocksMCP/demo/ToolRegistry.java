@@ -0,0 +1,286 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.support.ToolDefinitions;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The tools both transports serve, found once at startup from the {@link Tool} methods of the tool
+ * beans.
+ * <p>
+ * Each tool is resolved up front to a bound {@link MethodHandle} and one decoder per parameter, so
+ * a call is a single hash lookup by name followed by a direct invocation; nothing is reflected on
+ * per call. When the bean also has a {@code <name>Async} method with the same parameters returning
+ * a {@link Mono}, that variant is called instead of the blocking one. A {@link ToolContext}
+ * parameter is not a tool argument but is filled with the calling transport's context. The stdio
+ * runner dispatches through {@link #get(String)} and Spring AI through {@link #callbacks()}, so a
+ * new {@code @Tool} method shows up on both.
+ */
+@Component
+public class ToolRegistry {
+
+    private static final ToolContext NO_CONTEXT = new ToolContext(Map.of());
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ServerMetrics metrics;
+    private final Map<String, RegisteredTool> tools;
+
+    public ToolRegistry(StockService stockService, QuoteSubscriptions quoteSubscriptions, ServerMetrics metrics) {
+        this.metrics = metrics;
+
+        Map<String, RegisteredTool> found = new HashMap<>();
+        for (Object target : new Object[]{stockService, quoteSubscriptions, metrics}) {
+            for (RegisteredTool tool : scan(target)) {
+                if (found.putIfAbsent(tool.name(), tool) != null) {
+                    throw new IllegalStateException("Duplicate tool name: " + tool.name());
+                }
+            }
+        }
+        this.tools = found;
+    }
+
+    /**
+     * The tool called {@code name}, or {@code null} if there is none.
+     */
+    public RegisteredTool get(String name) {
+        return tools.get(name);
+    }
+
+    public Collection<RegisteredTool> tools() {
+        return Collections.unmodifiableCollection(tools.values());
+    }
+
+    /**
+     * The tools as Spring AI callbacks, sorted by name.
+     */
+    public ToolCallback[] callbacks() {
+        return tools.values().stream()
+                .sorted(Comparator.comparing(RegisteredTool::name))
+                .map(SpringAiCallback::new)
+                .toArray(ToolCallback[]::new);
+    }
+
+    private RegisteredTool[] scan(Object target) {
+        Class<?> type = ClassUtils.getUserClass(target);
+        return Arrays.stream(type.getMethods())
+                .filter(method -> method.isAnnotationPresent(Tool.class))
+                .map(method -> register(target, type, method))
+                .toArray(RegisteredTool[]::new);
+    }
+
+    private RegisteredTool register(Object target, Class<?> type, Method declared) {
+        Method invoked = declared;
+        try {
+            Method async = type.getMethod(declared.getName() + "Async", declared.getParameterTypes());
+            if (Mono.class.isAssignableFrom(async.getReturnType())) {
+                invoked = async;
+            }
+        } catch (NoSuchMethodException e) {
+            // Blocking only; called off the caller's thread.
+        }
+
+        Parameter[] parameters = declared.getParameters();
+        ParameterDecoder[] decoders = new ParameterDecoder[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            decoders[i] = decoder(declared, parameters[i]);
+        }
+
+        MethodHandle invoker;
+        try {
+            invoker = MethodHandles.publicLookup().unreflect(invoked)
+                    .bindTo(target)
+                    .asSpreader(Object[].class, parameters.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Tool method is not accessible: " + declared, e);
+        }
+
+        ToolDefinition definition = ToolDefinitions.from(declared);
+        return new RegisteredTool(definition, decoders, invoker, invoked != declared);
+    }
+
+    private ParameterDecoder decoder(Method method, Parameter parameter) {
+        if (!parameter.isNamePresent()) {
+            throw new IllegalStateException("Compile with -parameters to register tool " + method.getName());
+        }
+        Class<?> type = parameter.getType();
+        if (type == ToolContext.class) {
+            return new ParameterDecoder(parameter.getName(), false, true, null);
+        }
+        ToolParam annotation = parameter.getAnnotation(ToolParam.class);
+        boolean required = type.isPrimitive() || (annotation != null ? annotation.required()
+                : !Number.class.isAssignableFrom(type) && type != Boolean.class);
+
+        Function<JsonNode, Object> decode;
+        if (type == String.class) {
+            decode = JsonNode::asText;
+        } else if (type == Integer.class || type == int.class) {
+            decode = JsonNode::asInt;
+        } else if (type == Long.class || type == long.class) {
+            decode = JsonNode::asLong;
+        } else if (type == Double.class || type == double.class) {
+            decode = JsonNode::asDouble;
+        } else if (type == Boolean.class || type == boolean.class) {
+            decode = JsonNode::asBoolean;
+        } else {
+            JavaType javaType = mapper.constructType(parameter.getParameterizedType());
+            decode = value -> mapper.convertValue(value, javaType);
+        }
+        return new ParameterDecoder(parameter.getName(), required, false, decode);
+    }
+
+    private record ParameterDecoder(String name, boolean required, boolean context, Function<JsonNode, Object> decode) {
+    }
+
+    /**
+     * One tool: its Spring AI definition and a pre-bound invoker.
+     */
+    public final class RegisteredTool {
+
+        private final ToolDefinition definition;
+        private final ParameterDecoder[] parameters;
+        private final MethodHandle invoker;
+        private final boolean async;
+
+        private RegisteredTool(ToolDefinition definition, ParameterDecoder[] parameters, MethodHandle invoker, boolean async) {
+            this.definition = definition;
+            this.parameters = parameters;
+            this.invoker = invoker;
+            this.async = async;
+        }
+
+        public String name() {
+            return definition.name();
+        }
+
+        public ToolDefinition definition() {
+            return definition;
+        }
+
+        public Mono<JsonNode> invoke(JsonNode arguments) {
+            return invoke(arguments, NO_CONTEXT);
+        }
+
+        /**
+         * Calls the tool with the named arguments in {@code arguments}. A missing required argument
+         * is answered with an error result rather than an exception, like the tools' own failures; an
+         * argument that does not decode fails the returned {@link Mono} with an
+         * {@link InvalidParamsException} naming it, so nothing is thrown to the caller.
+         */
+        public Mono<JsonNode> invoke(JsonNode arguments, ToolContext context) {
+            Object[] values = new Object[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                ParameterDecoder parameter = parameters[i];
+                if (parameter.context()) {
+                    values[i] = context != null ? context : NO_CONTEXT;
+                    continue;
+                }
+                JsonNode value = arguments.get(parameter.name());
+                if (value == null || value.isNull()) {
+                    if (parameter.required()) {
+                        return Mono.just(errorResult("Missing " + parameter.name() + " parameter"));
+                    }
+                    continue;
+                }
+                try {
+                    values[i] = parameter.decode().apply(value);
+                } catch (IllegalArgumentException e) {
+                    return Mono.error(new InvalidParamsException(parameter.name(), e));
+                }
+            }
+
+            if (async) {
+                return Mono.defer(() -> toJson(call(values)));
+            }
+            return Mono.fromCallable(() -> call(values))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .map(ToolRegistry.this::toNode);
+        }
+
+        private Object call(Object[] values) {
+            try {
+                return (Object) invoker.invokeExact(values);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<JsonNode> toJson(Object result) {
+        return ((Mono<Object>) result).map(this::toNode);
+    }
+
+    private JsonNode toNode(Object value) {
+        return value instanceof JsonNode json ? json : mapper.valueToTree(value);
+    }
+
+    private ObjectNode errorResult(String message) {
+        return mapper.createObjectNode().set("error", mapper.createObjectNode().put("message", message));
+    }
+
+    /**
+     * Adapts a tool to Spring AI's synchronous callback contract. Calls are timed like the stdio
+     * runner's, so {@code getServerStats} covers both transports.
+     */
+    private final class SpringAiCallback implements ToolCallback {
+
+        private final RegisteredTool tool;
+
+        SpringAiCallback(RegisteredTool tool) {
+            this.tool = tool;
+        }
+
+        @Override
+        public ToolDefinition getToolDefinition() {
+            return tool.definition();
+        }
+
+        @Override
+        public String call(String toolInput) {
+            return call(toolInput, NO_CONTEXT);
+        }
+
+        @Override
+        public String call(String toolInput, ToolContext toolContext) {
+            ServerMetrics.ToolCall timer = metrics.toolCall(tool.name());
+            try {
+                JsonNode arguments = toolInput == null || toolInput.isBlank()
+                        ? mapper.createObjectNode() : mapper.readTree(toolInput);
+                JsonNode result = tool.invoke(arguments, toolContext).block();
+                timer.finish(result);
+                return mapper.writeValueAsString(result);
+            } catch (Exception e) {
+                timer.failed(e);
+                throw new ToolExecutionException(tool.definition(), e);
+            }
+        }
+    }
+}
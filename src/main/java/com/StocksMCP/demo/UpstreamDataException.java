@@ -0,0 +1,12 @@
+package com.StocksMCP.demo;
+
+/**
+ * Thrown when Alpha Vantage answers without the data that was asked for, for example with a
+ * rate-limit notice or an unknown symbol.
+ */
+public class UpstreamDataException extends RuntimeException {
+
+    public UpstreamDataException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.StocksMCP.demo;
+
+/**
+ * Scheduling class of an upstream call. When the quota is the bottleneck, waiting
+ * {@link #INTERACTIVE} calls are always granted before {@link #BULK} ones.
+ */
+public enum UpstreamPriority {
+    INTERACTIVE,
+    BULK
+}
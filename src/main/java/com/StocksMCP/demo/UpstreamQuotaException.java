@@ -0,0 +1,12 @@
+package com.StocksMCP.demo;
+
+/**
+ * Thrown when an upstream call cannot be granted quota, either because it waited longer than
+ * {@code alpha-vantage.max-queue-wait} or because every API key has used up its daily limit.
+ */
+public class UpstreamQuotaException extends RuntimeException {
+
+    public UpstreamQuotaException(String message) {
+        super(message);
+    }
+}
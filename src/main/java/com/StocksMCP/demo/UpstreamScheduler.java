@@ -0,0 +1,321 @@
+package com.StocksMCP.demo;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Grants Alpha Vantage API keys to upstream calls without exceeding the per-minute and per-day
+ * limits of each key.
+ * <p>
+ * Every key has its own token bucket. Waiting calls are granted in priority order (and FIFO within
+ * a priority) by a single dispatcher thread, always from the key with the most tokens left, so
+ * load spreads evenly across the pool.
+ */
+@Component
+public class UpstreamScheduler {
+
+    private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final List<KeyBucket> buckets = new ArrayList<>();
+    private final int requestsPerMinute;
+    private final int requestsPerDay;
+    private final long maxQueueWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<UpstreamPriority, WaitStats> waitStats = new EnumMap<>(UpstreamPriority.class);
+    private final AtomicLong rejected = new AtomicLong();
+    private final Thread dispatcher;
+
+    public UpstreamScheduler(
+            @Value("${alpha-vantage.api-key}") String apiKeys,
+            @Value("${alpha-vantage.requests-per-minute:5}") int requestsPerMinute,
+            @Value("${alpha-vantage.requests-per-day:25}") int requestsPerDay,
+            @Value("${alpha-vantage.max-queue-wait:30s}") Duration maxQueueWait
+    ) {
+        this.requestsPerMinute = requestsPerMinute;
+        this.requestsPerDay = requestsPerDay;
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+
+        List<String> keys = apiKeys == null ? List.of() : Arrays.stream(apiKeys.split(","))
+                .map(String::trim)
+                .filter(key -> !key.isEmpty())
+                .toList();
+        if (keys.isEmpty()) {
+            keys = List.of(apiKeys == null ? "" : apiKeys.trim());
+        }
+        long now = System.nanoTime();
+        for (String key : keys) {
+            buckets.add(new KeyBucket(key, requestsPerMinute, now));
+        }
+        for (UpstreamPriority priority : UpstreamPriority.values()) {
+            waitStats.put(priority, new WaitStats());
+        }
+
+        this.dispatcher = Thread.ofPlatform()
+                .name("alpha-vantage-scheduler")
+                .daemon(true)
+                .start(this::dispatch);
+    }
+
+    /**
+     * Blocks until quota is available for one call of the given priority and returns the API key
+     * to use for it.
+     *
+     * @throws UpstreamQuotaException if no quota could be granted in time
+     */
+    public String acquire(UpstreamPriority priority) {
+        return acquireAsync(priority).block();
+    }
+
+    /**
+     * Emits the API key to use for one call of the given priority once quota is available, without
+     * holding a thread while waiting. Cancelling the subscription gives up the place in the queue.
+     */
+    public Mono<String> acquireAsync(UpstreamPriority priority) {
+        return Mono.defer(() -> {
+            Ticket ticket = new Ticket(priority, sequence.getAndIncrement(), System.nanoTime());
+
+            lock.lock();
+            try {
+                queue.add(ticket);
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            return Mono.fromFuture(ticket.grant, true)
+                    .timeout(Duration.ofNanos(maxQueueWaitNanos), Mono.defer(() -> {
+                        if (!withdraw(ticket)) {
+                            return Mono.fromFuture(ticket.grant, true);
+                        }
+                        rejected.incrementAndGet();
+                        return Mono.error(new UpstreamQuotaException("Timed out after "
+                                + Duration.ofNanos(maxQueueWaitNanos).toSeconds() + "s waiting for Alpha Vantage quota"));
+                    }))
+                    .doOnCancel(() -> withdraw(ticket));
+        });
+    }
+
+    private boolean withdraw(Ticket ticket) {
+        lock.lock();
+        try {
+            return queue.remove(ticket);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatch() {
+        lock.lock();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (queue.isEmpty()) {
+                    changed.await();
+                    continue;
+                }
+
+                long now = System.nanoTime();
+                KeyBucket bucket = selectBucket(now);
+                if (bucket == null) {
+                    if (allKeysExhaustedToday()) {
+                        failQueued("Daily Alpha Vantage request quota exhausted for all API keys");
+                    } else {
+                        changed.awaitNanos(nanosUntilNextToken());
+                    }
+                    continue;
+                }
+
+                Ticket ticket = queue.poll();
+                bucket.take();
+                waitStats.get(ticket.priority).record(now - ticket.enqueuedAt);
+
+                // Granted callers continue on this thread, so never run them while holding the lock.
+                lock.unlock();
+                try {
+                    ticket.grant.complete(bucket.apiKey);
+                } finally {
+                    lock.lock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            failQueued("Alpha Vantage scheduler stopped");
+            lock.unlock();
+        }
+    }
+
+    private KeyBucket selectBucket(long now) {
+        long today = LocalDate.now(ZoneOffset.UTC).toEpochDay();
+        KeyBucket best = null;
+        for (KeyBucket bucket : buckets) {
+            bucket.refill(now, today);
+            if (!bucket.hasQuota()) continue;
+            if (best == null || bucket.tokens > best.tokens) {
+                best = bucket;
+            }
+        }
+        return best;
+    }
+
+    private boolean allKeysExhaustedToday() {
+        if (requestsPerDay <= 0) return false;
+        for (KeyBucket bucket : buckets) {
+            if (bucket.usedToday < requestsPerDay) return false;
+        }
+        return true;
+    }
+
+    private long nanosUntilNextToken() {
+        if (requestsPerMinute <= 0) return TimeUnit.MILLISECONDS.toNanos(10);
+        double missing = Double.MAX_VALUE;
+        for (KeyBucket bucket : buckets) {
+            if (requestsPerDay > 0 && bucket.usedToday >= requestsPerDay) continue;
+            missing = Math.min(missing, 1.0 - bucket.tokens);
+        }
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(1), (long) (missing * NANOS_PER_MINUTE / requestsPerMinute));
+    }
+
+    private void failQueued(String message) {
+        List<Ticket> failed = new ArrayList<>(queue);
+        queue.clear();
+        rejected.addAndGet(failed.size());
+
+        lock.unlock();
+        try {
+            for (Ticket ticket : failed) {
+                ticket.grant.completeExceptionally(new UpstreamQuotaException(message));
+            }
+        } finally {
+            lock.lock();
+        }
+    }
+
+    public int apiKeyCount() {
+        return buckets.size();
+    }
+
+    public int requestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    public int requestsPerDay() {
+        return requestsPerDay;
+    }
+
+    public int queueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long rejected() {
+        return rejected.get();
+    }
+
+    public long granted(UpstreamPriority priority) {
+        return waitStats.get(priority).count.get();
+    }
+
+    public long totalWaitNanos(UpstreamPriority priority) {
+        return waitStats.get(priority).totalNanos.get();
+    }
+
+    public long maxWaitNanos(UpstreamPriority priority) {
+        return waitStats.get(priority).maxNanos.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.interrupt();
+    }
+
+    private final class KeyBucket {
+        final String apiKey;
+        double tokens;
+        long lastRefill;
+        long day;
+        int usedToday;
+
+        KeyBucket(String apiKey, double tokens, long now) {
+            this.apiKey = apiKey;
+            this.tokens = tokens;
+            this.lastRefill = now;
+        }
+
+        void refill(long now, long today) {
+            if (today != day) {
+                day = today;
+                usedToday = 0;
+            }
+            if (requestsPerMinute > 0) {
+                tokens = Math.min(requestsPerMinute, tokens + (now - lastRefill) * requestsPerMinute / NANOS_PER_MINUTE);
+            }
+            lastRefill = now;
+        }
+
+        boolean hasQuota() {
+            return (requestsPerMinute <= 0 || tokens >= 1.0)
+                    && (requestsPerDay <= 0 || usedToday < requestsPerDay);
+        }
+
+        void take() {
+            if (requestsPerMinute > 0) tokens -= 1.0;
+            usedToday++;
+        }
+    }
+
+    private static final class Ticket implements Comparable<Ticket> {
+        final UpstreamPriority priority;
+        final long sequence;
+        final long enqueuedAt;
+        final CompletableFuture<String> grant = new CompletableFuture<>();
+
+        Ticket(UpstreamPriority priority, long sequence, long enqueuedAt) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        @Override
+        public int compareTo(Ticket other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final class WaitStats {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.StocksMCP.demo;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HTTP client for Alpha Vantage: a sized keep-alive connection pool, gzip responses, connect
+ * and read timeouts, a time limit per function and optional hedged requests.
+ * <p>
+ * A call that stalls on one connection is bounded three ways: the connect timeout, the read
+ * timeout (no bytes for that long) and the function's overall timeout,
+ * {@code alpha-vantage.timeouts.<FUNCTION>}, which defaults to {@code alpha-vantage.timeout}.
+ * <p>
+ * With {@code alpha-vantage.hedge.enabled}, a call still unanswered after the
+ * {@code alpha-vantage.hedge.percentile} of its function's recent network times is sent once more
+ * and whichever attempt answers first wins; the other is cancelled. A first attempt that fails
+ * before the hedge delay does not end the call: the hedge is still sent, and the call fails only
+ * if both attempts do. Every Alpha Vantage call is an
+ * idempotent GET, so this is safe, but the second attempt takes quota like any other call, which
+ * is why hedging is off by default.
+ */
+@Component
+public class UpstreamTransport {
+
+    private final String baseUrl;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final int maxConnections;
+    private final Duration maxIdleTime;
+    private final boolean compression;
+    private final boolean hedge;
+    private final double hedgePercentile;
+    private final long hedgeMinDelayNanos;
+    private final int hedgeMinSamples;
+    private final ServerMetrics metrics;
+    private final Map<AlphaVantageFunction, Duration> timeouts = new EnumMap<>(AlphaVantageFunction.class);
+
+    private volatile WebClient webClient;
+
+    public UpstreamTransport(
+            Environment environment,
+            ServerMetrics metrics,
+            @Value("${alpha-vantage.base-url}") String baseUrl,
+            @Value("${alpha-vantage.timeout:30s}") Duration timeout,
+            @Value("${alpha-vantage.connect-timeout:5s}") Duration connectTimeout,
+            @Value("${alpha-vantage.read-timeout:15s}") Duration readTimeout,
+            @Value("${alpha-vantage.pool.max-connections:16}") int maxConnections,
+            @Value("${alpha-vantage.pool.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${alpha-vantage.compression:true}") boolean compression,
+            @Value("${alpha-vantage.hedge.enabled:false}") boolean hedge,
+            @Value("${alpha-vantage.hedge.percentile:0.95}") double hedgePercentile,
+            @Value("${alpha-vantage.hedge.min-delay:100ms}") Duration hedgeMinDelay,
+            @Value("${alpha-vantage.hedge.min-samples:20}") int hedgeMinSamples
+    ) {
+        this.metrics = metrics;
+        this.baseUrl = baseUrl;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.maxConnections = Math.max(1, maxConnections);
+        this.maxIdleTime = maxIdleTime;
+        this.compression = compression;
+        this.hedge = hedge;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelayNanos = hedgeMinDelay.toNanos();
+        this.hedgeMinSamples = Math.max(1, hedgeMinSamples);
+        for (AlphaVantageFunction function : AlphaVantageFunction.values()) {
+            String value = environment.getProperty("alpha-vantage.timeouts." + function.name());
+            timeouts.put(function, value == null || value.isBlank() ? timeout : DurationStyle.detectAndParse(value.trim()));
+        }
+    }
+
+    /**
+     * The client is built on the first upstream call rather than with the service: building it
+     * loads Reactor Netty and the codecs, which a session answering from cache or local data never
+     * needs, and which would otherwise delay the first response of every new process.
+     */
+    public WebClient webClient() {
+        WebClient client = webClient;
+        if (client == null) {
+            synchronized (this) {
+                client = webClient;
+                if (client == null) {
+                    ConnectionProvider pool = ConnectionProvider.builder("alpha-vantage")
+                            .maxConnections(maxConnections)
+                            .maxIdleTime(maxIdleTime)
+                            .evictInBackground(maxIdleTime)
+                            .build();
+                    HttpClient http = HttpClient.create(pool)
+                            .compress(compression)
+                            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                            .option(ChannelOption.SO_KEEPALIVE, true)
+                            .doOnConnected(connection -> connection.addHandlerLast(
+                                    new ReadTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS)));
+                    ExchangeStrategies strategies = ExchangeStrategies.builder()
+                            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(16 * 1024 * 1024)) // 16MB limit
+                            .build();
+
+                    client = WebClient.builder()
+                            .baseUrl(baseUrl)
+                            .clientConnector(new ReactorClientHttpConnector(http))
+                            .exchangeStrategies(strategies)
+                            .build();
+                    webClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * How long one call of {@code function} may take, from the request until the body is read.
+     */
+    public Duration timeout(AlphaVantageFunction function) {
+        return timeouts.get(function);
+    }
+
+    /**
+     * Runs {@code attempt}, subscribing to it a second time if it has not answered within the
+     * hedge delay of {@code function}, and answers with whichever attempt returns a value first.
+     * If both fail, the call fails with the error of the first.
+     */
+    public <T> Mono<T> hedged(AlphaVantageFunction function, Mono<T> attempt) {
+        if (!hedge) return attempt;
+
+        return Mono.defer(() -> {
+            long delay = hedgeDelayNanos(function);
+            if (delay < 0) return attempt;
+
+            Mono<T> second = Mono.delay(Duration.ofNanos(delay))
+                    .flatMap(tick -> {
+                        metrics.upstreamHedged(function);
+                        return attempt;
+                    });
+            return Mono.firstWithValue(attempt, second)
+                    .onErrorMap(NoSuchElementException.class, UpstreamTransport::firstError);
+        });
+    }
+
+    /**
+     * The error of the first attempt, out of the one {@link Mono#firstWithValue} reports when
+     * every attempt failed.
+     */
+    private static Throwable firstError(NoSuchElementException error) {
+        return error.getCause() == null ? error : Exceptions.unwrapMultiple(error.getCause()).get(0);
+    }
+
+    /**
+     * The configured percentile of recent network times of {@code function}, or -1 while there
+     * are too few of them to tell a slow call from a normal one.
+     */
+    long hedgeDelayNanos(AlphaVantageFunction function) {
+        Histogram network = metrics.upstreamNetwork(function);
+        if (network.count() < hedgeMinSamples) return -1;
+        return Math.max(hedgeMinDelayNanos, network.percentile(hedgePercentile));
+    }
+}
@@ -0,0 +1,12 @@
+package com.StocksMCP.demo;
+
+/**
+ * Thrown instead of calling Alpha Vantage while the {@link CircuitBreakers} breaker of the
+ * function is open.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,27 @@
+package com.StocksMCP.demo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Recorded Alpha Vantage responses for IBM, one per function, under {@code /alpha-vantage} on the
+ * test classpath.
+ */
+public final class AlphaVantageFixtures {
+
+	private AlphaVantageFixtures() {
+	}
+
+	public static byte[] load(AlphaVantageFunction function) {
+		String resource = "/alpha-vantage/" + function.name() + ".json";
+		try (InputStream in = AlphaVantageFixtures.class.getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new IllegalArgumentException("No fixture " + resource);
+			}
+			return in.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.StocksMCP.demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakersTests {
+
+	private static final AlphaVantageFunction QUOTE = AlphaVantageFunction.GLOBAL_QUOTE;
+
+	private final TestStack stack = TestStack.start();
+	private final ServerMetrics metrics = stack.metrics;
+
+	@AfterEach
+	void tearDown() {
+		stack.close();
+	}
+
+	@Test
+	void opensOnceTheFailureRateIsReached() {
+		CircuitBreakers breakers = breakers(Duration.ofSeconds(10), Duration.ofMinutes(1));
+
+		breakers.tryAcquire(QUOTE).succeeded();
+		breakers.tryAcquire(QUOTE).succeeded();
+		breakers.tryAcquire(QUOTE).failed(new IllegalStateException());
+		assertFalse(breakers.isOpen(QUOTE));
+		breakers.tryAcquire(QUOTE).failed(new IllegalStateException());
+
+		assertTrue(breakers.isOpen(QUOTE));
+		assertNull(breakers.tryAcquire(QUOTE));
+		assertFalse(breakers.isOpen(AlphaVantageFunction.OVERVIEW));
+		assertEquals(1, metrics.snapshot().get("dispatch").get("openCircuits").asInt());
+	}
+
+	@Test
+	void opensOnSlowCalls() throws InterruptedException {
+		CircuitBreakers breakers = breakers(Duration.ofMillis(1), Duration.ofMinutes(1));
+
+		for (int i = 0; i < 4; i++) {
+			CircuitBreakers.Permit permit = breakers.tryAcquire(QUOTE);
+			permit.started();
+			Thread.sleep(5);
+			permit.succeeded();
+		}
+
+		assertTrue(breakers.isOpen(QUOTE));
+	}
+
+	@Test
+	void ignoresCallsThatNeverGotQuota() {
+		CircuitBreakers breakers = breakers(Duration.ofSeconds(10), Duration.ofMinutes(1));
+
+		for (int i = 0; i < 10; i++) {
+			breakers.tryAcquire(QUOTE).failed(new UpstreamQuotaException("no quota"));
+		}
+
+		assertFalse(breakers.isOpen(QUOTE));
+	}
+
+	@Test
+	void closesAfterSuccessfulTrialsAndReopensOnAFailedOne() throws InterruptedException {
+		CircuitBreakers breakers = breakers(Duration.ofSeconds(10), Duration.ofMillis(50));
+		trip(breakers);
+		Thread.sleep(60);
+
+		assertFalse(breakers.isOpen(QUOTE));
+		CircuitBreakers.Permit first = breakers.tryAcquire(QUOTE);
+		CircuitBreakers.Permit second = breakers.tryAcquire(QUOTE);
+		assertNotNull(second);
+		assertNull(breakers.tryAcquire(QUOTE));
+		assertEquals(CircuitBreakers.State.HALF_OPEN, breakers.state(QUOTE));
+		first.succeeded();
+		second.succeeded();
+		assertEquals(CircuitBreakers.State.CLOSED, breakers.state(QUOTE));
+
+		trip(breakers);
+		Thread.sleep(60);
+		breakers.tryAcquire(QUOTE).release();
+		breakers.tryAcquire(QUOTE).failed(new IllegalStateException());
+		assertEquals(CircuitBreakers.State.OPEN, breakers.state(QUOTE));
+	}
+
+	private void trip(CircuitBreakers breakers) {
+		for (int i = 0; i < 4; i++) {
+			breakers.tryAcquire(QUOTE).failed(new IllegalStateException());
+		}
+		assertEquals(CircuitBreakers.State.OPEN, breakers.state(QUOTE));
+	}
+
+	private CircuitBreakers breakers(Duration slowCall, Duration openFor) {
+		return new CircuitBreakers(metrics, true, 10, 4, 0.5, slowCall, 0.5, openFor, 2);
+	}
+}
@@ -0,0 +1,267 @@
+package com.StocksMCP.demo;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local stand-in for the Alpha Vantage API. Every function is answered with its recorded fixture
+ * (see {@link AlphaVantageFixtures}) for any symbol, after a configurable latency and jitter, and
+ * a configurable share of calls fails with an HTTP 500 or with the rate-limit notice Alpha Vantage
+ * sends in place of data. Bodies are gzipped for clients that accept it.
+ * <p>
+ * Point {@code alpha-vantage.base-url} at {@link #baseUrl()}. To run it on its own:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.StocksMCP.demo.FakeAlphaVantageServer \
+ *     -Dexec.args="--port=8089 --latency=80ms --jitter=40ms --error-rate=0.01 --rate-limit-rate=0.02"
+ * </pre>
+ */
+public final class FakeAlphaVantageServer implements AutoCloseable {
+
+	static final String RATE_LIMIT_MESSAGE = "Thank you for using Alpha Vantage! Our standard API rate limit is 25 requests per day.";
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final Map<AlphaVantageFunction, byte[]> fixtures = Collections.synchronizedMap(new EnumMap<>(AlphaVantageFunction.class));
+
+	private volatile Duration latency = Duration.ZERO;
+	private volatile Duration jitter = Duration.ZERO;
+	private volatile double errorRate;
+	private volatile double rateLimitRate;
+	private volatile Duration stall = Duration.ZERO;
+	private final AtomicInteger stalls = new AtomicInteger();
+	private final AtomicInteger failures = new AtomicInteger();
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicInteger peakActive = new AtomicInteger();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong rateLimited = new AtomicLong();
+	private final AtomicLong gzipped = new AtomicLong();
+	private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+	private volatile String lastQuery;
+
+	public FakeAlphaVantageServer(int port) {
+		for (AlphaVantageFunction function : AlphaVantageFunction.values()) {
+			fixtures.put(function, AlphaVantageFixtures.load(function));
+		}
+		try {
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		server.createContext("/query", this::handle);
+		server.setExecutor(executor);
+	}
+
+	public static FakeAlphaVantageServer start() {
+		return new FakeAlphaVantageServer(0).begin();
+	}
+
+	public FakeAlphaVantageServer begin() {
+		server.start();
+		return this;
+	}
+
+	public String baseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/query";
+	}
+
+	public FakeAlphaVantageServer latency(Duration latency, Duration jitter) {
+		this.latency = latency;
+		this.jitter = jitter;
+		return this;
+	}
+
+	/**
+	 * Answers {@code function} with {@code body} from now on instead of its recorded fixture.
+	 */
+	public FakeAlphaVantageServer fixture(AlphaVantageFunction function, String body) {
+		fixtures.put(function, body.getBytes(StandardCharsets.UTF_8));
+		return this;
+	}
+
+	public FakeAlphaVantageServer errorRate(double errorRate) {
+		this.errorRate = errorRate;
+		return this;
+	}
+
+	public FakeAlphaVantageServer rateLimitRate(double rateLimitRate) {
+		this.rateLimitRate = rateLimitRate;
+		return this;
+	}
+
+	/**
+	 * Holds each of the next {@code count} requests for {@code stall} on top of the latency.
+	 */
+	public FakeAlphaVantageServer stallNext(int count, Duration stall) {
+		this.stall = stall;
+		stalls.set(count);
+		return this;
+	}
+
+	/**
+	 * Answers each of the next {@code count} requests with a server error at once, skipping the
+	 * latency.
+	 */
+	public FakeAlphaVantageServer failNext(int count) {
+		failures.set(count);
+		return this;
+	}
+
+	public long requests() {
+		return requests.get();
+	}
+
+	public long errors() {
+		return errors.get();
+	}
+
+	public long rateLimited() {
+		return rateLimited.get();
+	}
+
+	public long gzipped() {
+		return gzipped.get();
+	}
+
+	/**
+	 * The most requests that were being handled at the same time.
+	 */
+	public int peakConcurrency() {
+		return peakActive.get();
+	}
+
+	/**
+	 * The number of distinct client connections requests arrived on.
+	 */
+	public int connections() {
+		return connections.size();
+	}
+
+	/**
+	 * The query string of the latest request, or {@code null} before the first.
+	 */
+	public String lastQuery() {
+		return lastQuery;
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+		try {
+			answer(exchange);
+		} finally {
+			active.decrementAndGet();
+		}
+	}
+
+	private void answer(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		connections.add(exchange.getRemoteAddress());
+		lastQuery = exchange.getRequestURI().getRawQuery();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		if (failures.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+			errors.incrementAndGet();
+			respond(exchange, 500, "{\"error\": \"Internal Server Error\"}".getBytes(StandardCharsets.UTF_8));
+			return;
+		}
+
+		long delayNanos = latency.toNanos();
+		if (!jitter.isZero()) {
+			delayNanos += random.nextLong(-jitter.toNanos(), jitter.toNanos() + 1);
+		}
+		if (stalls.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+			delayNanos += stall.toNanos();
+		}
+		if (delayNanos > 0) {
+			try {
+				Thread.sleep(Duration.ofNanos(delayNanos));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		double roll = random.nextDouble();
+		if (roll < errorRate) {
+			errors.incrementAndGet();
+			respond(exchange, 500, "{\"error\": \"Internal Server Error\"}".getBytes(StandardCharsets.UTF_8));
+		} else if (roll < errorRate + rateLimitRate) {
+			rateLimited.incrementAndGet();
+			respond(exchange, 200, ("{\"Information\": \"" + RATE_LIMIT_MESSAGE + "\"}").getBytes(StandardCharsets.UTF_8));
+		} else {
+			byte[] fixture = fixtures.get(function(exchange.getRequestURI().getRawQuery()));
+			respond(exchange, 200, fixture != null ? fixture
+					: "{\"Error Message\": \"Invalid API call.\"}".getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private static AlphaVantageFunction function(String query) {
+		if (query == null) return null;
+		for (String parameter : query.split("&")) {
+			if (parameter.startsWith("function=")) {
+				try {
+					return AlphaVantageFunction.valueOf(parameter.substring("function=".length()));
+				} catch (IllegalArgumentException e) {
+					return null;
+				}
+			}
+		}
+		return null;
+	}
+
+	private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		if (accepted != null && accepted.contains("gzip")) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+			try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+				gzip.write(body);
+			}
+			body = compressed.toByteArray();
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+			gzipped.incrementAndGet();
+		}
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		Map<String, String> options = LoadGenerator.options(args);
+		FakeAlphaVantageServer server = new FakeAlphaVantageServer(Integer.parseInt(options.getOrDefault("port", "8089")))
+				.latency(LoadGenerator.duration(options.getOrDefault("latency", "0ms")),
+						LoadGenerator.duration(options.getOrDefault("jitter", "0ms")))
+				.errorRate(Double.parseDouble(options.getOrDefault("error-rate", "0")))
+				.rateLimitRate(Double.parseDouble(options.getOrDefault("rate-limit-rate", "0")))
+				.begin();
+		System.out.println("Fake Alpha Vantage listening on " + server.baseUrl());
+		Thread.currentThread().join();
+	}
+}
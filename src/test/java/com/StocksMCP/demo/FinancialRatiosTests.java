@@ -0,0 +1,118 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FinancialRatiosTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	void computesRatiosAndGrowthAlignedByFiscalYear() throws Exception {
+		StatementTable income = table(ReportSchemas.INCOME_STATEMENT, """
+				[{"fiscalDateEnding": "2024-12-31", "reportedCurrency": "USD", "totalRevenue": 1000, "grossProfit": 600,
+				  "operatingIncome": 200, "netIncome": 150, "ebit": 220, "ebitda": 300, "interestExpense": 20},
+				 {"fiscalDateEnding": "2023-12-31", "reportedCurrency": "USD", "totalRevenue": 800, "grossProfit": 480,
+				  "operatingIncome": 160, "netIncome": -50, "ebit": 170, "ebitda": 250, "interestExpense": 0}]
+				""");
+		// The balance sheet lists the years in another order and lacks 2023.
+		StatementTable balance = table(ReportSchemas.BALANCE_SHEET, """
+				[{"fiscalDateEnding": "2022-12-31", "totalAssets": 1},
+				 {"fiscalDateEnding": "2024-12-31", "totalAssets": 2000, "totalCurrentAssets": 500, "totalCurrentLiabilities": 250,
+				  "totalShareholderEquity": 750, "shortLongTermDebtTotal": 0, "longTermDebt": 400, "shortTermDebt": 50}]
+				""");
+		StatementTable cashFlow = table(ReportSchemas.CASH_FLOW, """
+				[{"fiscalDateEnding": "2024-12-31", "operatingCashflow": 250, "capitalExpenditures": 50},
+				 {"fiscalDateEnding": "2023-12-31", "operatingCashflow": 180, "capitalExpenditures": 80}]
+				""");
+
+		ObjectNode ratios = FinancialRatios.compute(mapper, income, balance, cashFlow, 5);
+
+		assertEquals("USD", ratios.get("currency").asText());
+		assertEquals(2, ratios.get("rows").size());
+		JsonNode latest = row(ratios, 0);
+		assertEquals("2024-12-31", latest.get("fiscalDateEnding").asText());
+		assertEquals(200, latest.get("freeCashFlow").asLong());
+		assertEquals(0.6, latest.get("grossMargin").asDouble());
+		assertEquals(0.2, latest.get("freeCashFlowMargin").asDouble());
+		assertEquals(0.2, latest.get("returnOnEquity").asDouble());
+		assertEquals(2.0, latest.get("currentRatio").asDouble());
+		assertEquals(0.6, latest.get("debtToEquity").asDouble());
+		assertEquals(11.0, latest.get("interestCoverage").asDouble());
+		assertEquals(0.25, latest.get("revenueGrowth").asDouble());
+		assertEquals(4.0, latest.get("netIncomeGrowth").asDouble());
+		assertEquals(1.0, latest.get("freeCashFlowGrowth").asDouble());
+
+		JsonNode oldest = row(ratios, 1);
+		assertTrue(oldest.get("returnOnEquity").isNull());
+		assertTrue(oldest.get("interestCoverage").isNull());
+		assertTrue(oldest.get("revenueGrowth").isNull());
+		assertEquals(-0.0625, oldest.get("netMargin").asDouble());
+	}
+
+	@Test
+	void limitsTheTableToTheYearsAskedFor() throws Exception {
+		StatementTable income = table(ReportSchemas.INCOME_STATEMENT, """
+				[{"fiscalDateEnding": "2024-12-31", "totalRevenue": 110}, {"fiscalDateEnding": "2023-12-31", "totalRevenue": 100}]
+				""");
+		StatementTable empty = table(ReportSchemas.BALANCE_SHEET, "[]");
+
+		ObjectNode ratios = FinancialRatios.compute(mapper, income, empty, table(ReportSchemas.CASH_FLOW, "[]"), 1);
+
+		assertEquals(1, ratios.get("rows").size());
+		assertEquals(0.1, row(ratios, 0).get("revenueGrowth").asDouble());
+		assertTrue(row(ratios, 0).get("freeCashFlow").isNull());
+	}
+
+	@Test
+	void leavesWhatNeedsAnAmountReportedAsNoneEmpty() {
+		StatementTable income = decode(ReportSchemas.INCOME_STATEMENT, """
+				{"annualReports": [{"fiscalDateEnding": "2024-12-31", "totalRevenue": "1000", "grossProfit": "None",
+				  "operatingIncome": "200", "netIncome": "150"}]}
+				""");
+		StatementTable balance = decode(ReportSchemas.BALANCE_SHEET, """
+				{"annualReports": [{"fiscalDateEnding": "2024-12-31", "totalShareholderEquity": "750",
+				  "shortLongTermDebtTotal": "None", "longTermDebt": "None", "shortTermDebt": "None"}]}
+				""");
+		StatementTable cashFlow = decode(ReportSchemas.CASH_FLOW, """
+				{"annualReports": [{"fiscalDateEnding": "2024-12-31", "operatingCashflow": "250", "capitalExpenditures": "None"}]}
+				""");
+
+		JsonNode latest = row(FinancialRatios.compute(mapper, income, balance, cashFlow, 1), 0);
+
+		assertTrue(latest.get("freeCashFlow").isNull(), latest.toString());
+		assertTrue(latest.get("freeCashFlowMargin").isNull(), latest.toString());
+		assertTrue(latest.get("grossMargin").isNull(), latest.toString());
+		assertTrue(latest.get("debtToEquity").isNull(), latest.toString());
+		assertEquals(0.2, latest.get("operatingMargin").asDouble());
+		assertEquals(0.2, latest.get("returnOnEquity").asDouble());
+	}
+
+	private StatementTable decode(ReportSchema schema, String body) {
+		ReportStreamDecoder<StatementTable.Builder> decoder = new ReportStreamDecoder<>(schema, null, new StatementTable.Builder(schema));
+		decoder.feed(ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8)));
+		decoder.finish();
+		return decoder.rows().build();
+	}
+
+	private StatementTable table(ReportSchema schema, String rows) throws Exception {
+		return StatementTable.fromJson(schema, mapper.readTree(rows));
+	}
+
+	private static JsonNode row(ObjectNode ratios, int index) {
+		ObjectNode row = new ObjectMapper().createObjectNode();
+		JsonNode columns = ratios.get("columns");
+		for (int i = 0; i < columns.size(); i++) {
+			row.set(columns.get(i).asText(), ratios.get("rows").get(index).get(i));
+		}
+		return row;
+	}
+}
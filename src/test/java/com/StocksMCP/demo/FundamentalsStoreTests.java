@@ -0,0 +1,146 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FundamentalsStoreTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void servesLatestRecordAfterRestart() throws IOException {
+		Path file = dir.resolve("fundamentals.log");
+		CacheKey key = CacheKey.of(AlphaVantageFunction.OVERVIEW, "AAPL");
+
+		FundamentalsStore first = new FundamentalsStore(true, file, Duration.ofDays(30));
+		first.put(key, result(1));
+		first.put(key, result(2));
+		first.close();
+
+		FundamentalsStore second = new FundamentalsStore(true, file, Duration.ofDays(30));
+		assertEquals(result(2), second.get(key).value());
+		assertNull(second.get(CacheKey.of(AlphaVantageFunction.OVERVIEW, "MSFT")));
+		second.close();
+	}
+
+	@Test
+	void restoresStatementTables() throws IOException {
+		Path file = dir.resolve("fundamentals.log");
+		CacheKey key = CacheKey.of(AlphaVantageFunction.CASH_FLOW, "AAPL", 1);
+		StatementTable.Builder builder = new StatementTable.Builder(ReportSchemas.CASH_FLOW);
+		builder.startRow();
+		builder.text(ReportSchemas.CASH_FLOW.indexOf("fiscalDateEnding"), "2024-09-30");
+		builder.number(ReportSchemas.CASH_FLOW.indexOf("operatingCashflow"), 1.18254E11);
+		builder.endRow();
+
+		FundamentalsStore first = new FundamentalsStore(true, file, Duration.ofDays(30));
+		first.put(key, builder.build());
+		first.close();
+
+		FundamentalsStore second = new FundamentalsStore(true, file, Duration.ofDays(30));
+		StatementTable table = (StatementTable) second.get(key).value();
+		assertEquals("2024-09-30", table.text("fiscalDateEnding", 0));
+		assertEquals(1.18254E11, table.number("operatingCashflow", 0));
+		second.close();
+	}
+
+	@Test
+	void skipsFunctionsThatAreNotPersisted() throws IOException {
+		FundamentalsStore store = new FundamentalsStore(true, dir.resolve("fundamentals.log"), Duration.ofDays(30));
+		CacheKey key = CacheKey.of(AlphaVantageFunction.GLOBAL_QUOTE, "AAPL");
+
+		store.put(key, result(1));
+
+		assertNull(store.get(key));
+		assertEquals(0, store.writes());
+		store.close();
+	}
+
+	@Test
+	void dropsTornTailRecord() throws IOException {
+		Path file = dir.resolve("fundamentals.log");
+		CacheKey key = CacheKey.of(AlphaVantageFunction.OVERVIEW, "MSFT");
+
+		FundamentalsStore first = new FundamentalsStore(true, file, Duration.ofDays(30));
+		first.put(key, result(1));
+		first.close();
+		long intact = Files.size(file);
+		Files.write(file, new byte[] {0, 0, 1, 0, 0, 0}, StandardOpenOption.APPEND);
+
+		FundamentalsStore second = new FundamentalsStore(true, file, Duration.ofDays(30));
+		assertEquals(result(1), second.get(key).value());
+		assertEquals(intact, Files.size(file));
+		second.close();
+	}
+
+	@Test
+	void keepsEveryRecordOfTwoStoresSharingTheFile() throws Exception {
+		Path file = dir.resolve("fundamentals.log");
+		FundamentalsStore first = new FundamentalsStore(true, file, Duration.ofDays(30));
+		FundamentalsStore second = new FundamentalsStore(true, file, Duration.ofDays(30));
+
+		try (ExecutorService writers = Executors.newFixedThreadPool(2)) {
+			writers.submit(() -> putAll(first, "A"));
+			writers.submit(() -> putAll(second, "B"));
+		}
+		first.close();
+		second.close();
+
+		FundamentalsStore reopened = new FundamentalsStore(true, file, Duration.ofDays(30));
+		for (int i = 0; i < 200; i++) {
+			assertEquals(result(i), reopened.get(CacheKey.of(AlphaVantageFunction.OVERVIEW, "A" + i)).value());
+			assertEquals(result(i), reopened.get(CacheKey.of(AlphaVantageFunction.OVERVIEW, "B" + i)).value());
+		}
+		assertEquals(400, reopened.size());
+		reopened.close();
+	}
+
+	@Test
+	void appendsToTheCompactedFileAfterAnotherStoreReplacedIt() throws IOException {
+		Path file = dir.resolve("fundamentals.log");
+		CacheKey large = CacheKey.of(AlphaVantageFunction.OVERVIEW, "AAPL");
+		FundamentalsStore writer = new FundamentalsStore(true, file, Duration.ofDays(30));
+		for (int i = 0; i < 12; i++) {
+			writer.put(large, mapper.createObjectNode().put("padding", "x".repeat(128 * 1024)).put("version", i));
+		}
+
+		FundamentalsStore compacting = new FundamentalsStore(true, file, Duration.ofDays(30));
+		assertEquals(11, ((JsonNode) compacting.get(large).value()).get("version").asInt());
+		assertTrue(Files.size(file) < 1024 * 1024, "compacted to " + Files.size(file));
+		writer.put(CacheKey.of(AlphaVantageFunction.OVERVIEW, "MSFT"), result(1));
+		writer.close();
+		compacting.close();
+
+		FundamentalsStore reopened = new FundamentalsStore(true, file, Duration.ofDays(30));
+		assertEquals(result(1), reopened.get(CacheKey.of(AlphaVantageFunction.OVERVIEW, "MSFT")).value());
+		assertEquals(11, ((JsonNode) reopened.get(large).value()).get("version").asInt());
+		reopened.close();
+	}
+
+	private void putAll(FundamentalsStore store, String prefix) {
+		for (int i = 0; i < 200; i++) {
+			store.put(CacheKey.of(AlphaVantageFunction.OVERVIEW, prefix + i), result(i));
+		}
+	}
+
+	private JsonNode result(int version) {
+		return mapper.createObjectNode().put("symbol", "AAPL").put("version", version);
+	}
+}
@@ -0,0 +1,38 @@
+package com.StocksMCP.demo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTests {
+
+	@Test
+	void reportsPercentilesWithinBucketPrecision() {
+		Histogram histogram = new Histogram();
+		for (long value = 1; value <= 100_000; value++) {
+			histogram.record(value * 1_000);
+		}
+
+		assertEquals(100_000, histogram.count());
+		assertEquals(100_000_000, histogram.max());
+		assertWithin(50_000_000, histogram.percentile(0.50));
+		assertWithin(99_000_000, histogram.percentile(0.99));
+		assertEquals(100_000_000, histogram.percentile(1.0));
+	}
+
+	@Test
+	void bucketsCoverEveryValueInOrder() {
+		long previous = -1;
+		for (int bucket = 0; bucket < Histogram.bucket(Long.MAX_VALUE); bucket++) {
+			long lower = Histogram.lowerBound(bucket);
+			assertTrue(lower > previous, "bucket " + bucket);
+			assertEquals(bucket, Histogram.bucket(lower));
+			previous = lower;
+		}
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue(Math.abs(actual - expected) <= expected / 16, "expected ~" + expected + " but was " + actual);
+	}
+}
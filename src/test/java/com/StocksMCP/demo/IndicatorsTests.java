@@ -0,0 +1,53 @@
+package com.StocksMCP.demo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndicatorsTests {
+
+	private static final double[] CLOSES = {
+			44.34, 44.09, 44.15, 43.61, 44.33, 44.83, 45.10, 45.42, 45.84, 46.08,
+			45.89, 46.03, 45.61, 46.28, 46.28, 46.00, 46.03, 46.41, 46.22, 45.64
+	};
+
+	@Test
+	void averagesStartOnceTheyHaveAFullPeriod() {
+		assertArrayEquals(new double[]{Double.NaN, Double.NaN, 2, 3, 4}, Indicators.sma(new double[]{1, 2, 3, 4, 5}, 3));
+		// Seeded with the first simple average, then smoothed by 2 / (3 + 1).
+		assertArrayEquals(new double[]{Double.NaN, Double.NaN, 2, 3, 4}, Indicators.ema(new double[]{1, 2, 3, 4, 5}, 3));
+		assertArrayEquals(new double[]{Double.NaN, Double.NaN, 2, 6, 8}, Indicators.ema(new double[]{1, 2, 3, 10, 10}, 3));
+	}
+
+	@Test
+	void computesWilderRsi() {
+		double[] rsi = Indicators.rsi(CLOSES, 14);
+
+		assertTrue(Double.isNaN(rsi[13]));
+		assertEquals(70.46, rsi[14], 0.01);
+		assertEquals(66.25, rsi[15], 0.01);
+		assertEquals(50.0, Indicators.rsi(new double[]{5, 5, 5}, 2)[2]);
+		assertEquals(100.0, Indicators.rsi(new double[]{1, 2, 3}, 2)[2]);
+	}
+
+	@Test
+	void computesMacdAndVolatility() {
+		double[] rising = new double[60];
+		for (int i = 0; i < rising.length; i++) {
+			rising[i] = 100 * Math.pow(1.01, i);
+		}
+
+		double[][] macd = Indicators.macd(rising, 12, 26, 9);
+		double[] volatility = Indicators.volatility(rising, 20);
+
+		assertTrue(Double.isNaN(macd[0][24]));
+		assertTrue(macd[0][25] > 0);
+		assertTrue(Double.isNaN(macd[1][32]));
+		assertEquals(macd[0][59] - macd[1][59], macd[2][59], 1e-12);
+		// Constant daily returns have no volatility.
+		assertTrue(Double.isNaN(volatility[19]));
+		assertEquals(0.0, volatility[20], 1e-6);
+	}
+}
@@ -0,0 +1,206 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the stdio JSON-RPC protocol of a server process with a weighted mix of tool calls and
+ * reports throughput and latency percentiles. Upstream calls go to an embedded
+ * {@link FakeAlphaVantageServer}.
+ * <p>
+ * Requests are sent open-loop at {@code --rate} per second, and latency is measured from when a
+ * request was due rather than when it was written, so a stalled server is not hidden by a stalled
+ * client. {@code --concurrency} caps the requests outstanding at once.
+ * <pre>
+ * mvn package -DskipTests
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.StocksMCP.demo.LoadGenerator \
+ *     -Dexec.args="--rate=200 --duration=60s --symbols=500 --upstream-latency=80ms"
+ * </pre>
+ * Options, with defaults: {@code --command="java -jar target/demo-0.0.1-SNAPSHOT.jar"},
+ * {@code --rate=100}, {@code --concurrency=256}, {@code --duration=30s}, {@code --warmup=5s},
+ * {@code --symbols=100}, {@code --limit=5}, {@code --mix=getStockPrice:50,...},
+ * {@code --upstream-latency=50ms}, {@code --upstream-jitter=25ms}, {@code --error-rate=0},
+ * {@code --rate-limit-rate=0}.
+ */
+public final class LoadGenerator {
+
+	private static final String DEFAULT_MIX = "getStockPrice:50,getCompanyOverview:15,getStockNews:10,getIncomeStatement:8,"
+			+ "getBalanceSheet:5,getCashFlow:5,getInsiderTransactions:4,getEarningsEstimates:3";
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final Map<String, Long> outstanding = new ConcurrentHashMap<>();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private long[] latencies = new long[1 << 16];
+	private int recorded;
+	private volatile long measureFrom;
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = options(args);
+		try (FakeAlphaVantageServer upstream = FakeAlphaVantageServer.start()
+				.latency(duration(options.getOrDefault("upstream-latency", "50ms")),
+						duration(options.getOrDefault("upstream-jitter", "25ms")))
+				.errorRate(Double.parseDouble(options.getOrDefault("error-rate", "0")))
+				.rateLimitRate(Double.parseDouble(options.getOrDefault("rate-limit-rate", "0")))) {
+			new LoadGenerator().run(options, upstream);
+		}
+	}
+
+	private void run(Map<String, String> options, FakeAlphaVantageServer upstream) throws Exception {
+		List<String> command = new ArrayList<>(Arrays.asList(
+				options.getOrDefault("command", "java -jar target/demo-0.0.1-SNAPSHOT.jar").split(" ")));
+		command.add("--alpha-vantage.base-url=" + upstream.baseUrl());
+		command.add("--alpha-vantage.api-key=load-test");
+		command.add("--alpha-vantage.requests-per-minute=0");
+		command.add("--alpha-vantage.requests-per-day=0");
+		command.add("--alpha-vantage.store.enabled=false");
+
+		double rate = Double.parseDouble(options.getOrDefault("rate", "100"));
+		int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "256"));
+		Duration duration = duration(options.getOrDefault("duration", "30s"));
+		Duration warmup = duration(options.getOrDefault("warmup", "5s"));
+		int symbols = Integer.parseInt(options.getOrDefault("symbols", "100"));
+		int limit = Integer.parseInt(options.getOrDefault("limit", "5"));
+		String[] mix = mix(options.getOrDefault("mix", DEFAULT_MIX));
+
+		Process server = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+		BufferedWriter stdin = new BufferedWriter(new OutputStreamWriter(server.getOutputStream(), StandardCharsets.UTF_8));
+		Semaphore permits = new Semaphore(concurrency);
+		Thread reader = Thread.ofPlatform().name("load-reader").start(() -> read(server, permits));
+
+		send(stdin, "probe", "getStockPrice", "IBM", limit, System.nanoTime());
+		while (outstanding.containsKey("probe")) {
+			if (!server.isAlive()) throw new IllegalStateException("Server exited with " + server.exitValue());
+			Thread.sleep(50);
+		}
+
+		long start = System.nanoTime();
+		measureFrom = start + warmup.toNanos();
+		long end = measureFrom + duration.toNanos();
+		long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+		long sent = 0;
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		for (long due = start; due < end; due += interval) {
+			long wait = due - System.nanoTime();
+			if (wait > 0) LockSupport.parkNanos(wait);
+			permits.acquire();
+			String method = mix[random.nextInt(mix.length)];
+			send(stdin, Long.toString(sent++), method, "SYM" + random.nextInt(symbols), limit, due);
+		}
+
+		permits.tryAcquire(concurrency, 30, TimeUnit.SECONDS);
+		stdin.close();
+		server.waitFor(30, TimeUnit.SECONDS);
+		server.destroy();
+		reader.join(5000);
+
+		report(sent, duration, upstream);
+	}
+
+	private void send(BufferedWriter stdin, String id, String method, String symbol, int limit, long due) throws IOException {
+		String params = "{\"symbol\":\"" + symbol + "\",\"limit\":" + limit + "}";
+		outstanding.put(id, due);
+		stdin.write("{\"jsonrpc\":\"2.0\",\"id\":\"" + id + "\",\"method\":\"" + method + "\",\"params\":" + params + "}");
+		stdin.newLine();
+		stdin.flush();
+	}
+
+	private void read(Process server, Semaphore permits) {
+		try (BufferedReader stdout = new BufferedReader(new InputStreamReader(server.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = stdout.readLine()) != null) {
+				long now = System.nanoTime();
+				JsonNode response;
+				try {
+					response = mapper.readTree(line);
+				} catch (IOException e) {
+					continue;
+				}
+				String id = response.path("id").asText();
+				Long due = outstanding.remove(id);
+				if (due == null) continue;
+				if (!id.equals("probe")) permits.release();
+				if (due < measureFrom) continue;
+
+				completed.incrementAndGet();
+				if (response.has("error") || response.path("result").has("error")) errors.incrementAndGet();
+				if (recorded == latencies.length) latencies = Arrays.copyOf(latencies, recorded * 2);
+				latencies[recorded++] = now - due;
+			}
+		} catch (IOException e) {
+			System.err.println("Reading server output failed: " + e.getMessage());
+		}
+	}
+
+	private void report(long sent, Duration duration, FakeAlphaVantageServer upstream) {
+		long[] sorted = Arrays.copyOf(latencies, recorded);
+		Arrays.sort(sorted);
+
+		System.out.printf("requests sent        %d (%d unanswered)%n", sent, outstanding.size());
+		System.out.printf("measured responses   %d over %ds, %.1f req/s%n",
+				completed.get(), duration.toSeconds(), completed.get() / (double) duration.toSeconds());
+		System.out.printf("error responses      %d%n", errors.get());
+		System.out.printf("latency ms           p50 %.2f  p90 %.2f  p99 %.2f  p999 %.2f  max %.2f%n",
+				percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+				percentile(sorted, 0.999), percentile(sorted, 1.0));
+		System.out.printf("upstream calls       %d (%d errors, %d rate limited)%n",
+				upstream.requests(), upstream.errors(), upstream.rateLimited());
+	}
+
+	private static double percentile(long[] sorted, double quantile) {
+		if (sorted.length == 0) return Double.NaN;
+		int index = (int) Math.ceil(quantile * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000.0;
+	}
+
+	/**
+	 * Expands {@code method:weight,...} into a table with one slot per unit of weight.
+	 */
+	private static String[] mix(String spec) {
+		List<String> table = new ArrayList<>();
+		for (String entry : spec.split(",")) {
+			String[] parts = entry.trim().split(":");
+			int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+			for (int i = 0; i < weight; i++) {
+				table.add(parts[0]);
+			}
+		}
+		return table.toArray(String[]::new);
+	}
+
+	static Map<String, String> options(String[] args) {
+		Map<String, String> options = new LinkedHashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--")) continue;
+			int equals = arg.indexOf('=');
+			options.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals), equals < 0 ? "true" : arg.substring(equals + 1));
+		}
+		return options;
+	}
+
+	static Duration duration(String value) {
+		return DurationStyle.detectAndParse(value);
+	}
+}
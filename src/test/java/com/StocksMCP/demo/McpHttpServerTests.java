@@ -0,0 +1,68 @@
+package com.StocksMCP.demo;
+
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class McpHttpServerTests {
+
+	private final FakeAlphaVantageServer upstream = FakeAlphaVantageServer.start();
+	private final ConfigurableApplicationContext server = new SpringApplicationBuilder(StockApplication.class)
+			.profiles("http")
+			.run("--server.port=0",
+					"--alpha-vantage.base-url=" + upstream.baseUrl(),
+					"--alpha-vantage.api-key=http-test",
+					"--alpha-vantage.requests-per-minute=0",
+					"--alpha-vantage.requests-per-day=0",
+					"--alpha-vantage.store.enabled=false",
+					"--alpha-vantage.history.enabled=false");
+
+	@AfterEach
+	void tearDown() {
+		server.close();
+		upstream.close();
+	}
+
+	@Test
+	void servesManyClientsFromOneSharedService() {
+		List<McpSyncClient> clients = List.of(client(), client(), client());
+
+		List<McpSchema.CallToolResult> results = clients.stream()
+				.map(client -> CompletableFuture.supplyAsync(() ->
+						client.callTool(new McpSchema.CallToolRequest("getStockPrice", Map.of("symbol", "IBM")))))
+				.toList()
+				.stream()
+				.map(CompletableFuture::join)
+				.toList();
+
+		assertTrue(clients.get(0).listTools().tools().stream().anyMatch(tool -> tool.name().equals("getStockPrice")));
+		for (McpSchema.CallToolResult result : results) {
+			assertFalse(Boolean.TRUE.equals(result.isError()));
+			String text = ((McpSchema.TextContent) result.content().get(0)).text();
+			assertTrue(text.contains("232.65"), text);
+		}
+		assertEquals(1, upstream.requests());
+		assertFalse(server.getBeanProvider(McpServerRunner.class).stream().findAny().isPresent());
+		clients.forEach(McpSyncClient::closeGracefully);
+	}
+
+	private McpSyncClient client() {
+		String port = server.getEnvironment().getProperty("local.server.port");
+		McpSyncClient client = McpClient.sync(HttpClientSseClientTransport.builder("http://127.0.0.1:" + port).build()).build();
+		client.initialize();
+		return client;
+	}
+}
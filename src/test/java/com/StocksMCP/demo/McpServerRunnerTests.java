@@ -0,0 +1,135 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class McpServerRunnerTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final TestStack stack = TestStack.start();
+	private final McpServerRunner runner = stack.runner;
+
+	@AfterEach
+	void tearDown() {
+		stack.close();
+	}
+
+	@Test
+	void echoesTheIdWithItsType() {
+		JsonNode numeric = runner.handleRequest(
+				"{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"getStockPrice\",\"params\":{\"symbol\":\"IBM\"}}").block();
+		JsonNode text = runner.handleRequest(
+				"{\"jsonrpc\":\"2.0\",\"id\":\"7\",\"method\":\"getStockPrice\",\"params\":{\"symbol\":\"IBM\"}}").block();
+
+		assertTrue(numeric.get("id").isInt(), numeric.toString());
+		assertEquals(7, numeric.get("id").asInt());
+		assertEquals(232.65, numeric.get("result").get("price").asDouble());
+		assertTrue(text.get("id").isTextual(), text.toString());
+		assertEquals("7", text.get("id").asText());
+	}
+
+	@Test
+	void answersNoNotification() {
+		JsonNode response = runner.handleRequest(
+				"{\"jsonrpc\":\"2.0\",\"method\":\"getStockPrice\",\"params\":{\"symbol\":\"IBM\"}}").block();
+
+		assertNull(response);
+		assertEquals(1, stack.upstream.requests());
+	}
+
+	@Test
+	void reportsStandardErrorCodes() {
+		JsonNode parse = runner.handleRequest("{\"jsonrpc\":").block();
+		JsonNode missing = runner.handleRequest("{\"jsonrpc\":\"2.0\",\"id\":1}").block();
+		JsonNode unknown = runner.handleRequest("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"nope\"}").block();
+		JsonNode batch = runner.handleRequest("[{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"nope\"},"
+				+ "{\"jsonrpc\":\"2.0\",\"method\":\"nope\"}]").block();
+		JsonNode anonymous = runner.handleRequest("{\"jsonrpc\":\"2.0\"}").block();
+		JsonNode anonymousInBatch = runner.handleRequest("[{\"jsonrpc\":\"2.0\"}]").block();
+
+		assertEquals(-32700, parse.get("error").get("code").asInt());
+		assertTrue(parse.get("id").isNull(), parse.toString());
+		assertEquals(-32600, missing.get("error").get("code").asInt());
+		assertEquals(1, missing.get("id").asInt());
+		assertEquals(-32601, unknown.get("error").get("code").asInt());
+		assertEquals("Method not found: nope", unknown.get("error").get("message").asText());
+		assertEquals(1, batch.size());
+		assertEquals(-32601, batch.get(0).get("error").get("code").asInt());
+		assertTrue(batch.get(0).get("id").isInt(), batch.toString());
+		assertEquals(-32600, anonymous.get("error").get("code").asInt());
+		assertTrue(anonymous.get("id").isNull(), anonymous.toString());
+		assertEquals(1, anonymousInBatch.size());
+		assertEquals(-32600, anonymousInBatch.get(0).get("error").get("code").asInt());
+		assertTrue(anonymousInBatch.get(0).get("id").isNull(), anonymousInBatch.toString());
+	}
+
+	@Test
+	void runsTheCallsOfABatchInParallel() {
+		stack.upstream.latency(Duration.ofMillis(300), Duration.ZERO);
+		StringBuilder batch = new StringBuilder("[");
+		for (int id = 1; id <= 4; id++) {
+			batch.append(id == 1 ? "" : ",").append("{\"jsonrpc\":\"2.0\",\"id\":").append(id)
+					.append(",\"method\":\"getStockPrice\",\"params\":{\"symbol\":\"S").append(id).append("\"}}");
+		}
+
+		JsonNode responses = runner.handleRequest(batch.append("]").toString()).block();
+
+		assertEquals(4, responses.size());
+		for (int i = 0; i < 4; i++) {
+			assertEquals(i + 1, responses.get(i).get("id").asInt());
+			assertEquals(232.65, responses.get(i).get("result").get("price").asDouble());
+		}
+		assertEquals(4, stack.upstream.peakConcurrency());
+	}
+
+	@Test
+	void answersInvalidParamsForAnArgumentOfTheWrongShape() {
+		JsonNode response = runner.handleRequest(
+				"{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"getStockPrices\",\"params\":{\"symbols\":\"IBM\"}}").block();
+
+		assertEquals(-32602, response.get("error").get("code").asInt());
+		assertEquals("Invalid params: symbols", response.get("error").get("message").asText());
+		assertEquals(4, response.get("id").asInt());
+	}
+
+	@Test
+	void answersRequestsAsTheyCompleteWithAtMostMaxInFlightRunning() throws Exception {
+		try (TestStack limited = TestStack.start("mcp.dispatch.max-in-flight=2")) {
+			limited.upstream.latency(Duration.ofMillis(100), Duration.ZERO).stallNext(1, Duration.ofMillis(1000));
+			StringBuilder requests = new StringBuilder();
+			for (int id = 1; id <= 6; id++) {
+				requests.append("{\"jsonrpc\":\"2.0\",\"id\":").append(id)
+						.append(",\"method\":\"getStockPrice\",\"params\":{\"symbol\":\"S").append(id).append("\"}}\n");
+			}
+			ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+			limited.runner.serve(new ByteArrayInputStream(requests.toString().getBytes(StandardCharsets.UTF_8)),
+					Channels.newChannel(written));
+
+			List<Integer> ids = new ArrayList<>();
+			for (String line : written.toString(StandardCharsets.UTF_8).split("\n")) {
+				ids.add(mapper.readTree(line).get("id").asInt());
+			}
+			// One of the first two requests is stalled upstream and answered after all the others.
+			assertEquals(List.of(1, 2, 3, 4, 5, 6), ids.stream().sorted().toList());
+			assertTrue(ids.getLast() <= 2, ids.toString());
+			assertEquals(List.of(3, 4, 5, 6), ids.subList(1, 5));
+			assertEquals(6, limited.upstream.requests());
+			assertEquals(2, limited.upstream.peakConcurrency());
+		}
+	}
+}
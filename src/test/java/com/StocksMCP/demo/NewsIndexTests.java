@@ -0,0 +1,129 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NewsIndexTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final NewsIndex index = new NewsIndex(Duration.ofMinutes(1), 4);
+
+	@Test
+	void dropsArticlesItAlreadyHolds() {
+		index.merge("IBM", articles("20250815T100000", "20250815T120000"), null, false, 0);
+		index.merge("IBM", articles("20250815T120000", "20250815T130000"), "20250815T1200", true, 0);
+
+		List<ObjectNode> all = index.after("IBM", null, 10).articles();
+
+		assertEquals(List.of("20250815T130000", "20250815T120000", "20250815T100000"), times(all));
+		assertEquals(1, index.duplicates());
+		assertEquals(3, index.added());
+	}
+
+	@Test
+	void dropsArticlesRepeatedWithinOneSync() {
+		ArrayNode repeated = articles("20250815T100000", "20250815T110000");
+		repeated.add(repeated.get(1).deepCopy());
+
+		index.merge("IBM", repeated, null, false, 0);
+
+		assertEquals(List.of("20250815T110000", "20250815T100000"), times(index.after("IBM", null, 10).articles()));
+		assertEquals(1, index.duplicates());
+	}
+
+	@Test
+	void answersWithTheOldestPageNewerThanTheCursor() {
+		index.merge("IBM", articles("20250815T100000", "20250815T110000", "20250815T110000", "20250815T120000"), null, false, 0);
+
+		NewsIndex.Page oldest = index.after("IBM", "20250815T100000", 1);
+		NewsIndex.Page first = index.after("IBM", NewsIndex.cursor(oldest.articles(), null), 1);
+		NewsIndex.Page second = index.after("IBM", NewsIndex.cursor(first.articles(), null), 1);
+		String last = NewsIndex.cursor(second.articles(), null);
+		NewsIndex.Page none = index.after("IBM", last, 1);
+
+		assertEquals(List.of("20250815T100000"), times(oldest.articles()));
+		assertEquals(List.of("20250815T110000", "20250815T110000"), times(first.articles()));
+		assertTrue(first.more());
+		assertEquals(List.of("20250815T120000"), times(second.articles()));
+		assertFalse(second.more());
+		assertTrue(none.articles().isEmpty());
+		assertEquals(last, NewsIndex.cursor(none.articles(), last));
+	}
+
+	@Test
+	void returnsArticlesPublishedLateAtTheCursorTime() {
+		index.merge("IBM", articles("20250815T100000", "20250815T110000"), null, false, 0);
+		String cursor = NewsIndex.cursor(index.after("IBM", null, 10).articles(), null);
+
+		index.merge("IBM", articles("20250815T110000", "20250815T110000"), "20250815T1100", true, 0);
+		List<ObjectNode> late = index.after("IBM", cursor, 10).articles();
+
+		assertEquals(1, late.size());
+		assertEquals("Article 1 at 20250815T110000", late.get(0).get("title").asText());
+		assertEquals(cursor + "~" + HexFormat.of().toHexDigits(NewsIndex.hash(late.get(0))),
+				NewsIndex.cursor(late, cursor));
+	}
+
+	@Test
+	void syncsFromTheNewestArticleUnlessTheCursorIsOlderThanWhatItHolds() {
+		assertNull(index.timeFrom("IBM", null));
+		assertEquals("20250801T0900", index.timeFrom("IBM", "20250801T090000"));
+		index.merge("IBM", articles("20250815T100000", "20250815T123000"), null, false, 1_000);
+
+		assertEquals("20250815T1230", index.timeFrom("IBM", "20250815T110000"));
+		assertEquals("20250814T0000", index.timeFrom("IBM", "20250814T000000"));
+		assertFalse(index.needsSync("IBM", "20250815T110000", 1_000));
+		assertTrue(index.needsSync("IBM", "20250814T000000", 1_000));
+		assertTrue(index.needsSync("IBM", "20250815T110000", 61_000));
+
+		index.merge("IBM", articles("20250814T080000"), "20250814T0000", true, 2_000);
+		assertFalse(index.needsSync("IBM", "20250814T000000", 2_000));
+	}
+
+	@Test
+	void keepsTheNewestArticlesAndNarrowsWhatItCovers() {
+		index.merge("IBM", articles("20250815T100000", "20250815T110000", "20250815T120000"), "20250815T0000", true, 0);
+		index.merge("IBM", articles("20250815T130000", "20250815T140000"), "20250815T1200", true, 0);
+
+		assertEquals(4, index.after("IBM", null, 10).articles().size());
+		assertTrue(index.needsSync("IBM", "20250815T100000", 0));
+		assertFalse(index.needsSync("IBM", "20250815T110000", 0));
+	}
+
+	@Test
+	void rejectsCursorsThatAreNotTimes() {
+		NewsIndex.checkCursor("20250815T1430");
+		NewsIndex.checkCursor("20250815T143000");
+		NewsIndex.checkCursor("20250815T143000~00000000075bcd15~ffffffffffffffff");
+		assertThrows(IllegalArgumentException.class, () -> NewsIndex.checkCursor("20250815T143000~75bcd15"));
+		assertThrows(IllegalArgumentException.class, () -> NewsIndex.checkCursor("yesterday"));
+	}
+
+	private ArrayNode articles(String... times) {
+		ArrayNode articles = mapper.createArrayNode();
+		for (String time : times) {
+			long earlier = List.of(times).subList(0, articles.size()).stream().filter(time::equals).count();
+			articles.addObject()
+					.put("title", "Article " + earlier + " at " + time)
+					.put("url", "https://news.example.com/" + time + "/" + earlier)
+					.put("time", time);
+		}
+		return articles;
+	}
+
+	private static List<String> times(List<ObjectNode> articles) {
+		return articles.stream().map(article -> article.get("time").asText()).toList();
+	}
+}
@@ -0,0 +1,80 @@
+package com.StocksMCP.demo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PriceHistoryStoreTests {
+
+	private static final int START = (int) LocalDate.of(2020, 1, 1).toEpochDay();
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void appendsOnlyNewBarsAndReadsThemBackAfterRestart() {
+		PriceHistoryStore first = new PriceHistoryStore(true, dir);
+		assertNull(first.read("IBM"));
+		assertEquals(0, first.syncedAt("IBM"));
+
+		assertEquals(100, first.append("IBM", bars(0, 100), 1_000));
+		// A compact refresh overlapping the stored bars adds just the ones past the last.
+		assertEquals(5, first.append("ibm", bars(5, 100), 2_000));
+		first.close();
+
+		PriceHistoryStore second = new PriceHistoryStore(true, dir);
+		PriceHistory history = second.read("IBM");
+		assertEquals(105, history.size());
+		assertEquals(2_000, second.syncedAt("IBM"));
+		assertEquals(LocalDate.ofEpochDay(START), history.date(0));
+		assertEquals(104.0, history.close()[104]);
+		assertEquals(104_000.0, history.volume()[104]);
+		second.close();
+	}
+
+	@Test
+	void growsPastItsInitialCapacity() {
+		PriceHistoryStore first = new PriceHistoryStore(true, dir);
+		first.append("MSFT", bars(0, 1000), 1);
+		first.append("MSFT", bars(0, 3000), 2);
+		first.close();
+
+		PriceHistory history = new PriceHistoryStore(true, dir).read("MSFT");
+		assertEquals(3000, history.size());
+		assertEquals(999.0, history.close()[999]);
+		assertEquals(2999.5, history.high()[2999]);
+		assertEquals(START + 2999, history.lastDay());
+	}
+
+	@Test
+	void keepsBarsInMemoryWhenDisabled() {
+		PriceHistoryStore store = new PriceHistoryStore(false, dir.resolve("unused"));
+		store.append("IBM", bars(0, 2000), 1);
+
+		assertEquals(2000, store.read("IBM").size());
+		assertEquals(1, store.size());
+	}
+
+	private static PriceHistory bars(int from, int count) {
+		int[] dates = new int[count];
+		double[] open = new double[count];
+		double[] high = new double[count];
+		double[] low = new double[count];
+		double[] close = new double[count];
+		double[] volume = new double[count];
+		for (int i = 0; i < count; i++) {
+			dates[i] = START + from + i;
+			close[i] = from + i;
+			open[i] = close[i] - 0.25;
+			high[i] = close[i] + 0.5;
+			low[i] = close[i] - 0.5;
+			volume[i] = (from + i) * 1000.0;
+		}
+		return new PriceHistory(dates, open, high, low, close, volume);
+	}
+}
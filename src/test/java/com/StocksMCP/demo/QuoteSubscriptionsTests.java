@@ -0,0 +1,134 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ToolContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuoteSubscriptionsTests {
+
+	private static final String QUOTE = """
+			{"Global Quote": {"01. symbol": "IBM", "05. price": "%s", "06. volume": "%d", "07. latest trading day": "2025-08-15"}}
+			""";
+
+	private final TestStack stack = TestStack.start("alpha-vantage.cache.ttl.GLOBAL_QUOTE=0s",
+			"alpha-vantage.cache.max-stale.GLOBAL_QUOTE=0s", "mcp.quotes.min-interval=100ms");
+	private final FakeAlphaVantageServer upstream = stack.upstream;
+	private final ServerMetrics metrics = stack.metrics;
+	private final StockService service = stack.service;
+	private final QuoteSubscriptions subscriptions = stack.quoteSubscriptions;
+
+	@AfterEach
+	void tearDown() {
+		stack.close();
+	}
+
+	@Test
+	void pollsEachSymbolOnceForAllSubscribers() throws Exception {
+		List<BlockingQueue<JsonNode>> clients = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			BlockingQueue<JsonNode> received = new LinkedBlockingQueue<>();
+			clients.add(received);
+			subscriptions.subscribeQuotes("ibm, MSFT", context(received::add));
+		}
+		for (BlockingQueue<JsonNode> received : clients) {
+			assertNotNull(received.poll(5, TimeUnit.SECONDS));
+			assertNotNull(received.poll(5, TimeUnit.SECONDS));
+		}
+		Thread.sleep(500);
+
+		assertEquals(2, subscriptions.symbols());
+		assertEquals(10, subscriptions.subscribers());
+		assertTrue(subscriptions.polls() >= 4, subscriptions.polls() + " polls");
+		assertTrue(upstream.requests() <= subscriptions.polls(), upstream.requests() + " requests");
+		assertEquals(20, subscriptions.notifications());
+		for (BlockingQueue<JsonNode> received : clients) {
+			assertTrue(received.isEmpty(), "notified again without a change: " + received);
+		}
+	}
+
+	@Test
+	void notifiesWhenPriceOrVolumeChanges() throws Exception {
+		upstream.fixture(AlphaVantageFunction.GLOBAL_QUOTE, QUOTE.formatted("100.00", 1000));
+		BlockingQueue<JsonNode> received = new LinkedBlockingQueue<>();
+		subscriptions.subscribeQuotes("IBM", context(received::add));
+
+		JsonNode first = received.poll(5, TimeUnit.SECONDS);
+		upstream.fixture(AlphaVantageFunction.GLOBAL_QUOTE, QUOTE.formatted("100.00", 1500));
+		JsonNode second = received.poll(5, TimeUnit.SECONDS);
+		upstream.fixture(AlphaVantageFunction.GLOBAL_QUOTE, QUOTE.formatted("101.25", 1500));
+		JsonNode third = received.poll(5, TimeUnit.SECONDS);
+
+		assertEquals("notifications/quote", first.get("method").asText());
+		assertEquals("IBM", first.get("params").get("symbol").asText());
+		assertNull(first.get("params").get("previousPrice"));
+		assertEquals(1500, second.get("params").get("volume").asInt());
+		assertEquals(1000, second.get("params").get("previousVolume").asInt());
+		assertEquals(101.25, third.get("params").get("price").asDouble());
+		assertEquals(100.0, third.get("params").get("previousPrice").asDouble());
+		assertEquals("2025-08-15", third.get("params").get("latestTradingDay").asText());
+	}
+
+	@Test
+	void stopsPollingWhenTheLastSubscriberLeaves() throws Exception {
+		QuoteSubscriptions.Subscriber first = notification -> {
+		};
+		QuoteSubscriptions.Subscriber second = notification -> {
+		};
+		subscriptions.subscribeQuotes("IBM,MSFT", context(first));
+		JsonNode result = subscriptions.subscribeQuotes("MSFT", context(second));
+		assertEquals("[\"MSFT\"]", result.get("symbols").toString());
+
+		subscriptions.unsubscribeQuotes("IBM", context(first));
+		assertEquals(1, subscriptions.symbols());
+		subscriptions.unsubscribeAll(first);
+		assertEquals(1, subscriptions.symbols());
+		subscriptions.unsubscribeQuotes(null, context(second));
+		assertEquals(0, subscriptions.symbols());
+		assertEquals(0, subscriptions.subscribers());
+
+		long polls = subscriptions.polls();
+		Thread.sleep(300);
+		assertEquals(polls, subscriptions.polls());
+	}
+
+	@Test
+	void stretchesThePollIntervalToStayWithinQuota() {
+		UpstreamScheduler limited = new UpstreamScheduler("key1,key2", 5, 0, Duration.ofSeconds(5));
+		try {
+			QuoteSubscriptions quotes = new QuoteSubscriptions(service, limited, metrics, Duration.ofSeconds(30), 0.5);
+			quotes.shutdown();
+
+			// Half of 2 keys x 5 calls a minute is one poll every 12 seconds.
+			assertEquals(Duration.ofSeconds(30).toNanos(), quotes.spacingNanos(1));
+			assertEquals(Duration.ofSeconds(12).toNanos(), quotes.spacingNanos(50));
+		} finally {
+			limited.shutdown();
+		}
+	}
+
+	@Test
+	void refusesTransportsThatCannotNotify() {
+		JsonNode result = subscriptions.subscribeQuotes("IBM", new ToolContext(Map.of()));
+
+		assertTrue(result.get("error").asText().contains("notifications"), result.toString());
+		assertEquals(0, subscriptions.symbols());
+	}
+
+	private static ToolContext context(QuoteSubscriptions.Subscriber subscriber) {
+		return new ToolContext(Map.of(QuoteSubscriptions.SUBSCRIBER, subscriber));
+	}
+}
@@ -0,0 +1,180 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportStreamDecoderTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	void mapsNewsFeedAcrossChunkBoundaries() {
+		String body = """
+				{"items": "2", "sentiment_score_definition": {"x": [1, 2]}, "feed": [
+				  {"title": "A", "url": "u1", "topics": [{"topic": "Tech"}], "summary": "s1",
+				   "time_published": "20250101T000000", "overall_sentiment_label": "Bullish", "source": "Wire",
+				   "ticker_sentiment": [{"ticker": "AAPL", "relevance_score": "0.9"}, {"ticker": "MSFT"}]},
+				  {"title": "B", "url": "u2"}
+				]}
+				""";
+
+		ReportStreamDecoder<JsonReportRows> decoder = decode(body, ReportSchemas.NEWS_FEED, null, 7,
+				new JsonReportRows(mapper, ReportSchemas.NEWS_FEED));
+		ArrayNode rows = decoder.rows().array();
+
+		assertEquals(2, rows.size());
+		assertEquals("A", rows.get(0).get("title").asText());
+		assertEquals("20250101T000000", rows.get(0).get("time").asText());
+		assertEquals("Bullish", rows.get(0).get("sentiment").asText());
+		assertEquals("[\"AAPL\",\"MSFT\"]", rows.get(0).get("tickers").toString());
+		assertEquals("", rows.get(1).get("summary").asText());
+		assertEquals(0, rows.get(1).get("tickers").size());
+	}
+
+	@Test
+	void stopsReadingOnceLimitIsReached() {
+		String body = """
+				{"symbol": "IBM", "annualReports": [
+				  {"fiscalDateEnding": "2024-12-31", "totalRevenue": "62753000000", "ebit": "None"},
+				  {"fiscalDateEnding": "2023-12-31", "totalRevenue": "61860000000"},
+				  {"fiscalDateEnding": "2022-12-31"
+				""";
+
+		ReportStreamDecoder<StatementTable.Builder> decoder = decode(body, ReportSchemas.INCOME_STATEMENT, 1, 16,
+				new StatementTable.Builder(ReportSchemas.INCOME_STATEMENT));
+		StatementTable table = decoder.rows().build();
+
+		assertTrue(decoder.isDone());
+		assertEquals(1, table.rowCount());
+		assertEquals("2024-12-31", table.text("fiscalDateEnding", 0));
+		assertEquals(6.2753E10, table.number("totalRevenue", 0));
+		assertEquals(Double.NaN, table.number("ebit", 0));
+	}
+
+	@Test
+	void reportsUpstreamMessageWhenThereIsNoData() {
+		String body = "{\"Information\": \"API rate limit reached\"}";
+
+		ReportStreamDecoder<StatementTable.Builder> decoder = decode(body, ReportSchemas.CASH_FLOW, null, 64,
+				new StatementTable.Builder(ReportSchemas.CASH_FLOW));
+
+		assertNull(decoder.rows());
+		assertEquals("API rate limit reached", decoder.upstreamMessage());
+	}
+
+	@Test
+	void mapsSingleRowResponses() {
+		String quote = """
+				{"Global Quote": {"01. symbol": "IBM", "05. price": "231.2500", "06. volume": "123"}}
+				""";
+		String overview = """
+				{"Symbol": "IBM", "AssetType": "Common Stock", "Sectors": ["Tech"], "Country": "USA"}
+				""";
+
+		ReportStreamDecoder<JsonReportRows> quoteDecoder = decode(quote, ReportSchemas.GLOBAL_QUOTE, null, 5,
+				new JsonReportRows(mapper, ReportSchemas.GLOBAL_QUOTE));
+		ReportStreamDecoder<JsonReportRows> overviewDecoder = decode(overview, ReportSchemas.OVERVIEW, null, 5,
+				new JsonReportRows(mapper, ReportSchemas.OVERVIEW));
+		ReportStreamDecoder<JsonReportRows> emptyDecoder = decode("{}", ReportSchemas.OVERVIEW, null, 5,
+				new JsonReportRows(mapper, ReportSchemas.OVERVIEW));
+
+		assertEquals("{\"price\":231.25,\"open\":0.0,\"high\":0.0,\"low\":0.0,\"volume\":123.0,\"latestTradingDay\":\"\",\"previousClose\":0.0,\"change\":0.0,\"changePercent\":\"\"}",
+				quoteDecoder.rows().array().get(0).toString());
+		assertEquals("Common Stock", overviewDecoder.rows().array().get(0).get("assetType").asText());
+		assertEquals("", overviewDecoder.rows().array().get(0).get("industry").asText());
+		assertNull(emptyDecoder.rows());
+	}
+
+	@Test
+	void findsNoRowsInABodyThatIsNotAnObject() {
+		String body = "[{\"Symbol\": \"IBM\"}, [1, 2]]";
+
+		ReportStreamDecoder<JsonReportRows> overview = decode(body, ReportSchemas.OVERVIEW, null, 8,
+				new JsonReportRows(mapper, ReportSchemas.OVERVIEW));
+		ReportStreamDecoder<StatementTable.Builder> statements = decode(body, ReportSchemas.CASH_FLOW, null, 8,
+				new StatementTable.Builder(ReportSchemas.CASH_FLOW));
+
+		assertNull(overview.rows());
+		assertNull(statements.rows());
+	}
+
+	@Test
+	void readsQuarterlyReportsWithTheAnnualSchema() {
+		String body = """
+				{"symbol": "IBM",
+				 "annualReports": [{"fiscalDateEnding": "2024-12-31", "depreciation": "1"}],
+				 "quarterlyReports": [{"fiscalDateEnding": "2025-03-31", "depreciation": "2"},
+				                      {"fiscalDateEnding": "2024-12-31", "depreciation": "3"}]}
+				""";
+		ReportSchema quarterly = ReportSchemas.INCOME_STATEMENT.withArrayField("quarterlyReports");
+
+		StatementTable table = decode(body, quarterly, null, 11, new StatementTable.Builder(quarterly)).rows().build();
+
+		assertEquals(2, table.rowCount());
+		assertEquals("2025-03-31", table.text("fiscalDateEnding", 0));
+		assertEquals(3.0, table.number("depreciation", 1));
+	}
+
+	@Test
+	void readsKeyedRowsWithTheirKeys() {
+		String body = """
+				{"Meta Data": {"2. Symbol": "IBM", "3. Last Refreshed": "2025-08-15"},
+				 "Time Series (Daily)": {
+				   "2025-08-15": {"1. open": "231.3900", "4. close": "232.6500", "5. volume": "3467216"},
+				   "2025-08-14": {"4. close": "230.7900", "9. extra": {"nested": [1, 2]}},
+				   "2025-08-13": {"4. close": "228.8856"}}}
+				""";
+
+		ReportStreamDecoder<StatementTable.Builder> decoder = decode(body, ReportSchemas.TIME_SERIES_DAILY, 2, 7,
+				new StatementTable.Builder(ReportSchemas.TIME_SERIES_DAILY));
+		StatementTable table = decoder.rows().build();
+
+		assertTrue(decoder.isDone());
+		assertEquals(2, table.rowCount());
+		assertEquals("2025-08-15", table.text("date", 0));
+		assertEquals(231.39, table.number("open", 0));
+		assertEquals(3467216.0, table.number("volume", 0));
+		assertEquals("2025-08-14", table.text("date", 1));
+		assertEquals(230.79, table.number("close", 1));
+	}
+
+	@Test
+	void mapsEveryFieldOfTheRecordedFixtures() {
+		for (AlphaVantageFunction function : AlphaVantageFunction.values()) {
+			ReportSchema schema = ReportSchemas.of(function);
+			String body = new String(AlphaVantageFixtures.load(function), StandardCharsets.UTF_8);
+
+			ArrayNode rows = decode(body, schema, null, 8192, new JsonReportRows(mapper, schema)).rows().array();
+
+			assertFalse(rows.isEmpty(), function.name());
+			for (ReportField field : schema.fields()) {
+				boolean seen = false;
+				for (JsonNode row : rows) {
+					seen |= !row.get(field.target()).equals(field.defaultValue());
+				}
+				assertTrue(seen, function + " never fills " + field.target());
+			}
+		}
+	}
+
+	private <R extends ReportRows> ReportStreamDecoder<R> decode(String body, ReportSchema schema, Integer limit,
+			int chunkSize, R rows) {
+		ReportStreamDecoder<R> decoder = new ReportStreamDecoder<>(schema, limit, rows);
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		for (int offset = 0; offset < bytes.length && !decoder.isDone(); offset += chunkSize) {
+			decoder.feed(ByteBuffer.wrap(bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+		}
+		decoder.finish();
+		return decoder;
+	}
+}
@@ -0,0 +1,95 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ResponseCacheTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	void servesFreshEntryWithoutCallingLoader() {
+		ResponseCache cache = new ResponseCache(new MockEnvironment(), noStore(), true, 10);
+		CacheKey key = CacheKey.of(AlphaVantageFunction.OVERVIEW, "AAPL");
+		AtomicInteger loads = new AtomicInteger();
+
+		JsonNode first = cache.get(key, () -> Mono.fromSupplier(() -> result(loads.incrementAndGet()))).block();
+		JsonNode second = cache.get(key, () -> Mono.fromSupplier(() -> result(loads.incrementAndGet()))).block();
+
+		assertSame(first, second);
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.hits());
+	}
+
+	@Test
+	void doesNotCacheErrors() {
+		ResponseCache cache = new ResponseCache(new MockEnvironment(), noStore(), true, 10);
+		CacheKey key = CacheKey.of(AlphaVantageFunction.GLOBAL_QUOTE, "AAPL");
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get(key, () -> Mono.fromSupplier(() -> {
+			loads.incrementAndGet();
+			return mapper.createObjectNode().put("error", "throttled");
+		})).block();
+		cache.get(key, () -> Mono.fromSupplier(() -> result(loads.incrementAndGet()))).block();
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedEntry() {
+		ResponseCache cache = new ResponseCache(new MockEnvironment(), noStore(), true, 2);
+		CacheKey a = CacheKey.of(AlphaVantageFunction.OVERVIEW, "A");
+		CacheKey b = CacheKey.of(AlphaVantageFunction.OVERVIEW, "B");
+		CacheKey c = CacheKey.of(AlphaVantageFunction.OVERVIEW, "C");
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get(a, () -> Mono.fromSupplier(() -> result(loads.incrementAndGet()))).block();
+		cache.get(b, () -> Mono.fromSupplier(() -> result(loads.incrementAndGet()))).block();
+		cache.get(a, () -> Mono.fromSupplier(() -> result(loads.incrementAndGet()))).block();
+		cache.get(c, () -> Mono.fromSupplier(() -> result(loads.incrementAndGet()))).block();
+		cache.get(a, () -> Mono.fromSupplier(() -> result(loads.incrementAndGet()))).block();
+		cache.get(b, () -> Mono.fromSupplier(() -> result(loads.incrementAndGet()))).block();
+
+		assertEquals(4, loads.get());
+		assertEquals(2, cache.evictions());
+	}
+
+	@Test
+	void servesStaleEntryAndRefreshesInBackground() throws InterruptedException {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("alpha-vantage.cache.ttl.GLOBAL_QUOTE", "0s")
+				.withProperty("alpha-vantage.cache.max-stale.GLOBAL_QUOTE", "1h");
+		ResponseCache cache = new ResponseCache(environment, noStore(), true, 10);
+		CacheKey key = CacheKey.of(AlphaVantageFunction.GLOBAL_QUOTE, "AAPL");
+		AtomicInteger loads = new AtomicInteger();
+
+		JsonNode first = cache.get(key, () -> Mono.fromSupplier(() -> result(loads.incrementAndGet()))).block();
+		JsonNode stale = cache.get(key, () -> Mono.fromSupplier(() -> result(loads.incrementAndGet()))).block();
+
+		assertSame(first, stale);
+		assertEquals(1, cache.staleHits());
+		for (int i = 0; i < 100 && loads.get() < 2; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(2, loads.get());
+	}
+
+	private static FundamentalsStore noStore() {
+		return new FundamentalsStore(false, Path.of("unused"), Duration.ZERO);
+	}
+
+	private JsonNode result(int version) {
+		return mapper.createObjectNode().put("version", version);
+	}
+}
@@ -0,0 +1,99 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseWriterTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	void writesEveryResponseAsOneLineFromManyThreads() throws Exception {
+		RecordingChannel channel = new RecordingChannel();
+		AtomicLong bytes = new AtomicLong();
+		ResponseWriter writer = ResponseWriter.start(channel, 1024, null, bytes::addAndGet);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int thread = t;
+			threads.add(Thread.ofPlatform().start(() -> {
+				for (int i = 0; i < 500; i++) {
+					writer.write(mapper.createObjectNode().put("id", thread * 1000 + i).put("text", "é".repeat(i % 300)));
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		writer.close();
+
+		String[] lines = channel.text().split("\n");
+		Set<Integer> ids = new HashSet<>();
+		for (String line : lines) {
+			ids.add(mapper.readTree(line).get("id").asInt());
+		}
+		assertEquals(2000, lines.length);
+		assertEquals(2000, ids.size());
+		assertEquals(channel.bytes.size(), bytes.get());
+		assertTrue(writer.flushes() <= channel.writes.get(), writer.flushes() + " flushes");
+	}
+
+	@Test
+	void echoesRequestsAndResponsesWhenEnabled() throws Exception {
+		ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+		ResponseWriter writer = ResponseWriter.start(new RecordingChannel(), 1024,
+				new PrintStream(stderr, true, StandardCharsets.UTF_8), null);
+
+		writer.echo("Received: ping");
+		JsonNode response = mapper.createObjectNode().put("result", "pong");
+		writer.write(response);
+		writer.close();
+
+		assertEquals("Received: ping\nResponded: {\"result\":\"pong\"}\n", stderr.toString(StandardCharsets.UTF_8).replace("\r", ""));
+	}
+
+	private static final class RecordingChannel implements WritableByteChannel {
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final AtomicInteger writes = new AtomicInteger();
+
+		@Override
+		public synchronized int write(ByteBuffer source) {
+			writes.incrementAndGet();
+			int length = source.remaining();
+			byte[] chunk = new byte[length];
+			source.get(chunk);
+			bytes.write(chunk, 0, length);
+			return length;
+		}
+
+		synchronized String text() {
+			return bytes.toString(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTests {
+
+	private final TestStack stack = TestStack.start("alpha-vantage.cache.enabled=false");
+	private final FakeAlphaVantageServer upstream = stack.upstream;
+	private final SingleFlight singleFlight = stack.singleFlight;
+
+	@AfterEach
+	void tearDown() {
+		stack.close();
+	}
+
+	@Test
+	void sendsOneUpstreamRequestForConcurrentIdenticalCalls() {
+		upstream.latency(Duration.ofMillis(200), Duration.ZERO);
+
+		List<JsonNode> quotes = Flux.range(0, 8)
+				.flatMap(i -> stack.service.getStockPriceAsync("IBM"))
+				.collectList()
+				.block();
+
+		assertEquals(8, quotes.size());
+		assertEquals(232.65, quotes.get(7).get("price").asDouble());
+		assertEquals(1, upstream.requests());
+		assertEquals(1, singleFlight.executions());
+		assertEquals(7, singleFlight.coalesced());
+		assertEquals(0, singleFlight.inFlight());
+	}
+
+	@Test
+	void releasesTheKeyWhenTheCallThrowsBeforeReturningAMono() {
+		CacheKey key = CacheKey.of(AlphaVantageFunction.GLOBAL_QUOTE, "IBM");
+
+		Mono<String> failing = singleFlight.execute(key, () -> {
+			throw new IllegalStateException("no connection");
+		});
+
+		assertEquals("no connection", assertThrows(IllegalStateException.class, failing::block).getMessage());
+		assertEquals(0, singleFlight.inFlight());
+		assertEquals("ok", singleFlight.execute(key, () -> Mono.just("ok")).block());
+	}
+}
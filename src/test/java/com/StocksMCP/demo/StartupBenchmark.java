@@ -0,0 +1,104 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cold start of the stdio server: the time from launching a fresh process to reading the
+ * response to its first JSON-RPC request, which is what a client spawning one process per session
+ * waits for. The request is written as soon as the process is started, so it is answered as soon
+ * as the server reads stdin. Upstream calls go to an embedded {@link FakeAlphaVantageServer}.
+ * <pre>
+ * mvn package -DskipTests
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.StocksMCP.demo.StartupBenchmark \
+ *     -Dexec.args="--runs=10 '--command=java -jar target/demo-0.0.1-SNAPSHOT.jar --spring.profiles.active=fast-start'"
+ * </pre>
+ * Options, with defaults: {@code --command="java -jar target/demo-0.0.1-SNAPSHOT.jar"},
+ * {@code --runs=10}, {@code --warmup=1} (runs not measured, to warm the OS file cache),
+ * {@code --method=getStockPrice}, {@code --symbol=IBM}.
+ */
+public final class StartupBenchmark {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = LoadGenerator.options(args);
+		try (FakeAlphaVantageServer upstream = FakeAlphaVantageServer.start()) {
+			new StartupBenchmark().run(options, upstream);
+		}
+	}
+
+	private void run(Map<String, String> options, FakeAlphaVantageServer upstream) throws Exception {
+		String launch = options.getOrDefault("command", "java -jar target/demo-0.0.1-SNAPSHOT.jar");
+		List<String> command = new ArrayList<>(Arrays.asList(launch.split(" ")));
+		command.add("--alpha-vantage.base-url=" + upstream.baseUrl());
+		command.add("--alpha-vantage.api-key=startup-test");
+		command.add("--alpha-vantage.requests-per-minute=0");
+		command.add("--alpha-vantage.requests-per-day=0");
+		command.add("--alpha-vantage.store.enabled=false");
+		command.add("--alpha-vantage.history.enabled=false");
+		int runs = Integer.parseInt(options.getOrDefault("runs", "10"));
+		int warmup = Integer.parseInt(options.getOrDefault("warmup", "1"));
+		String request = "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"" + options.getOrDefault("method", "getStockPrice")
+				+ "\",\"params\":{\"symbol\":\"" + options.getOrDefault("symbol", "IBM") + "\"}}\n";
+
+		long[] times = new long[runs];
+		for (int run = -warmup; run < runs; run++) {
+			long elapsed = firstResponse(command, request);
+			if (run >= 0) times[run] = elapsed;
+		}
+		Arrays.sort(times);
+
+		System.out.printf("command              %s%n", launch);
+		System.out.printf("first response ms    min %.1f  p50 %.1f  p90 %.1f  max %.1f  (%d runs)%n",
+				times[0] / 1e6, times[(runs - 1) / 2] / 1e6, times[(int) Math.ceil(runs * 0.9) - 1] / 1e6,
+				times[runs - 1] / 1e6, runs);
+		System.out.printf("upstream calls       %d%n", upstream.requests());
+	}
+
+	/**
+	 * Starts a server, sends {@code request} and returns the nanoseconds until its response.
+	 */
+	private long firstResponse(List<String> command, String request) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		Process server = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+		try (OutputStream stdin = server.getOutputStream();
+			 BufferedReader stdout = new BufferedReader(new InputStreamReader(server.getInputStream(), StandardCharsets.UTF_8))) {
+			stdin.write(request.getBytes(StandardCharsets.UTF_8));
+			stdin.flush();
+
+			String line;
+			while ((line = stdout.readLine()) != null) {
+				long now = System.nanoTime();
+				JsonNode response;
+				try {
+					response = mapper.readTree(line);
+				} catch (IOException e) {
+					continue;
+				}
+				if (!response.path("id").asText().equals("1")) continue;
+				if (response.has("error") || response.path("result").has("error")) {
+					throw new IllegalStateException("First request failed: " + line);
+				}
+				return now - start;
+			}
+			throw new IllegalStateException("Server exited with " + server.waitFor() + " before responding");
+		} finally {
+			if (!server.waitFor(30, TimeUnit.SECONDS)) {
+				server.destroyForcibly();
+			}
+		}
+	}
+}
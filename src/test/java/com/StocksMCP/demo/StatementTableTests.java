@@ -0,0 +1,66 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementTableTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	void storesRowsAsColumns() {
+		StatementTable table = table(10);
+
+		assertEquals(10, table.rowCount());
+		assertEquals("2019-12-31", table.text("fiscalDateEnding", 5));
+		assertEquals(500.0, table.number("totalRevenue", 5));
+		assertEquals(Double.NaN, table.number("netIncome", 5));
+		assertEquals(0.0, table.number("costOfRevenue", 5));
+		assertArrayEquals(new double[] {0, 100, 200, 300, 400, 500, 600, 700, 800, 900}, table.column("totalRevenue"));
+	}
+
+	@Test
+	void roundTripsThroughJsonRows() {
+		StatementTable table = table(3);
+		ArrayNode json = table.toJson(mapper);
+
+		assertEquals(ReportSchemas.INCOME_STATEMENT.fields().size(), json.get(0).size());
+		assertEquals("USD", json.get(2).get("reportedCurrency").asText());
+		assertTrue(json.get(2).get("netIncome").isNull(), json.toString());
+		assertEquals(json, StatementTable.fromJson(ReportSchemas.INCOME_STATEMENT, json).toJson(mapper));
+	}
+
+	@Test
+	void rendersOnlyTheRequestedPageAndFields() {
+		StatementTable table = table(5);
+		int[] fields = ReportSchemas.INCOME_STATEMENT.indexesOfTargets(List.of("totalRevenue", " fiscalDateEnding"));
+
+		ArrayNode json = table.toJson(mapper, fields, 3, 10);
+
+		assertEquals(2, json.size());
+		assertEquals("[{\"fiscalDateEnding\":\"2021-12-31\",\"totalRevenue\":300.0},"
+				+ "{\"fiscalDateEnding\":\"2020-12-31\",\"totalRevenue\":400.0}]", json.toString());
+		assertThrows(IllegalArgumentException.class, () -> ReportSchemas.INCOME_STATEMENT.indexesOfTargets(List.of("revenue")));
+	}
+
+	private StatementTable table(int rows) {
+		ReportSchema schema = ReportSchemas.INCOME_STATEMENT;
+		StatementTable.Builder builder = new StatementTable.Builder(schema);
+		for (int row = 0; row < rows; row++) {
+			builder.startRow();
+			builder.text(schema.indexOf("fiscalDateEnding"), (2024 - row) + "-12-31");
+			builder.text(schema.indexOf("reportedCurrency"), "USD");
+			builder.number(schema.indexOf("totalRevenue"), row * 100.0);
+			builder.endRow();
+		}
+		return builder.build();
+	}
+}
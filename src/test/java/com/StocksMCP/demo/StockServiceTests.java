@@ -0,0 +1,274 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockServiceTests {
+
+	private final TestStack stack = TestStack.start();
+	private final FakeAlphaVantageServer upstream = stack.upstream;
+	private final StockService service = stack.service;
+	private final ServerMetrics metrics = stack.metrics;
+
+	@AfterEach
+	void tearDown() {
+		stack.close();
+	}
+
+	@Test
+	void mapsRecordedResponses() {
+		JsonNode quote = service.getStockPriceAsync("IBM").block();
+		JsonNode income = service.getIncomeStatementAsync("IBM", 3).block();
+		JsonNode insiders = service.getInsiderTransactionsAsync("IBM", 2).block();
+
+		assertEquals(232.65, quote.get("price").asDouble());
+		assertEquals(3467216.0, quote.get("volume").asDouble());
+		assertEquals("2025-08-15", quote.get("time").asText());
+		assertEquals(3, income.get("count").asInt());
+		assertEquals("2024-12-31", income.get("incomeStatements").get(0).get("fiscalDateEnding").asText());
+		assertEquals(2, insiders.get("transactions").size());
+	}
+
+	@Test
+	void pagesAndProjectsQuarterlyStatements() {
+		JsonNode income = service.getIncomeStatementAsync("IBM", 2, 1, "quarterly",
+				List.of("totalRevenue", "fiscalDateEnding")).block();
+		JsonNode unknown = service.getIncomeStatementAsync("IBM", 2, 0, null, List.of("revenue")).block();
+		JsonNode badPeriod = service.getIncomeStatementAsync("IBM", 2, 0, "monthly", null).block();
+
+		assertEquals("quarterly", income.get("period").asText());
+		assertEquals(2, income.get("count").asInt());
+		JsonNode first = income.get("incomeStatements").get(0);
+		assertEquals(2, first.size());
+		assertEquals("2025-03-31", first.get("fiscalDateEnding").asText());
+		assertEquals(23886568095.0, first.get("totalRevenue").asDouble());
+		assertEquals("{\"fiscalDateEnding\":\"2025-03-31\",\"totalRevenue\":2.3886568095E10}", first.toString());
+		assertTrue(unknown.get("error").asText().contains("Unknown field revenue"), unknown.toString());
+		assertTrue(badPeriod.get("error").asText().contains("Unknown period monthly"), badPeriod.toString());
+		assertEquals(1, upstream.requests());
+	}
+
+	@Test
+	void cutsNewsPagesFromOneCachedFeed() {
+		JsonNode firstPage = service.getStockNewsAsync("IBM", 2, 0, List.of("title"), null).block();
+		JsonNode secondPage = service.getStockNewsAsync("IBM", 1, 1, List.of("title", "sentiment"), null).block();
+
+		assertEquals(2, firstPage.get("count").asInt());
+		assertEquals("{\"title\":\"Headline 1: IBM announces acquisition\"}", firstPage.get("articles").get(1).toString());
+		assertEquals(1, secondPage.get("count").asInt());
+		assertEquals(2, secondPage.get("articles").get(0).size());
+		assertTrue(secondPage.get("articles").get(0).has("sentiment"));
+		assertEquals("Headline 1: IBM announces acquisition", secondPage.get("articles").get(0).get("title").asText());
+		assertEquals(1, upstream.requests());
+	}
+
+	@Test
+	void pollsNewsIncrementallyFromACursor() {
+		try (TestStack polled = TestStack.start("alpha-vantage.news.refresh-after=0s")) {
+			FakeAlphaVantageServer upstream = polled.upstream;
+			StockService polling = polled.service;
+			JsonNode latest = polling.getStockNewsAsync("IBM", 5, null, List.of("title"), null).block();
+			String cursor = latest.get("cursor").asText();
+			upstream.fixture(AlphaVantageFunction.NEWS_SENTIMENT, "{\"items\": \"2\", \"feed\": ["
+					+ "{\"title\": \"Newer\", \"url\": \"https://news.example.com/newer\", \"time_published\": \"20250816T090000\"},"
+					+ "{\"title\": \"Seen\", \"url\": \"https://news.example.com/articles/100003\", \"time_published\": \"" + cursor + "\"}]}");
+
+			JsonNode first = polling.getStockNewsAsync("IBM", null, null, List.of("title", "time"), cursor).block();
+			JsonNode second = polling.getStockNewsAsync("IBM", null, null, null, first.get("cursor").asText()).block();
+
+			assertTrue(cursor.startsWith("20250815T153900~"), cursor);
+			assertEquals(1, first.get("count").asInt());
+			assertEquals("{\"title\":\"Newer\",\"time\":\"20250816T090000\"}", first.get("articles").get(0).toString());
+			assertTrue(first.get("cursor").asText().startsWith("20250816T090000~"), first.toString());
+			assertEquals(0, second.get("count").asInt());
+			assertEquals(first.get("cursor"), second.get("cursor"));
+			assertTrue(upstream.lastQuery().contains("time_from=20250816T0900"), upstream.lastQuery());
+			assertTrue(upstream.lastQuery().contains("sort=LATEST"), upstream.lastQuery());
+			assertEquals(3, polled.news.duplicates());
+			assertEquals(3, upstream.requests());
+		}
+	}
+
+	@Test
+	void answersNewsPollsFromTheIndexUntilItIsDue() {
+		JsonNode latest = service.getStockNewsAsync("IBM", null, null, null, null).block();
+		JsonNode polled = service.getStockNewsAsync("IBM", 2, null, List.of("time"), "20250815T000000").block();
+
+		assertEquals(2, polled.get("count").asInt());
+		assertTrue(polled.get("hasMore").asBoolean());
+		assertTrue(polled.get("cursor").asText().compareTo("20250815T000000") > 0, polled.toString());
+		assertTrue(service.getStockNewsAsync("IBM", null, null, null, "soon").block().get("error").asText().contains("Invalid cursor"));
+		assertTrue(latest.get("cursor").asText().startsWith("20250815T153900~"), latest.toString());
+		assertEquals(1, upstream.requests());
+	}
+
+	@Test
+	void reportsRateLimitNoticeAsError() {
+		upstream.rateLimitRate(1.0);
+
+		JsonNode response = service.getCashFlowAsync("IBM", 1).block();
+
+		assertTrue(response.get("error").asText().contains("rate limit"), response.toString());
+	}
+
+	@Test
+	void cachesResultsAcrossCalls() {
+		service.getCompanyOverviewAsync("IBM").block();
+		service.getCompanyOverviewAsync("IBM").block();
+
+		assertEquals(1, upstream.requests());
+	}
+
+	@Test
+	void sharesOneCacheEntryAcrossSymbolSpellings() {
+		service.getCompanyOverviewAsync("ibm").block();
+		service.getCompanyOverviewAsync(" IBM ").block();
+		service.getCompanyOverviewAsync("IBM").block();
+
+		assertEquals(1, upstream.requests());
+	}
+
+	@Test
+	void fansOutMultiSymbolQuotes() {
+		JsonNode prices = service.getStockPricesAsync(List.of("ibm", "MSFT", "IBM ")).block();
+
+		assertEquals(2, prices.get("count").asInt());
+		assertEquals("MSFT", prices.get("quotes").get(1).get("symbol").asText());
+		assertEquals(233.08, prices.get("quotes").get(0).get("high").asDouble());
+		assertEquals(3467216, prices.get("quotes").get(0).get("volume").asInt());
+		assertEquals("0.8059%", prices.get("quotes").get(0).get("changePercent").asText());
+		assertEquals(0, prices.get("errors").size());
+		assertEquals(2, upstream.requests());
+	}
+
+	@Test
+	void batchesMultiSymbolQuotesThroughTheBulkEndpoint() {
+		try (TestStack bulk = TestStack.start("alpha-vantage.bulk-quotes.enabled=true", "alpha-vantage.bulk-quotes.batch-size=2")) {
+			FakeAlphaVantageServer upstream = bulk.upstream;
+			JsonNode prices = bulk.service.getStockPricesAsync(List.of("IBM", "NOPE", "MSFT")).block();
+
+			assertEquals(2, prices.get("count").asInt());
+			assertEquals(520.17, prices.get("quotes").get(1).get("price").asDouble());
+			assertEquals(25213272.0, prices.get("quotes").get(1).get("volume").asDouble());
+			assertEquals("2025-08-15 16:00:00.000", prices.get("quotes").get(0).get("timestamp").asText());
+			assertEquals("2025-08-15 16:00:00.000", prices.get("quotes").get(0).get("time").asText());
+			assertEquals("NOPE", prices.get("errors").get(0).get("symbol").asText());
+			assertEquals("No data found for symbol: NOPE", prices.get("errors").get(0).get("error").asText());
+			assertEquals(2, upstream.requests());
+		}
+	}
+
+	@Test
+	void fetchesTheStatementsForRatiosConcurrently() {
+		upstream.latency(Duration.ofMillis(300), Duration.ZERO);
+
+		long start = System.nanoTime();
+		JsonNode ratios = service.getFinancialRatiosAsync("IBM", 3).block();
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertEquals(3, ratios.get("count").asInt());
+		assertEquals("2024-12-31", ratios.get("rows").get(0).get(0).asText());
+		assertEquals(3, upstream.requests());
+		assertTrue(elapsedMillis < 800, elapsedMillis + "ms");
+	}
+
+	@Test
+	void syncsPriceHistoryOnceAndComputesIndicatorsLocally() {
+		JsonNode prices = service.getPriceHistoryAsync("IBM", 5).block();
+		JsonNode indicators = service.getIndicatorsAsync("IBM", 3).block();
+
+		assertEquals(5, prices.get("count").asInt());
+		assertEquals("[\"2025-08-15\",231.39,233.08,229.11,232.65,3467216]", prices.get("rows").get(0).toString());
+		assertEquals("2025-08-14", prices.get("rows").get(1).get(0).asText());
+		assertTrue(upstream.lastQuery().contains("outputsize=full"), upstream.lastQuery());
+
+		assertEquals(3, indicators.get("count").asInt());
+		JsonNode latest = indicators.get("rows").get(0);
+		assertEquals(232.65, latest.get(1).asDouble());
+		for (int column = 2; column < latest.size(); column++) {
+			assertTrue(latest.get(column).isNumber(), indicators.get("columns").get(column) + " is " + latest.get(column));
+		}
+		assertEquals(1, upstream.requests());
+	}
+
+	@Test
+	void refreshesPriceHistoryWithTheCompactSeries() {
+		try (TestStack refreshing = TestStack.start("alpha-vantage.history.refresh-after=0s")) {
+			FakeAlphaVantageServer upstream = refreshing.upstream;
+			LocalDate today = LocalDate.now();
+			upstream.fixture(AlphaVantageFunction.TIME_SERIES_DAILY, dailySeries(today.minusDays(1), 150));
+			refreshing.service.getPriceHistoryAsync("IBM", 1).block();
+			assertTrue(upstream.lastQuery().contains("outputsize=full"), upstream.lastQuery());
+
+			upstream.fixture(AlphaVantageFunction.TIME_SERIES_DAILY, dailySeries(today, 100));
+			JsonNode prices = refreshing.service.getPriceHistoryAsync("IBM", 1000).block();
+
+			assertTrue(upstream.lastQuery().contains("outputsize=compact"), upstream.lastQuery());
+			assertEquals(151, prices.get("count").asInt());
+			assertEquals(today.toString(), prices.get("rows").get(0).get(0).asText());
+			assertEquals(151, refreshing.history.read("IBM").size());
+			assertEquals(2, upstream.requests());
+		}
+	}
+
+	@Test
+	void recordsUpstreamCallsInServerStats() {
+		service.getStockPriceAsync("IBM").block();
+		upstream.rateLimitRate(1.0);
+		service.getBalanceSheetAsync("IBM", 1).block();
+
+		JsonNode stats = metrics.snapshot();
+		JsonNode quote = stats.get("upstream").get("GLOBAL_QUOTE");
+		assertEquals(1, quote.get("calls").asInt());
+		assertEquals(1, quote.get("networkMs").get("count").asInt());
+		assertTrue(quote.get("payloadBytes").get("max").asDouble() > 0, quote.toString());
+		assertEquals(1, stats.get("upstream").get("BALANCE_SHEET").get("errors").get("rate_limit").asInt());
+		assertEquals(0.0, stats.get("cache").get("hitRatio").asDouble());
+	}
+
+	@Test
+	void servesTheLastKnownQuoteWhileItsCircuitIsOpen() {
+		try (TestStack failing = TestStack.start("alpha-vantage.cache.ttl.GLOBAL_QUOTE=0s",
+				"alpha-vantage.cache.max-stale.GLOBAL_QUOTE=0s", "alpha-vantage.breaker.window=4",
+				"alpha-vantage.breaker.minimum-calls=2", "alpha-vantage.breaker.open-for=1m", "alpha-vantage.breaker.trial-calls=1")) {
+			FakeAlphaVantageServer upstream = failing.upstream;
+			failing.service.getStockPriceAsync("IBM").block();
+			upstream.errorRate(1.0);
+
+			JsonNode failed = failing.service.getStockPriceAsync("IBM").block();
+			JsonNode fallback = failing.service.getStockPriceAsync("IBM").block();
+			JsonNode overview = failing.service.getCompanyOverviewAsync("IBM").block();
+
+			assertTrue(failed.has("error"), failed.toString());
+			assertEquals(CircuitBreakers.State.OPEN, failing.breakers.state(AlphaVantageFunction.GLOBAL_QUOTE));
+			assertEquals(232.65, fallback.get("price").asDouble());
+			assertTrue(fallback.get("stale").asBoolean(), fallback.toString());
+			assertTrue(fallback.has("staleAgeSeconds"), fallback.toString());
+			assertTrue(overview.has("error"), overview.toString());
+			assertEquals(3, upstream.requests());
+			assertEquals(1, failing.cache.fallbacks());
+		}
+	}
+
+	/**
+	 * A daily series of {@code bars} consecutive days up to {@code last}, newest first, closing at
+	 * 100 plus the day's offset from the first.
+	 */
+	private static String dailySeries(LocalDate last, int bars) {
+		StringBuilder body = new StringBuilder("{\"Meta Data\": {\"2. Symbol\": \"IBM\"}, \"Time Series (Daily)\": {");
+		for (int i = 0; i < bars; i++) {
+			if (i > 0) body.append(',');
+			body.append('"').append(last.minusDays(i)).append("\": {\"1. open\": \"100\", \"2. high\": \"101\", ")
+					.append("\"3. low\": \"99\", \"4. close\": \"").append(100 + bars - i).append("\", \"5. volume\": \"1000\"}");
+		}
+		return body.append("}}").toString();
+	}
+}
@@ -0,0 +1,93 @@
+package com.StocksMCP.demo;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * The beans Spring wires for the server, built by hand in front of a {@link FakeAlphaVantageServer},
+ * with the on-disk stores disabled and no upstream quota. Settings are given as the application's
+ * own {@code key=value} properties, so a test asks for a variant the same way a deployment
+ * configures one; anything not given gets a small test default.
+ */
+final class TestStack implements AutoCloseable {
+
+	final FakeAlphaVantageServer upstream = FakeAlphaVantageServer.start();
+	final MockEnvironment environment = new MockEnvironment();
+	final UpstreamScheduler scheduler;
+	final FundamentalsStore store = new FundamentalsStore(false, Path.of("unused"), Duration.ZERO);
+	final PriceHistoryStore history = new PriceHistoryStore(false, Path.of("unused"));
+	final NewsIndex news;
+	final ResponseCache cache;
+	final SingleFlight singleFlight = new SingleFlight();
+	final ServerMetrics metrics;
+	final CircuitBreakers breakers;
+	final UpstreamTransport transport;
+	final StockService service;
+	final QuoteSubscriptions quoteSubscriptions;
+	final ToolRegistry tools;
+	final McpServerRunner runner;
+
+	private TestStack(String... properties) {
+		for (String property : properties) {
+			int split = property.indexOf('=');
+			environment.setProperty(property.substring(0, split), property.substring(split + 1));
+		}
+		scheduler = new UpstreamScheduler("test", 0, 0, duration("alpha-vantage.max-queue-wait", "5s"));
+		news = new NewsIndex(duration("alpha-vantage.news.refresh-after", "1m"), number("alpha-vantage.news.max-articles", "200"));
+		cache = new ResponseCache(environment, store, flag("alpha-vantage.cache.enabled", "true"),
+				number("alpha-vantage.cache.max-entries", "100"));
+		metrics = new ServerMetrics(cache, singleFlight, scheduler, store, "", Duration.ofMinutes(1));
+		breakers = new CircuitBreakers(metrics, flag("alpha-vantage.breaker.enabled", "true"),
+				number("alpha-vantage.breaker.window", "20"), number("alpha-vantage.breaker.minimum-calls", "5"),
+				fraction("alpha-vantage.breaker.failure-rate", "0.5"), duration("alpha-vantage.breaker.slow-call", "10s"),
+				fraction("alpha-vantage.breaker.slow-rate", "0.5"), duration("alpha-vantage.breaker.open-for", "30s"),
+				number("alpha-vantage.breaker.trial-calls", "2"));
+		transport = new UpstreamTransport(environment, metrics, upstream.baseUrl(), duration("alpha-vantage.timeout", "5s"),
+				duration("alpha-vantage.connect-timeout", "5s"), duration("alpha-vantage.read-timeout", "5s"),
+				number("alpha-vantage.pool.max-connections", "16"), duration("alpha-vantage.pool.max-idle-time", "30s"),
+				flag("alpha-vantage.compression", "true"), flag("alpha-vantage.hedge.enabled", "false"),
+				fraction("alpha-vantage.hedge.percentile", "0.95"), duration("alpha-vantage.hedge.min-delay", "100ms"),
+				number("alpha-vantage.hedge.min-samples", "20"));
+		service = new StockService(transport, flag("alpha-vantage.bulk-quotes.enabled", "false"),
+				number("alpha-vantage.bulk-quotes.batch-size", "100"), number("alpha-vantage.quote-fan-out", "4"),
+				duration("alpha-vantage.history.refresh-after", "6h"), cache, history, news, singleFlight, scheduler, breakers, metrics);
+		quoteSubscriptions = new QuoteSubscriptions(service, scheduler, metrics, duration("mcp.quotes.min-interval", "30s"),
+				fraction("mcp.quotes.quota-share", "0.5"));
+		tools = new ToolRegistry(service, quoteSubscriptions, metrics);
+		runner = new McpServerRunner(tools, quoteSubscriptions, metrics, flag("mcp.dispatch.concurrent", "true"),
+				number("mcp.dispatch.max-in-flight", "16"), number("mcp.dispatch.queue-depth", "256"), false, 65536);
+	}
+
+	/**
+	 * A stack configured with the given {@code key=value} application properties.
+	 */
+	static TestStack start(String... properties) {
+		return new TestStack(properties);
+	}
+
+	@Override
+	public void close() {
+		quoteSubscriptions.shutdown();
+		upstream.close();
+		scheduler.shutdown();
+	}
+
+	private Duration duration(String key, String defaultValue) {
+		return DurationStyle.detectAndParse(environment.getProperty(key, defaultValue));
+	}
+
+	private int number(String key, String defaultValue) {
+		return Integer.parseInt(environment.getProperty(key, defaultValue));
+	}
+
+	private double fraction(String key, String defaultValue) {
+		return Double.parseDouble(environment.getProperty(key, defaultValue));
+	}
+
+	private boolean flag(String key, String defaultValue) {
+		return Boolean.parseBoolean(environment.getProperty(key, defaultValue));
+	}
+}
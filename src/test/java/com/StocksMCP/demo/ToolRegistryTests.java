@@ -0,0 +1,91 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ToolRegistryTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final TestStack stack = TestStack.start();
+	private final FakeAlphaVantageServer upstream = stack.upstream;
+	private final ServerMetrics metrics = stack.metrics;
+	private final ToolRegistry registry = stack.tools;
+
+	@AfterEach
+	void tearDown() {
+		stack.close();
+	}
+
+	@Test
+	void registersEveryToolMethod() {
+		List<String> names = Arrays.stream(registry.callbacks()).map(callback -> callback.getToolDefinition().name()).toList();
+
+		assertEquals(List.of("getBalanceSheet", "getCashFlow", "getCompanyOverview", "getEarningsEstimates", "getFinancialRatios", "getIncomeStatement",
+				"getIndicators", "getInsiderTransactions", "getPriceHistory", "getServerStats", "getStockNews", "getStockPrice", "getStockPrices",
+				"subscribeQuotes", "unsubscribeQuotes"), names);
+		assertNull(registry.get("getStockPriceAsync"));
+	}
+
+	@Test
+	void decodesNamedArguments() throws Exception {
+		JsonNode income = registry.get("getIncomeStatement")
+				.invoke(mapper.readTree("{\"symbol\":\"IBM\",\"limit\":2}"))
+				.block();
+
+		assertEquals(2, income.get("count").asInt());
+		assertEquals("IBM", income.get("symbol").asText());
+	}
+
+	@Test
+	void decodesArrayArguments() throws Exception {
+		ToolRegistry.RegisteredTool prices = registry.get("getStockPrices");
+
+		JsonNode result = prices.invoke(mapper.readTree("{\"symbols\":[\"IBM\",\"MSFT\"]}")).block();
+
+		assertEquals(2, result.get("count").asInt());
+		assertTrue(prices.definition().inputSchema().contains("\"array\""), prices.definition().inputSchema());
+	}
+
+	@Test
+	void failsWithTheParameterThatDoesNotDecode() throws Exception {
+		Mono<JsonNode> call = registry.get("getStockPrices").invoke(mapper.readTree("{\"symbols\":\"IBM\"}"));
+
+		InvalidParamsException e = assertThrows(InvalidParamsException.class, call::block);
+		assertEquals("symbols", e.parameter());
+		assertEquals(0, upstream.requests());
+	}
+
+	@Test
+	void answersMissingRequiredArgumentWithError() throws Exception {
+		JsonNode result = registry.get("getStockNews").invoke(mapper.readTree("{\"limit\":2}")).block();
+
+		assertEquals("Missing symbol parameter", result.get("error").get("message").asText());
+		assertEquals(0, upstream.requests());
+	}
+
+	@Test
+	void servesSpringAiCallbacksThroughTheSameTools() throws Exception {
+		ToolCallback quote = Arrays.stream(registry.callbacks())
+				.filter(callback -> callback.getToolDefinition().name().equals("getStockPrice"))
+				.findFirst()
+				.orElseThrow();
+
+		JsonNode result = mapper.readTree(quote.call("{\"symbol\":\"IBM\"}"));
+
+		assertEquals(232.65, result.get("price").asDouble());
+		assertTrue(quote.getToolDefinition().inputSchema().contains("\"symbol\""));
+		assertEquals(1, metrics.snapshot().get("tools").get("getStockPrice").get("calls").asInt());
+	}
+}
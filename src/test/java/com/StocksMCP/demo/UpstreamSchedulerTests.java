@@ -0,0 +1,65 @@
+package com.StocksMCP.demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UpstreamSchedulerTests {
+
+	@Test
+	void spreadsLoadAcrossKeys() {
+		UpstreamScheduler scheduler = new UpstreamScheduler("a, b", 10, 0, Duration.ofSeconds(5));
+		Set<String> used = new HashSet<>();
+
+		for (int i = 0; i < 4; i++) {
+			used.add(scheduler.acquire(UpstreamPriority.BULK));
+		}
+
+		assertEquals(Set.of("a", "b"), used);
+		scheduler.shutdown();
+	}
+
+	@Test
+	void failsFastOnceDailyQuotaIsUsedUp() {
+		UpstreamScheduler scheduler = new UpstreamScheduler("a", 0, 2, Duration.ofSeconds(5));
+
+		scheduler.acquire(UpstreamPriority.INTERACTIVE);
+		scheduler.acquire(UpstreamPriority.INTERACTIVE);
+
+		assertThrows(UpstreamQuotaException.class, () -> scheduler.acquire(UpstreamPriority.INTERACTIVE));
+		scheduler.shutdown();
+	}
+
+	@Test
+	void grantsInteractiveCallsBeforeQueuedBulkCalls() throws Exception {
+		UpstreamScheduler scheduler = new UpstreamScheduler("a", 60, 0, Duration.ofSeconds(10));
+		for (int i = 0; i < 60; i++) {
+			scheduler.acquire(UpstreamPriority.BULK);
+		}
+
+		List<UpstreamPriority> order = new CopyOnWriteArrayList<>();
+		CompletableFuture<Void> bulk = CompletableFuture.runAsync(() -> {
+			scheduler.acquire(UpstreamPriority.BULK);
+			order.add(UpstreamPriority.BULK);
+		});
+		while (scheduler.queueDepth() < 1) {
+			Thread.sleep(1);
+		}
+		CompletableFuture<Void> interactive = CompletableFuture.runAsync(() -> {
+			scheduler.acquire(UpstreamPriority.INTERACTIVE);
+			order.add(UpstreamPriority.INTERACTIVE);
+		});
+		CompletableFuture.allOf(bulk, interactive).get();
+
+		assertEquals(List.of(UpstreamPriority.INTERACTIVE, UpstreamPriority.BULK), order);
+		scheduler.shutdown();
+	}
+}
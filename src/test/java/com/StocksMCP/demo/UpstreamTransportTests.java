@@ -0,0 +1,129 @@
+package com.StocksMCP.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpstreamTransportTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private TestStack stack;
+
+	@AfterEach
+	void tearDown() {
+		stack.close();
+	}
+
+	@Test
+	void reusesOneConnectionAndDecodesGzip() throws Exception {
+		UpstreamTransport transport = start().transport;
+
+		for (int i = 0; i < 10; i++) {
+			String body = transport.webClient().get()
+					.uri(uriBuilder -> uriBuilder.queryParam("function", "GLOBAL_QUOTE").queryParam("symbol", "IBM").build())
+					.retrieve()
+					.bodyToMono(String.class)
+					.block();
+			assertEquals("IBM", mapper.readTree(body).get("Global Quote").get("01. symbol").asText());
+		}
+
+		assertEquals(10, stack.upstream.gzipped());
+		// A connection goes back to the pool just after its response completes, so the next
+		// request can occasionally miss it and open a second one.
+		assertTrue(stack.upstream.connections() <= 2, stack.upstream.connections() + " connections");
+	}
+
+	@Test
+	void appliesTheTimeoutOfEachFunction() {
+		UpstreamTransport transport = start("alpha-vantage.timeouts.GLOBAL_QUOTE=200ms").transport;
+		StockService service = stack.service;
+		// Connect and load the client before timing the call.
+		transport.webClient().get().retrieve().toBodilessEntity().block();
+		stack.upstream.latency(Duration.ofSeconds(1), Duration.ZERO);
+
+		long start = System.nanoTime();
+		JsonNode quote = service.getStockPriceAsync("IBM").block();
+		long elapsed = System.nanoTime() - start;
+
+		assertTrue(quote.has("error"), quote.toString());
+		assertTrue(elapsed < Duration.ofMillis(800).toNanos(), "took " + elapsed / 1_000_000 + " ms");
+		assertEquals(Duration.ofMillis(200), transport.timeout(AlphaVantageFunction.GLOBAL_QUOTE));
+		assertEquals(Duration.ofSeconds(5), transport.timeout(AlphaVantageFunction.OVERVIEW));
+	}
+
+	@Test
+	void hedgesACallSlowerThanItsFunctionUsuallyIs() {
+		StockService service = hedgingService();
+
+		stack.upstream.stallNext(1, Duration.ofSeconds(2));
+		long start = System.nanoTime();
+		JsonNode quote = service.getStockPriceAsync("IBM").block();
+		long elapsed = System.nanoTime() - start;
+
+		assertEquals(232.65, quote.get("price").asDouble());
+		assertTrue(elapsed < Duration.ofSeconds(1).toNanos(), "took " + elapsed / 1_000_000 + " ms");
+		assertEquals(7, stack.upstream.requests());
+		JsonNode stats = stack.metrics.snapshot().get("upstream").get("GLOBAL_QUOTE");
+		assertEquals(1, stats.get("hedged").asInt());
+		assertEquals(1, stats.get("errors").get("cancelled").asInt());
+	}
+
+	@Test
+	void hedgesACallWhoseFirstAttemptFailsFast() {
+		StockService service = hedgingService();
+
+		stack.upstream.failNext(1);
+		JsonNode quote = service.getStockPriceAsync("IBM").block();
+
+		assertEquals(232.65, quote.get("price").asDouble(), quote.toString());
+		assertEquals(7, stack.upstream.requests());
+		assertEquals(1, stack.metrics.snapshot().get("upstream").get("GLOBAL_QUOTE").get("hedged").asInt());
+	}
+
+	@Test
+	void failsWithTheFirstErrorWhenTheHedgeFailsToo() {
+		StockService service = hedgingService();
+
+		stack.upstream.failNext(2);
+		JsonNode quote = service.getStockPriceAsync("IBM").block();
+
+		assertTrue(quote.get("error").asText().contains("500"), quote.toString());
+		assertEquals(7, stack.upstream.requests());
+	}
+
+	/**
+	 * A service hedging quotes after 300ms, once five calls have given it enough samples to tell
+	 * a slow call apart. The delay is well above any local response, so a failing first attempt
+	 * always fails before the hedge is sent.
+	 */
+	private StockService hedgingService() {
+		StockService service = start("alpha-vantage.hedge.enabled=true", "alpha-vantage.hedge.percentile=0.5",
+				"alpha-vantage.hedge.min-delay=300ms", "alpha-vantage.hedge.min-samples=5").service;
+		for (int i = 0; i < 5; i++) {
+			assertEquals(232.65, service.getStockPriceAsync("IBM").block().get("price").asDouble());
+		}
+		// A call records its network time just after handing over its result.
+		while (stack.metrics.upstreamNetwork(AlphaVantageFunction.GLOBAL_QUOTE).count() < 5) {
+			Thread.onSpinWait();
+		}
+		return service;
+	}
+
+	/**
+	 * A stack without caching of quotes, so every call reaches the fake upstream.
+	 */
+	private TestStack start(String... properties) {
+		String[] all = Arrays.copyOf(properties, properties.length + 2);
+		all[properties.length] = "alpha-vantage.cache.ttl.GLOBAL_QUOTE=0s";
+		all[properties.length + 1] = "alpha-vantage.cache.max-stale.GLOBAL_QUOTE=0s";
+		stack = TestStack.start(all);
+		return stack;
+	}
+}